@@ -0,0 +1,29 @@
+#!/usr/bin/env sh
+# Octets transférés et latence des listes typiques : HTTP/1.1 vs HTTP/2, avec et sans gzip.
+#
+# Usage : TOKEN=<jwt> ARTISAN=<id> bench/compression.sh [https://localhost:8443] [répétitions]
+# (curl >= 7.47 compilé avec HTTP/2 ; -k car le certificat local est auto-signé)
+# size_download = octets du corps reçus (compressés si gzip), time_total = latence complète.
+BASE=${1:-https://localhost:8443}
+RUNS=${2:-20}
+AUTH="Authorization: Bearer ${TOKEN}"
+
+for path in "/api/services?size=100" "/api/services/artisan/${ARTISAN}" "/api/reviews/artisan/${ARTISAN}" "/api/bookings/client"; do
+  for proto in --http1.1 --http2; do
+    for encoding in identity gzip; do
+      total_time=0
+      size=0
+      i=0
+      while [ "$i" -lt "$RUNS" ]; do
+        out=$(curl -sk "$proto" -o /dev/null -H "$AUTH" -H "Accept-Encoding: $encoding" \
+          -w '%{size_download} %{time_total} %{http_version}' "$BASE$path")
+        size=$(echo "$out" | cut -d' ' -f1)
+        total_time=$(echo "$total_time $(echo "$out" | cut -d' ' -f2)" | awk '{print $1 + $2}')
+        version=$(echo "$out" | cut -d' ' -f3)
+        i=$((i + 1))
+      done
+      avg_ms=$(echo "$total_time $RUNS" | awk '{printf "%.1f", $1 * 1000 / $2}')
+      printf '%-45s HTTP/%-4s %-9s %10s octets %8s ms\n' "$path" "$version" "$encoding" "$size" "$avg_ms"
+    done
+  done
+done
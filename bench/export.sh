@@ -0,0 +1,49 @@
+#!/usr/bin/env sh
+# Export d'un million de réservations sous un tas réduit : nombre de lignes, durée et tas maximal observé.
+#
+# Préparation : mvn -DskipTests package ; MongoDB local démarré (base bench_export, supprimée à la fin).
+# Usage : ADMIN_EMAIL=<admin> ADMIN_PASSWORD=<mdp> bench/export.sh [lignes] [tas]
+# (l'administrateur doit exister dans la base bench_export ; défauts : 1000000 lignes, -Xmx96m)
+ROWS=${1:-1000000}
+HEAP=${2:-96m}
+PORT=18443
+DB=bench_export
+BASE="https://localhost:${PORT}"
+JAR=target/ProxiServeUpdate-0.0.1-SNAPSHOT.jar
+
+# Jeu de données : insertion par lots de 10 000 documents
+mongosh --quiet "mongodb://localhost:27017/${DB}" --eval "
+  db.bookings.drop();
+  const batch = [];
+  for (let i = 0; i < ${ROWS}; i++) {
+    batch.push({ clientId: 'c' + (i % 10000), artisanId: 'a' + (i % 1000), serviceId: 's' + (i % 5000),
+                 bookingDate: new Date(Date.now() - i * 60000), status: 'COMPLETED', paymentStatus: 'PAID' });
+    if (batch.length === 10000) { db.bookings.insertMany(batch, { ordered: false }); batch.length = 0; }
+  }
+  if (batch.length) db.bookings.insertMany(batch, { ordered: false });
+  print(db.bookings.estimatedDocumentCount() + ' réservations insérées');"
+
+java -Xmx"$HEAP" -XX:+UseSerialGC -jar "$JAR" --server.port="$PORT" \
+  --spring.data.mongodb.uri="mongodb://localhost:27017/${DB}" --bookings.archive.enabled=false >/dev/null 2>&1 &
+pid=$!
+until curl -sk -o /dev/null "$BASE/actuator/health"; do
+  sleep 0.5
+done
+
+TOKEN=$(curl -sk -H 'Content-Type: application/json' \
+  -d "{\"email\":\"${ADMIN_EMAIL}\",\"password\":\"${ADMIN_PASSWORD}\"}" "$BASE/api/auth/login" \
+  | sed -n 's/.*"token":"\([^"]*\)".*/\1/p')
+
+for format in csv ndjson; do
+  start=$(date +%s%3N)
+  lines=$(curl -sk -H "Authorization: Bearer ${TOKEN}" "$BASE/api/admin/export/bookings?format=${format}&gzip=true" \
+    | gunzip | wc -l)
+  elapsed=$(($(date +%s%3N) - start))
+  printf '%-7s %10s lignes %8s ms\n' "$format" "$lines" "$elapsed"
+done
+
+# Tas maximal atteint pendant l'export (doit rester sous la limite, sans OutOfMemoryError)
+jcmd "$pid" GC.heap_info | grep -i 'total\|used'
+kill "$pid"
+wait "$pid" 2>/dev/null
+mongosh --quiet "mongodb://localhost:27017/${DB}" --eval 'db.dropDatabase()' >/dev/null
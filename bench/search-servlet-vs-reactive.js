@@ -0,0 +1,44 @@
+// Comparaison servlet / réactif des lectures de recherche (k6 : https://k6.io).
+//
+// Lancer l'application avec le profil reactive (les deux versions sont alors exposées),
+// puis, pour chaque implémentation :
+//   k6 run -e BASE=http://localhost:8080 -e IMPL=servlet  -e TOKEN=<jwt client> bench/search-servlet-vs-reactive.js
+//   k6 run -e BASE=http://localhost:8080 -e IMPL=reactive -e TOKEN=<jwt client> bench/search-servlet-vs-reactive.js
+// Paramètres : VUS (utilisateurs simultanés, 500 par défaut), DURATION (2m), LAT, LNG, ARTISAN.
+// Comparer http_req_duration (p95, p99), http_reqs/s et les threads Tomcat occupés (actuator).
+import http from 'k6/http';
+import { check } from 'k6';
+
+const BASE = __ENV.BASE || 'http://localhost:8080';
+const PREFIX = __ENV.IMPL === 'reactive' ? '/api/reactive' : '/api';
+const LAT = __ENV.LAT || '36.8065';
+const LNG = __ENV.LNG || '10.1815';
+const ARTISAN = __ENV.ARTISAN || '';
+
+export const options = {
+    scenarios: {
+        search: {
+            executor: 'constant-vus',
+            vus: Number(__ENV.VUS || 500),
+            duration: __ENV.DURATION || '2m',
+        },
+    },
+    tags: { impl: __ENV.IMPL || 'servlet' },
+};
+
+const params = {
+    headers: {
+        Authorization: `Bearer ${__ENV.TOKEN || ''}`,
+        Accept: 'application/json',
+    },
+};
+
+export default function () {
+    const responses = http.batch([
+        ['GET', `${BASE}${PREFIX}/artisans/nearby?latitude=${LAT}&longitude=${LNG}&radius=10`, null, params],
+        ['GET', `${BASE}${PREFIX}/services/search/advanced?latitude=${LAT}&longitude=${LNG}&radiusKm=10`, null, params],
+        ['GET', `${BASE}${PREFIX}/reviews/artisan/${ARTISAN}`, null, params],
+        ['GET', `${BASE}${PREFIX}/reviews/stats/${ARTISAN}`, null, params],
+    ]);
+    responses.forEach((response) => check(response, { 'statut 2xx': (r) => r.status >= 200 && r.status < 300 }));
+}
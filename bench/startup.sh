@@ -0,0 +1,43 @@
+#!/usr/bin/env sh
+# Temps jusqu'à la première réponse HTTP : jar classique, jar AOT + AppCDS, exécutable natif.
+#
+# Préparation :
+#   mvn -DskipTests package                  -> target/ProxiServeUpdate-0.0.1-SNAPSHOT.jar
+#   mvn -DskipTests -Pcds package            -> target/cds/ (jar extrait + application.jsa)
+#   mvn -DskipTests -Pnative native:compile  -> target/proxiserve (GraalVM requis)
+# Usage : bench/startup.sh [port] [répétitions]   (MongoDB local démarré, variables PAYPAL_* / mail non requises)
+PORT=${1:-8443}
+RUNS=${2:-5}
+URL="https://localhost:${PORT}/actuator/health"
+JAR=ProxiServeUpdate-0.0.1-SNAPSHOT.jar
+
+now_ms() {
+  date +%s%3N
+}
+
+measure() {
+  label=$1
+  shift
+  total=0
+  i=0
+  while [ "$i" -lt "$RUNS" ]; do
+    start=$(now_ms)
+    "$@" >/dev/null 2>&1 &
+    pid=$!
+    # Toute réponse HTTP (même 401) signifie que le serveur accepte les requêtes
+    until curl -sk -o /dev/null "$URL"; do
+      sleep 0.02
+    done
+    elapsed=$(($(now_ms) - start))
+    kill "$pid"
+    wait "$pid" 2>/dev/null
+    total=$((total + elapsed))
+    i=$((i + 1))
+  done
+  printf '%-20s %8s ms (moyenne sur %s démarrages)\n' "$label" $((total / RUNS)) "$RUNS"
+}
+
+[ -f "target/$JAR" ] && measure "jar" java -jar "target/$JAR"
+[ -f target/cds/application.jsa ] && (cd target/cds && measure "jar AOT + AppCDS" \
+  java -XX:SharedArchiveFile=application.jsa -Dspring.aot.enabled=true -jar "$JAR")
+[ -x target/proxiserve ] && measure "natif GraalVM" target/proxiserve
@@ -0,0 +1,70 @@
+// Rejeu local de notifications webhook PayPal et débit de réception (k6 : https://k6.io).
+//
+// Lancer l'application avec la vérification de signature désactivée (jamais en production) :
+//   java -jar target/ProxiServeUpdate-0.0.1-SNAPSHOT.jar --paypal.webhook.verify-signature=false
+// Préparer les données, rejouer, puis contrôler le résultat une fois la file vidée :
+//   MODE=seed N=10000 mongosh "mongodb://localhost:27017/artisanconnect" bench/webhook-seed.js
+//   k6 run -e BASE=https://localhost:8443 -e N=10000 -e RATE=3000 --insecure-skip-tls-verify bench/webhook-replay.js
+//   MODE=check mongosh "mongodb://localhost:27017/artisanconnect" bench/webhook-seed.js
+//
+// Séquence par réservation i (N réservations, une passe = N notifications) :
+//   passe 0 : paiement confirmé, sauf i % 20 == 0 : remboursement reçu AVANT le paiement (désordre)
+//   passe 1 : remboursement pour i % 10 == 0 (paiement en retard pour i % 20 == 0), sinon doublon du paiement
+//   passes suivantes : doublons (même identifiant d'événement, acquittés sans nouvel enregistrement)
+// Attendu au contrôle : i % 10 == 0 -> REFUNDED, autres -> PAID, aucune notification PENDING.
+// RATE x DURATION doit couvrir au moins deux passes (2 x N notifications).
+// Comparer http_reqs/s et http_req_duration (p95, p99) ; dropped_iterations > 0 = débit cible non tenu.
+import http from 'k6/http';
+import exec from 'k6/execution';
+import { check } from 'k6';
+
+const BASE = __ENV.BASE || 'https://localhost:8443';
+const N = Number(__ENV.N || 10000);
+const PAID_AT = Date.parse('2026-01-01T10:00:00Z');
+const REFUNDED_AT = PAID_AT + 3600 * 1000;
+
+export const options = {
+    scenarios: {
+        replay: {
+            executor: 'constant-arrival-rate',
+            rate: Number(__ENV.RATE || 3000),
+            timeUnit: '1s',
+            duration: __ENV.DURATION || '30s',
+            preAllocatedVUs: Number(__ENV.VUS || 200),
+            maxVUs: Number(__ENV.MAX_VUS || 1000),
+        },
+    },
+    thresholds: {
+        http_req_failed: ['rate<0.001'],
+    },
+};
+
+const params = { headers: { 'Content-Type': 'application/json' } };
+
+function event(i, refund) {
+    return JSON.stringify({
+        id: `WH-BENCH-${i}-${refund ? 'refund' : 'paid'}`,
+        event_type: refund ? 'PAYMENT.SALE.REFUNDED' : 'PAYMENT.SALE.COMPLETED',
+        create_time: new Date((refund ? REFUNDED_AT : PAID_AT) + i).toISOString(),
+        resource: { id: `SALE-BENCH-${i}`, parent_payment: `PAY-BENCH-${i}`, state: refund ? 'refunded' : 'completed' },
+    });
+}
+
+export default function () {
+    const k = exec.scenario.iterationInTest;
+    const i = k % N;
+    const pass = Math.floor(k / N);
+    const refunded = i % 10 === 0;
+    const outOfOrder = i % 20 === 0;
+
+    let refund;
+    if (pass === 0) {
+        refund = outOfOrder;
+    } else if (pass === 1) {
+        refund = refunded && !outOfOrder;
+    } else {
+        refund = refunded && pass % 2 === 0;
+    }
+    const response = http.post(`${BASE}/api/payments/webhook`, event(i, refund), params);
+    check(response, { 'acquittée (200)': (r) => r.status === 200 });
+}
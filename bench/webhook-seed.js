@@ -0,0 +1,44 @@
+// Jeu de données et contrôle du rejeu des webhooks PayPal (bench/webhook-replay.js).
+//
+// Avant le rejeu : réservations UNPAID et suivis de paiement PAY-BENCH-<i> -> booking-bench-<i>
+//   MODE=seed  N=10000 mongosh "mongodb://localhost:27017/artisanconnect" bench/webhook-seed.js
+// Après le rejeu (attendre que la file soit vide) : notifications restées PENDING, réservations par statut
+//   MODE=check mongosh "mongodb://localhost:27017/artisanconnect" bench/webhook-seed.js
+// Nettoyage : MODE=clean (supprime les seuls documents du banc)
+const MODE = process.env.MODE || 'check';
+const N = Number(process.env.N || 10000);
+const BOOKING = /^booking-bench-/;
+const PAYMENT = /^PAY-BENCH-/;
+
+if (MODE === 'seed') {
+  const bookings = [];
+  const payments = [];
+  for (let i = 0; i < N; i++) {
+    bookings.push({ _id: `booking-bench-${i}`, clientId: 'client-bench', artisanId: 'artisan-bench',
+                    serviceId: 'service-bench', status: 'CONFIRMED', paymentStatus: 'UNPAID',
+                    paymentCompleted: false, bookingDate: new Date(), createdAt: new Date() });
+    payments.push({ paymentId: `PAY-BENCH-${i}`, bookingId: `booking-bench-${i}`, clientId: 'client-bench',
+                    amount: '50.00', currency: 'EUR', status: 'EXECUTED', attempts: 1, createdAt: new Date() });
+  }
+  db.bookings.insertMany(bookings, { ordered: false });
+  db.payments.insertMany(payments, { ordered: false });
+  print(`${N} réservations et suivis de paiement créés`);
+} else if (MODE === 'check') {
+  const events = db.payment_events.aggregate([
+    { $match: { _id: /^WH-BENCH-/ } },
+    { $group: { _id: '$status', count: { $sum: 1 } } }]).toArray();
+  const bookings = db.bookings.aggregate([
+    { $match: { _id: BOOKING } },
+    { $group: { _id: '$paymentStatus', count: { $sum: 1 } } }]).toArray();
+  print('Notifications par statut : ' + JSON.stringify(events));
+  print('Réservations par statut de paiement : ' + JSON.stringify(bookings));
+  // L'événement le plus récent l'emporte, quel que soit l'ordre d'arrivée : i % 10 == 0 remboursées, autres payées
+  print('Écarts (attendu 0) : '
+      + db.bookings.countDocuments({ _id: /^booking-bench-\d*0$/, paymentStatus: { $ne: 'REFUNDED' } }) + ' remboursements manquants, '
+      + db.bookings.countDocuments({ _id: /^booking-bench-\d*[1-9]$/, paymentStatus: { $ne: 'PAID' } }) + ' paiements manquants');
+} else if (MODE === 'clean') {
+  db.bookings.deleteMany({ _id: BOOKING });
+  db.payments.deleteMany({ paymentId: PAYMENT });
+  db.payment_events.deleteMany({ _id: /^WH-BENCH-/ });
+  print('Données du banc supprimées');
+}
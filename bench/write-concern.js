@@ -0,0 +1,33 @@
+// Débit et latence des écritures selon la classe d'écriture (mongodb.client.writes / @WritePolicy).
+//
+// Nécessite un replica set (les acquittements majoritaires n'ont pas de sens sur un nœud seul), ex :
+//   docker run -d --name rs -p 27017:27017 mongo:7 --replSet rs0 && mongosh --eval 'rs.initiate()'
+// Usage : mongosh "mongodb://localhost:27017/bench?replicaSet=rs0" bench/write-concern.js
+// Variables : N (écritures par classe, défaut 5000)
+const N = Number(process.env.N || 5000);
+const classes = {
+  FAST: { w: 1, j: false },
+  STANDARD: { w: 1 },
+  CRITICAL: { w: 'majority', j: true, wtimeout: 5000 }
+};
+
+const coll = db.getSiblingDB('bench').write_concern;
+coll.drop();
+
+for (const [name, writeConcern] of Object.entries(classes)) {
+  // Même forme que les écritures réelles : mise à jour d'un document existant (statut, compteur)
+  coll.insertMany(Array.from({ length: 100 }, (_, i) => ({ _id: `${name}-${i}`, status: 'PENDING', n: 0 })));
+  const latencies = [];
+  const start = Date.now();
+  for (let i = 0; i < N; i++) {
+    const t = Date.now();
+    coll.updateOne({ _id: `${name}-${i % 100}` }, { $inc: { n: 1 }, $set: { status: 'CONFIRMED' } }, { writeConcern });
+    latencies.push(Date.now() - t);
+  }
+  const elapsed = (Date.now() - start) / 1000;
+  latencies.sort((a, b) => a - b);
+  print(`${name.padEnd(9)} ${JSON.stringify(writeConcern).padEnd(45)} ${(N / elapsed).toFixed(0).padStart(7)} écritures/s`
+      + `   p50 ${latencies[Math.floor(N * 0.5)]} ms   p99 ${latencies[Math.floor(N * 0.99)]} ms`);
+}
+
+coll.drop();
@@ -0,0 +1,73 @@
+package tn.fst.proxiserve.cache;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import tn.fst.proxiserve.model.Artisan;
+import tn.fst.proxiserve.repository.ArtisanRepository;
+
+/**
+ * Accès aux artisans par identifiant à travers un cache local.
+ * Les écritures passent par ce composant (écriture traversante) ; les modifications faites
+ * ailleurs arrivent par le {@link CacheInvalidationBus}.
+ */
+@Component
+public class ArtisanCache {
+
+    private static final String COLLECTION = "artisans";
+
+    private final ArtisanRepository artisanRepository;
+    private final ReadThroughCache<Artisan> cache;
+
+    public ArtisanCache(ArtisanRepository artisanRepository,
+                        CacheInvalidationBus invalidationBus,
+                        MeterRegistry meterRegistry,
+                        @Value("${cache.artisans.max-entries:10000}") long maxEntries,
+                        @Value("${cache.artisans.ttl:10m}") Duration ttl,
+                        @Value("${cache.fallback-ttl:30s}") Duration fallbackTtl) {
+        this.artisanRepository = artisanRepository;
+        this.cache = new ReadThroughCache<>("artisans", maxEntries, ttl, fallbackTtl,
+                invalidationBus::isChangeStreamActive,
+                artisanRepository::findById,
+                ids -> artisanRepository.findAllById(ids).stream()
+                        .collect(Collectors.toMap(Artisan::getId, Function.identity())),
+                meterRegistry);
+    }
+
+    public Optional<Artisan> findById(String id) {
+        return cache.get(id);
+    }
+
+    /**
+     * @param ids Identifiants d'artisans.
+     * @return Artisans trouvés, indexés par identifiant (une seule requête pour les absents du cache).
+     */
+    public Map<String, Artisan> findAllById(Collection<String> ids) {
+        return cache.getAll(ids);
+    }
+
+    public Artisan save(Artisan artisan) {
+        Artisan saved = artisanRepository.save(artisan);
+        cache.put(saved.getId(), saved);
+        return saved;
+    }
+
+    public void deleteById(String id) {
+        artisanRepository.deleteById(id);
+        cache.invalidate(id);
+    }
+
+    @EventListener(condition = "#root.event.concerns('" + COLLECTION + "')")
+    public void onInvalidation(CacheInvalidationEvent event) {
+        cache.onInvalidation(event);
+    }
+}
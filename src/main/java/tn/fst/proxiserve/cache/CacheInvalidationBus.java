@@ -0,0 +1,275 @@
+package tn.fst.proxiserve.cache;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.bson.BsonDocument;
+import org.bson.BsonValue;
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.mongodb.MongoCommandException;
+import com.mongodb.MongoException;
+import com.mongodb.client.ChangeStreamIterable;
+import com.mongodb.client.MongoChangeStreamCursor;
+import com.mongodb.client.model.Aggregates;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.ReplaceOptions;
+import com.mongodb.client.model.changestream.ChangeStreamDocument;
+import com.mongodb.client.model.changestream.OperationType;
+
+import jakarta.annotation.PreDestroy;
+import tn.fst.proxiserve.config.WriteConcernPolicy;
+
+/**
+ * Bus d'invalidation des caches locaux alimenté par les change streams MongoDB.
+ *
+ * Un thread dédié suit les modifications des collections users, artisans, services, reviews et resource_versions
+ * (quel que soit le nœud ou le script qui écrit) et publie un {@link CacheInvalidationEvent}
+ * que les caches écoutent via {@code @EventListener}. Le jeton de reprise est persisté
+ * périodiquement (collection cache_resume_tokens) : après un redémarrage, le flux reprend là où il
+ * s'était arrêté. Sans replica set (change streams indisponibles), les caches se replient
+ * sur une durée de vie courte ({@link #isChangeStreamActive()}) et le bus retente régulièrement.
+ */
+@Component
+public class CacheInvalidationBus {
+
+    private static final Logger logger = LoggerFactory.getLogger(CacheInvalidationBus.class);
+    private static final String TOKENS_COLLECTION = "cache_resume_tokens";
+    private static final int CHANGE_STREAM_NOT_SUPPORTED = 40573;
+    private static final int CHANGE_STREAM_HISTORY_LOST = 286;
+
+    private final MongoTemplate mongoTemplate;
+    private final WriteConcernPolicy writeConcernPolicy;
+    private final ApplicationEventPublisher eventPublisher;
+    private final boolean enabled;
+    private final List<String> collections;
+    private final long retryIntervalMs;
+    private final String nodeId;
+
+    private volatile boolean running = true;
+    private volatile boolean changeStreamActive;
+    private volatile boolean fallbackReported;
+    private volatile BsonDocument lastToken;
+    private volatile BsonDocument persistedToken;
+    private volatile MongoChangeStreamCursor<ChangeStreamDocument<Document>> cursor;
+    private Thread watcher;
+
+    public CacheInvalidationBus(MongoTemplate mongoTemplate,
+                                WriteConcernPolicy writeConcernPolicy,
+                                ApplicationEventPublisher eventPublisher,
+                                @Value("${cache.invalidation.enabled:true}") boolean enabled,
+                                @Value("${cache.invalidation.collections:users,artisans,services,reviews,resource_versions}") List<String> collections,
+                                @Value("${cache.invalidation.retry-interval-ms:30000}") long retryIntervalMs,
+                                @Value("${cache.invalidation.node-id:}") String nodeId) {
+        this.mongoTemplate = mongoTemplate;
+        this.writeConcernPolicy = writeConcernPolicy;
+        this.eventPublisher = eventPublisher;
+        this.enabled = enabled;
+        this.collections = List.copyOf(collections);
+        this.retryIntervalMs = retryIntervalMs;
+        this.nodeId = nodeId.isBlank() ? defaultNodeId() : nodeId;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!enabled) {
+            logger.info(" Bus d'invalidation désactivé : les caches utilisent uniquement leur durée de vie");
+            return;
+        }
+        lastToken = loadToken();
+        persistedToken = lastToken;
+        watcher = new Thread(this::watchLoop, "cache-invalidation-watcher");
+        watcher.setDaemon(true);
+        watcher.start();
+    }
+
+    /**
+     * @return true si les invalidations arrivent en temps réel ; false = les caches doivent
+     * se limiter à la durée de vie de repli.
+     */
+    public boolean isChangeStreamActive() {
+        return changeStreamActive;
+    }
+
+    /**
+     * Persiste le dernier jeton de reprise s'il a changé (pas d'écriture par événement).
+     */
+    @Scheduled(fixedDelayString = "${cache.invalidation.token-flush-ms:1000}")
+    public void flushResumeToken() {
+        BsonDocument token = lastToken;
+        if (token == null || token.equals(persistedToken)) {
+            return;
+        }
+        try {
+            // Écriture brute sur le driver : le write concern de la collection est appliqué explicitement
+            mongoTemplate.getCollection(TOKENS_COLLECTION)
+                    .withWriteConcern(writeConcernPolicy.concernOf(writeConcernPolicy.classOf(null, TOKENS_COLLECTION)))
+                    .replaceOne(
+                            Filters.eq("_id", nodeId),
+                            new Document("_id", nodeId).append("token", token.toJson()).append("updatedAt", new Date()),
+                            new ReplaceOptions().upsert(true));
+            persistedToken = token;
+        } catch (MongoException e) {
+            logger.warn(" Échec de la sauvegarde du jeton de reprise : {}", e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        running = false;
+        MongoChangeStreamCursor<ChangeStreamDocument<Document>> current = cursor;
+        if (current != null) {
+            try {
+                current.close();
+            } catch (RuntimeException e) {
+                // Fermeture concurrente avec le thread de suivi
+            }
+        }
+        flushResumeToken();
+    }
+
+    private void watchLoop() {
+        while (running) {
+            try {
+                watch();
+            } catch (MongoCommandException e) {
+                if (e.getErrorCode() == CHANGE_STREAM_HISTORY_LOST) {
+                    // Le jeton est sorti de l'oplog : impossible de savoir ce qui a changé
+                    logger.warn(" Historique des change streams perdu : invalidation complète des caches");
+                    lastToken = null;
+                    invalidateAll();
+                    continue;
+                }
+                fallBack(e.getErrorCode() == CHANGE_STREAM_NOT_SUPPORTED
+                        ? "change streams non supportés (replica set requis)"
+                        : e.getMessage());
+            } catch (MongoException e) {
+                fallBack(e.getMessage());
+            } catch (RuntimeException e) {
+                if (!running) {
+                    return;
+                }
+                fallBack(e.getMessage());
+            }
+            sleepBeforeRetry();
+        }
+    }
+
+    private void watch() {
+        ChangeStreamIterable<Document> stream = mongoTemplate.getDb()
+                .watch(List.of(Aggregates.match(Filters.in("ns.coll", collections))))
+                .maxAwaitTime(1, TimeUnit.SECONDS);
+        BsonDocument resumeFrom = lastToken;
+        if (resumeFrom != null) {
+            stream = stream.resumeAfter(resumeFrom);
+        }
+
+        try (MongoChangeStreamCursor<ChangeStreamDocument<Document>> opened = stream.cursor()) {
+            cursor = opened;
+            if (!changeStreamActive) {
+                changeStreamActive = true;
+                fallbackReported = false;
+                logger.info(" Bus d'invalidation actif sur {} ({})", collections,
+                        resumeFrom != null ? "reprise depuis le dernier jeton" : "nouveau flux");
+                if (resumeFrom == null) {
+                    // Des écritures ont pu échapper aux caches pendant la période sans flux
+                    invalidateAll();
+                }
+            }
+            while (running) {
+                ChangeStreamDocument<Document> change = opened.tryNext();
+                if (change != null && change.getOperationType() == OperationType.INVALIDATE) {
+                    // Flux clos par le serveur (base supprimée) : nouveau flux sans reprise
+                    lastToken = null;
+                    invalidateAll();
+                    return;
+                }
+                if (change != null) {
+                    publish(change);
+                }
+                BsonDocument token = opened.getResumeToken();
+                if (token != null) {
+                    lastToken = token;
+                }
+            }
+        } finally {
+            cursor = null;
+        }
+    }
+
+    private void publish(ChangeStreamDocument<Document> change) {
+        String collection = change.getNamespace() != null ? change.getNamespace().getCollectionName() : null;
+        switch (change.getOperationType()) {
+            case INSERT, UPDATE, REPLACE -> eventPublisher.publishEvent(
+                    new CacheInvalidationEvent(collection, documentId(change), CacheInvalidationEvent.Kind.UPSERT));
+            case DELETE -> eventPublisher.publishEvent(
+                    new CacheInvalidationEvent(collection, documentId(change), CacheInvalidationEvent.Kind.DELETE));
+            case DROP, RENAME -> eventPublisher.publishEvent(CacheInvalidationEvent.all(collection));
+            default -> invalidateAll();
+        }
+    }
+
+    private void fallBack(String reason) {
+        if (!fallbackReported) {
+            logger.warn(" Bus d'invalidation indisponible ({}) : repli sur la durée de vie des caches, nouvel essai toutes les {} ms",
+                    reason, retryIntervalMs);
+            fallbackReported = true;
+        }
+        changeStreamActive = false;
+    }
+
+    private void invalidateAll() {
+        collections.forEach(collection -> eventPublisher.publishEvent(CacheInvalidationEvent.all(collection)));
+    }
+
+    private void sleepBeforeRetry() {
+        try {
+            Thread.sleep(retryIntervalMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            running = false;
+        }
+    }
+
+    private BsonDocument loadToken() {
+        try {
+            Document stored = mongoTemplate.getCollection(TOKENS_COLLECTION).find(Filters.eq("_id", nodeId)).first();
+            return stored != null && stored.getString("token") != null ? BsonDocument.parse(stored.getString("token")) : null;
+        } catch (MongoException e) {
+            logger.warn(" Jeton de reprise illisible, démarrage d'un nouveau flux : {}", e.getMessage());
+            return null;
+        }
+    }
+
+    private static String documentId(ChangeStreamDocument<Document> change) {
+        BsonDocument key = change.getDocumentKey();
+        BsonValue id = key != null ? key.get("_id") : null;
+        if (id == null) {
+            return null;
+        }
+        if (id.isObjectId()) {
+            return id.asObjectId().getValue().toHexString();
+        }
+        return id.isString() ? id.asString().getValue() : id.toString();
+    }
+
+    private static String defaultNodeId() {
+        try {
+            return "cache-invalidation:" + InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            return "cache-invalidation:local";
+        }
+    }
+}
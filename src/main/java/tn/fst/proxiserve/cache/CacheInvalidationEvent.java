@@ -0,0 +1,32 @@
+package tn.fst.proxiserve.cache;
+
+/**
+ * Invalidation d'une entrée (ou de toute une collection) des caches locaux.
+ *
+ * @param collection Collection MongoDB concernée (users, artisans, services, reviews).
+ * @param documentId Identifiant du document modifié, null pour {@link Kind#ALL}.
+ * @param kind Nature de l'invalidation.
+ */
+public record CacheInvalidationEvent(String collection, String documentId, Kind kind) {
+
+    public enum Kind {
+        /** Document inséré, modifié ou remplacé */
+        UPSERT,
+        /** Document supprimé */
+        DELETE,
+        /** Toute la collection doit être oubliée (historique perdu, drop, reprise impossible) */
+        ALL
+    }
+
+    public static CacheInvalidationEvent all(String collection) {
+        return new CacheInvalidationEvent(collection, null, Kind.ALL);
+    }
+
+    /**
+     * @param name Nom de collection.
+     * @return true si l'événement concerne cette collection.
+     */
+    public boolean concerns(String name) {
+        return collection.equals(name);
+    }
+}
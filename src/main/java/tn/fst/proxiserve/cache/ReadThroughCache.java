@@ -0,0 +1,124 @@
+package tn.fst.proxiserve.cache;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+/**
+ * Cache local typé en lecture traversante, borné en nombre d'entrées.
+ *
+ * La durée de vie d'une entrée dépend du bus d'invalidation au moment du chargement :
+ * longue quand les change streams propagent les modifications, courte (repli) sinon.
+ * Les statistiques (hits, misses, évictions) sont exposées dans Micrometer sous le nom du cache.
+ *
+ * @param <T> Type des documents mis en cache.
+ */
+public class ReadThroughCache<T> {
+
+    private final Cache<String, T> cache;
+    private final Function<String, Optional<T>> loader;
+    private final Function<Collection<String>, Map<String, T>> batchLoader;
+
+    /**
+     * @param name Nom du cache (métriques).
+     * @param maxEntries Nombre maximal d'entrées.
+     * @param ttl Durée de vie quand les invalidations sont actives.
+     * @param fallbackTtl Durée de vie quand elles ne le sont pas.
+     * @param invalidationActive Indique si le bus d'invalidation est actif.
+     * @param loader Lecture d'un document par identifiant.
+     * @param batchLoader Lecture d'un lot de documents (identifiants absents ignorés).
+     * @param meterRegistry Registre des métriques.
+     */
+    public ReadThroughCache(String name, long maxEntries, Duration ttl, Duration fallbackTtl,
+                            Supplier<Boolean> invalidationActive,
+                            Function<String, Optional<T>> loader,
+                            Function<Collection<String>, Map<String, T>> batchLoader,
+                            MeterRegistry meterRegistry) {
+        this.loader = loader;
+        this.batchLoader = batchLoader;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxEntries)
+                .expireAfter(new Expiry<String, T>() {
+                    @Override
+                    public long expireAfterCreate(String key, T value, long currentTime) {
+                        return (invalidationActive.get() ? ttl : fallbackTtl).toNanos();
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String key, T value, long currentTime, long currentDuration) {
+                        return expireAfterCreate(key, value, currentTime);
+                    }
+
+                    @Override
+                    public long expireAfterRead(String key, T value, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, name);
+    }
+
+    /**
+     * @param id Identifiant du document.
+     * @return Document en cache ou lu en base (les absences ne sont pas mises en cache).
+     */
+    public Optional<T> get(String id) {
+        if (id == null) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable(cache.get(id, key -> loader.apply(key).orElse(null)));
+    }
+
+    /**
+     * Lecture groupée : seuls les identifiants absents du cache sont lus, en une requête.
+     * @param ids Identifiants recherchés.
+     * @return Documents trouvés, indexés par identifiant.
+     */
+    public Map<String, T> getAll(Collection<String> ids) {
+        return cache.getAll(ids.stream().filter(Objects::nonNull).distinct().toList(),
+                missing -> batchLoader.apply(List.copyOf(missing)));
+    }
+
+    /**
+     * Écriture traversante : le document enregistré remplace l'entrée en cache.
+     */
+    public void put(String id, T value) {
+        if (id != null && value != null) {
+            cache.put(id, value);
+        }
+    }
+
+    public void invalidate(String id) {
+        if (id != null) {
+            cache.invalidate(id);
+        }
+    }
+
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    /**
+     * Applique un événement du bus d'invalidation concernant la collection de ce cache.
+     */
+    public void onInvalidation(CacheInvalidationEvent event) {
+        if (event.kind() == CacheInvalidationEvent.Kind.ALL) {
+            invalidateAll();
+        } else {
+            invalidate(event.documentId());
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package tn.fst.proxiserve.cache;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import tn.fst.proxiserve.model.ServiceEntity;
+import tn.fst.proxiserve.repository.ServiceRepository;
+
+/**
+ * Accès aux services par identifiant à travers un cache local.
+ * Les écritures passent par ce composant (écriture traversante) ; les modifications faites
+ * ailleurs arrivent par le {@link CacheInvalidationBus}.
+ */
+@Component
+public class ServiceCache {
+
+    private static final String COLLECTION = "services";
+
+    private final ServiceRepository serviceRepository;
+    private final ReadThroughCache<ServiceEntity> cache;
+
+    public ServiceCache(ServiceRepository serviceRepository,
+                        CacheInvalidationBus invalidationBus,
+                        MeterRegistry meterRegistry,
+                        @Value("${cache.services.max-entries:10000}") long maxEntries,
+                        @Value("${cache.services.ttl:10m}") Duration ttl,
+                        @Value("${cache.fallback-ttl:30s}") Duration fallbackTtl) {
+        this.serviceRepository = serviceRepository;
+        this.cache = new ReadThroughCache<>("services", maxEntries, ttl, fallbackTtl,
+                invalidationBus::isChangeStreamActive,
+                serviceRepository::findById,
+                ids -> serviceRepository.findAllById(ids).stream()
+                        .collect(Collectors.toMap(ServiceEntity::getId, Function.identity())),
+                meterRegistry);
+    }
+
+    public Optional<ServiceEntity> findById(String id) {
+        return cache.get(id);
+    }
+
+    /**
+     * @param ids Identifiants de services.
+     * @return Services trouvés, indexés par identifiant (une seule requête pour les absents du cache).
+     */
+    public Map<String, ServiceEntity> findAllById(Collection<String> ids) {
+        return cache.getAll(ids);
+    }
+
+    /**
+     * Enregistre le service puis, une fois l'écriture réussie, en met une copie en cache
+     * (l'appelant reste seul propriétaire de l'instance enregistrée).
+     */
+    public ServiceEntity save(ServiceEntity service) {
+        ServiceEntity saved = serviceRepository.save(service);
+        cache.put(saved.getId(), copyOf(saved));
+        return saved;
+    }
+
+    /**
+     * Copie d'un service, à modifier à la place d'une instance lue dans le cache (partagée entre requêtes).
+     */
+    public static ServiceEntity copyOf(ServiceEntity service) {
+        return new ServiceEntity(service.getId(), service.getTitle(), service.getDescription(),
+                service.getPrice(), service.getArtisanId());
+    }
+
+    public void deleteById(String id) {
+        serviceRepository.deleteById(id);
+        cache.invalidate(id);
+    }
+
+    /**
+     * Retire du cache des services modifiés directement en base (écritures groupées).
+     */
+    public void evictAll(Collection<String> ids) {
+        ids.forEach(cache::invalidate);
+    }
+
+    @EventListener(condition = "#root.event.concerns('" + COLLECTION + "')")
+    public void onInvalidation(CacheInvalidationEvent event) {
+        cache.onInvalidation(event);
+    }
+}
@@ -0,0 +1,54 @@
+package tn.fst.proxiserve.config;
+
+import java.time.Duration;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.stereotype.Component;
+
+/**
+ * Politiques Cache-Control des lectures du catalogue.
+ * Routes authentifiées : private (pas de stockage par un cache partagé) ;
+ * avis (publics) : public. Au-delà de max-age, le client revalide avec If-None-Match.
+ */
+@Component
+public class HttpCachePolicies {
+
+    private final Duration servicesList;
+    private final Duration serviceDetail;
+    private final Duration artisanServices;
+    private final Duration reviews;
+    private final Duration reviewStats;
+
+    public HttpCachePolicies(@Value("${http.cache.services-list.max-age:30s}") Duration servicesList,
+                             @Value("${http.cache.service-detail.max-age:60s}") Duration serviceDetail,
+                             @Value("${http.cache.artisan-services.max-age:60s}") Duration artisanServices,
+                             @Value("${http.cache.reviews.max-age:30s}") Duration reviews,
+                             @Value("${http.cache.review-stats.max-age:60s}") Duration reviewStats) {
+        this.servicesList = servicesList;
+        this.serviceDetail = serviceDetail;
+        this.artisanServices = artisanServices;
+        this.reviews = reviews;
+        this.reviewStats = reviewStats;
+    }
+
+    public CacheControl servicesList() {
+        return CacheControl.maxAge(servicesList).cachePrivate().mustRevalidate();
+    }
+
+    public CacheControl serviceDetail() {
+        return CacheControl.maxAge(serviceDetail).cachePrivate().mustRevalidate();
+    }
+
+    public CacheControl artisanServices() {
+        return CacheControl.maxAge(artisanServices).cachePrivate().mustRevalidate();
+    }
+
+    public CacheControl reviews() {
+        return CacheControl.maxAge(reviews).cachePublic().mustRevalidate();
+    }
+
+    public CacheControl reviewStats() {
+        return CacheControl.maxAge(reviewStats).cachePublic().mustRevalidate();
+    }
+}
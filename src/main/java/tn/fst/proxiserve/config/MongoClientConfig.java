@@ -0,0 +1,158 @@
+package tn.fst.proxiserve.config;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.mongo.MongoClientSettingsBuilderCustomizer;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.ComponentScan;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.FilterType;
+import org.springframework.context.annotation.Primary;
+import org.springframework.data.mongodb.MongoDatabaseFactory;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.convert.MongoConverter;
+import org.springframework.data.mongodb.repository.config.EnableMongoRepositories;
+
+import com.mongodb.MongoCompressor;
+import com.mongodb.ReadPreference;
+import com.mongodb.event.ConnectionCheckOutFailedEvent;
+import com.mongodb.event.ConnectionCheckedOutEvent;
+import com.mongodb.event.ConnectionPoolListener;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import tn.fst.proxiserve.repository.UserRepository;
+import tn.fst.proxiserve.repository.read.ArtisanReadRepository;
+
+/**
+ * Client MongoDB : pool, délais, compression réseau et préférence de lecture.
+ *
+ * Deux templates partagent le même client : {@code mongoTemplate} (primaire, écritures et lectures
+ * qui suivent une écriture) et {@code readMongoTemplate} pour les lectures de recherche, d'avis et
+ * de listes, routées vers les secondaires avec un retard borné. Les repositories du paquet
+ * {@code repository.read} utilisent ce second template.
+ *
+ * Les métriques du pool (mongodb.driver.pool.size / checkedout / waitqueuesize) sont publiées par
+ * Spring Boot ; s'y ajoute le temps d'attente d'une connexion (proxiserve.mongo.pool.checkout).
+ *
+ * Les écritures du template principal suivent {@link WriteConcernPolicy} (write concern par
+ * classe d'opération) ; les écritures interrompues par une élection sont rejouées (retryWrites).
+ */
+@Configuration
+@EnableConfigurationProperties(MongoClientProperties.class)
+public class MongoClientConfig {
+
+    @Bean
+    public MongoClientSettingsBuilderCustomizer mongoClientTuning(MongoClientProperties properties,
+                                                                  MeterRegistry meterRegistry) {
+        MongoClientProperties.Pool pool = properties.getPool();
+        ConnectionPoolListener checkoutMetrics = new CheckoutMetricsListener(meterRegistry);
+        return builder -> builder
+                .applyToConnectionPoolSettings(settings -> settings
+                        .maxSize(pool.getMaxSize())
+                        .minSize(pool.getMinSize())
+                        .maxConnecting(pool.getMaxConnecting())
+                        .maxWaitTime(pool.getMaxWaitTimeMs(), TimeUnit.MILLISECONDS)
+                        .maxConnectionIdleTime(pool.getMaxConnectionIdleTimeMs(), TimeUnit.MILLISECONDS)
+                        .maxConnectionLifeTime(pool.getMaxConnectionLifeTimeMs(), TimeUnit.MILLISECONDS)
+                        .addConnectionPoolListener(checkoutMetrics))
+                .applyToSocketSettings(settings -> settings
+                        .connectTimeout(properties.getConnectTimeoutMs(), TimeUnit.MILLISECONDS)
+                        .readTimeout(properties.getSocketTimeoutMs(), TimeUnit.MILLISECONDS))
+                .applyToClusterSettings(settings -> settings
+                        .serverSelectionTimeout(properties.getServerSelectionTimeoutMs(), TimeUnit.MILLISECONDS))
+                .compressorList(compressors(properties.getCompressors()))
+                .retryWrites(properties.isRetryWrites());
+    }
+
+    @Bean
+    public WriteConcernPolicy writeConcernPolicy(MongoClientProperties properties,
+                                                 MongoDatabaseFactory mongoDatabaseFactory,
+                                                 MongoConverter mongoConverter) {
+        return new WriteConcernPolicy(properties.getWrites(), mongoDatabaseFactory, mongoConverter);
+    }
+
+    @Bean
+    @Primary
+    public MongoTemplate mongoTemplate(MongoDatabaseFactory mongoDatabaseFactory, MongoConverter mongoConverter,
+                                       WriteConcernPolicy writeConcernPolicy) {
+        MongoTemplate template = new MongoTemplate(mongoDatabaseFactory, mongoConverter);
+        template.setWriteConcernResolver(writeConcernPolicy);
+        return template;
+    }
+
+    @Bean
+    public MongoTemplate readMongoTemplate(MongoDatabaseFactory mongoDatabaseFactory, MongoConverter mongoConverter,
+                                           MongoClientProperties properties) {
+        MongoTemplate template = new MongoTemplate(mongoDatabaseFactory, mongoConverter);
+        template.setReadPreference(readPreference(properties.getReads()));
+        return template;
+    }
+
+    /**
+     * Repositories principaux ; leur déclaration explicite remplace celle de l'auto-configuration,
+     * qui s'efface dès qu'un {@code @EnableMongoRepositories} est présent.
+     */
+    @Configuration
+    @EnableMongoRepositories(basePackageClasses = UserRepository.class,
+            excludeFilters = @ComponentScan.Filter(type = FilterType.REGEX,
+                    pattern = "tn\\.fst\\.proxiserve\\.repository\\.(read|reactive)\\..*"))
+    static class PrimaryRepositories {
+    }
+
+    @Configuration
+    @EnableMongoRepositories(basePackageClasses = ArtisanReadRepository.class, mongoTemplateRef = "readMongoTemplate")
+    static class ReadRepositories {
+    }
+
+    static ReadPreference readPreference(MongoClientProperties.Reads reads) {
+        ReadPreference preference = ReadPreference.valueOf(reads.getPreference());
+        if (reads.getMaxStalenessSeconds() > 0 && !preference.equals(ReadPreference.primary())) {
+            // Un secondaire trop en retard est écarté au profit d'un autre membre (ou du primaire)
+            preference = preference.withMaxStalenessMS(reads.getMaxStalenessSeconds() * 1000, TimeUnit.MILLISECONDS);
+        }
+        return preference;
+    }
+
+    private static List<MongoCompressor> compressors(List<String> names) {
+        return names.stream()
+                .map(name -> switch (name.trim().toLowerCase()) {
+                    case "zstd" -> MongoCompressor.createZstdCompressor();
+                    case "snappy" -> MongoCompressor.createSnappyCompressor();
+                    case "zlib" -> MongoCompressor.createZlibCompressor();
+                    default -> throw new IllegalArgumentException("Compresseur MongoDB inconnu : " + name);
+                })
+                .toList();
+    }
+
+    /**
+     * Temps d'attente d'une connexion du pool et attentes abandonnées (pool saturé).
+     */
+    private static final class CheckoutMetricsListener implements ConnectionPoolListener {
+
+        private final Timer checkoutTimer;
+        private final MeterRegistry meterRegistry;
+
+        CheckoutMetricsListener(MeterRegistry meterRegistry) {
+            this.meterRegistry = meterRegistry;
+            this.checkoutTimer = Timer.builder("proxiserve.mongo.pool.checkout")
+                    .description("Attente d'une connexion MongoDB disponible")
+                    .publishPercentiles(0.5, 0.99)
+                    .register(meterRegistry);
+        }
+
+        @Override
+        public void connectionCheckedOut(ConnectionCheckedOutEvent event) {
+            checkoutTimer.record(event.getElapsedTime(TimeUnit.NANOSECONDS), TimeUnit.NANOSECONDS);
+        }
+
+        @Override
+        public void connectionCheckOutFailed(ConnectionCheckOutFailedEvent event) {
+            meterRegistry.counter("proxiserve.mongo.pool.checkout.failed", "reason", event.getReason().name())
+                    .increment();
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package tn.fst.proxiserve.config;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import lombok.Data;
+import tn.fst.proxiserve.model.WriteClass;
+
+/**
+ * Réglages du client MongoDB (préfixe {@code mongodb.client}) appliqués par {@link MongoClientConfig}.
+ * L'URI reste portée par {@code spring.data.mongodb.uri} ; les valeurs ci-dessous la complètent.
+ */
+@Data
+@ConfigurationProperties(prefix = "mongodb.client")
+public class MongoClientProperties {
+
+    private Pool pool = new Pool();
+
+    /** Délai d'établissement d'une connexion TCP */
+    private int connectTimeoutMs = 5000;
+
+    /** Délai maximal d'attente d'une réponse sur une connexion ouverte (0 = illimité) */
+    private int socketTimeoutMs = 30000;
+
+    /** Délai de sélection d'un serveur (primaire indisponible, élection en cours) */
+    private long serverSelectionTimeoutMs = 5000;
+
+    /** Compression réseau par ordre de préférence (zstd, snappy, zlib), négociée avec le serveur */
+    private List<String> compressors = new ArrayList<>(List.of("zstd", "snappy", "zlib"));
+
+    /** Rejoue une fois une écriture interrompue par une élection ou une coupure réseau */
+    private boolean retryWrites = true;
+
+    private Reads reads = new Reads();
+
+    private Writes writes = new Writes();
+
+    @Data
+    public static class Pool {
+        /** Connexions maximales par serveur */
+        private int maxSize = 100;
+        /** Connexions maintenues ouvertes par serveur */
+        private int minSize = 10;
+        /** Connexions en cours d'établissement simultanément */
+        private int maxConnecting = 2;
+        /** Attente maximale d'une connexion libre avant erreur (file d'attente du pool) */
+        private long maxWaitTimeMs = 2000;
+        /** Fermeture des connexions inactives */
+        private long maxConnectionIdleTimeMs = 60000;
+        /** Durée de vie maximale d'une connexion (0 = illimitée) */
+        private long maxConnectionLifeTimeMs = 0;
+    }
+
+    @Data
+    public static class Reads {
+        /** Préférence de lecture des repositories en lecture seule (recherche, avis, listes) */
+        private String preference = "secondaryPreferred";
+        /** Retard maximal toléré d'un secondaire (90 s minimum côté driver, 0 = non borné) */
+        private long maxStalenessSeconds = 90;
+    }
+
+    @Data
+    public static class Writes {
+        /** Classe des écritures sans {@code @WritePolicy} ni règle de collection */
+        private WriteClass defaultClass = WriteClass.STANDARD;
+        /** Attente maximale de l'acquittement majoritaire des écritures CRITICAL */
+        private long criticalTimeoutMs = 5000;
+        /** Classe par collection, pour les écritures de documents bruts (sans type d'entité) */
+        private Map<String, WriteClass> collections = new HashMap<>();
+    }
+}
@@ -0,0 +1,83 @@
+package tn.fst.proxiserve.config;
+
+import java.io.IOException;
+
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+import org.springframework.aot.hint.TypeReference;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.util.ClassUtils;
+
+/**
+ * Indications de réflexion pour l'image native GraalVM (profil Maven native).
+ *
+ * Spring AOT couvre les beans, les repositories et les types des contrôleurs ; restent les classes
+ * instanciées ou sérialisées par réflexion hors de Spring : modèles et DTO Lombok (Jackson,
+ * conversion MongoDB), jjwt (implémentations chargées par nom) et le SDK PayPal (modèles Gson).
+ * Les paquets sont parcourus au moment du traitement AOT, pas à l'exécution.
+ */
+public class NativeRuntimeHints implements RuntimeHintsRegistrar {
+
+    private static final MemberCategory[] BINDING = {
+            MemberCategory.INVOKE_DECLARED_CONSTRUCTORS,
+            MemberCategory.INVOKE_DECLARED_METHODS,
+            MemberCategory.DECLARED_FIELDS
+    };
+
+    /** Implémentations jjwt 0.11 chargées par {@code Classes.newInstance(String)} */
+    private static final String[] JJWT_TYPES = {
+            "io.jsonwebtoken.impl.DefaultJwtBuilder",
+            "io.jsonwebtoken.impl.DefaultJwtParser",
+            "io.jsonwebtoken.impl.DefaultJwtParserBuilder",
+            "io.jsonwebtoken.impl.DefaultClaims",
+            "io.jsonwebtoken.impl.DefaultHeader",
+            "io.jsonwebtoken.impl.DefaultJwsHeader",
+            "io.jsonwebtoken.impl.compression.DeflateCompressionCodec",
+            "io.jsonwebtoken.impl.compression.GzipCompressionCodec",
+            "io.jsonwebtoken.impl.crypto.MacProvider",
+            "io.jsonwebtoken.impl.crypto.RsaProvider",
+            "io.jsonwebtoken.impl.crypto.EllipticCurveProvider",
+            "io.jsonwebtoken.jackson.io.JacksonSerializer",
+            "io.jsonwebtoken.jackson.io.JacksonDeserializer"
+    };
+
+    @Override
+    public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+        registerPackage(hints, classLoader, "tn.fst.proxiserve.model");
+        registerPackage(hints, classLoader, "tn.fst.proxiserve.dto");
+
+        for (String type : JJWT_TYPES) {
+            if (ClassUtils.isPresent(type, classLoader)) {
+                hints.reflection().registerType(TypeReference.of(type), BINDING);
+            }
+        }
+        hints.resources().registerPattern("META-INF/services/io.jsonwebtoken.*");
+
+        registerPackage(hints, classLoader, "com.paypal.api.payments");
+        registerPackage(hints, classLoader, "com.paypal.base.rest");
+        hints.resources().registerPattern("sdk_config.properties");
+        hints.resources().registerPattern("com/paypal/**/*.properties");
+    }
+
+    /**
+     * Enregistre toutes les classes d'un paquet (classes internes comprises) pour la réflexion.
+     */
+    private static void registerPackage(RuntimeHints hints, ClassLoader classLoader, String packageName) {
+        PathMatchingResourcePatternResolver resolver = new PathMatchingResourcePatternResolver(classLoader);
+        String pattern = "classpath*:" + ClassUtils.convertClassNameToResourcePath(packageName) + "/*.class";
+        try {
+            for (Resource resource : resolver.getResources(pattern)) {
+                String fileName = resource.getFilename();
+                if (fileName == null || fileName.equals("package-info.class")) {
+                    continue;
+                }
+                String className = packageName + "." + fileName.substring(0, fileName.length() - ".class".length());
+                hints.reflection().registerType(TypeReference.of(className), BINDING);
+            }
+        } catch (IOException e) {
+            throw new IllegalStateException("Impossible de parcourir le paquet " + packageName, e);
+        }
+    }
+}
@@ -3,41 +3,46 @@ package tn.fst.proxiserve.config;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import com.paypal.base.rest.APIContext;
-import com.paypal.base.rest.OAuthTokenCredential;
-import com.paypal.base.rest.PayPalRESTException;
 
 import java.util.HashMap;
 import java.util.Map;
 
+/**
+ * Configuration du SDK PayPal.
+ * Le jeton OAuth n'est plus obtenu au démarrage : il est géré (cache + rafraîchissement)
+ * par {@link tn.fst.proxiserve.service.PayPalGateway}.
+ */
 @Configuration
 public class PayPalConfig {
 
-    @Value("${paypal.client.id}")
-    private String clientId;
-
-    @Value("${paypal.client.secret}")
-    private String clientSecret;
-
     @Value("${paypal.mode}")
     private String mode;
 
+    /** Point d'accès alternatif (ex : bouchon HTTP local pour les tests), vide par défaut */
+    @Value("${paypal.endpoint:}")
+    private String endpoint;
+
+    @Value("${paypal.http.connect-timeout-ms:5000}")
+    private int connectTimeoutMs;
+
+    @Value("${paypal.http.read-timeout-ms:10000}")
+    private int readTimeoutMs;
+
+    @Value("${paypal.http.max-connections:20}")
+    private int maxConnections;
+
     @Bean
     public Map<String, String> paypalSdkConfig() {
         Map<String, String> configMap = new HashMap<>();
         configMap.put("mode", mode);
+        // Connexions HTTP keep-alive partagées par le SDK (HttpURLConnection)
+        configMap.put("http.ConnectionTimeOut", String.valueOf(connectTimeoutMs));
+        configMap.put("http.ReadTimeOut", String.valueOf(readTimeoutMs));
+        configMap.put("http.MaxConnection", String.valueOf(maxConnections));
+        if (!endpoint.isBlank()) {
+            configMap.put("service.EndPoint", endpoint);
+            configMap.put("oauth.EndPoint", endpoint);
+        }
         return configMap;
     }
-
-    @Bean
-    public OAuthTokenCredential authTokenCredential() {
-        return new OAuthTokenCredential(clientId, clientSecret, paypalSdkConfig());
-    }
-
-    @Bean
-    public APIContext apiContext() throws PayPalRESTException {
-        APIContext context = new APIContext(authTokenCredential().getAccessToken());
-        context.setConfigurationMap(paypalSdkConfig());
-        return context;
-    }
 }
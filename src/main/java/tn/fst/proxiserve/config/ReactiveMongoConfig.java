@@ -0,0 +1,18 @@
+package tn.fst.proxiserve.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.mongodb.repository.config.EnableReactiveMongoRepositories;
+
+import tn.fst.proxiserve.repository.reactive.ReactiveArtisanRepository;
+
+/**
+ * Active les repositories MongoDB non bloquants avec le profil "reactive".
+ * Hors de ce profil, l'auto-configuration réactive est exclue (application.properties) :
+ * aucun second pool de connexions n'est ouvert.
+ */
+@Configuration
+@Profile("reactive")
+@EnableReactiveMongoRepositories(basePackageClasses = ReactiveArtisanRepository.class)
+public class ReactiveMongoConfig {
+}
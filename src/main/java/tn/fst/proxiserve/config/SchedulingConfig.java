@@ -0,0 +1,39 @@
+package tn.fst.proxiserve.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.task.ThreadPoolTaskSchedulerBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+
+/**
+ * Planificateurs des tâches {@code @Scheduled}.
+ *
+ * Les tâches courtes et sensibles au délai (jeton PayPal, réconciliation des paiements, purges,
+ * vérification SMTP) s'exécutent sur {@code taskScheduler} (spring.task.scheduling.*).
+ * Les balayages longs (expiration, archivage des réservations, recalcul des statistiques)
+ * déclarent {@code scheduler = "batchScheduler"} : un lot lent ne retarde jamais les premières.
+ */
+@Configuration
+public class SchedulingConfig {
+
+    /** Nom du planificateur des balayages longs */
+    public static final String BATCH_SCHEDULER = "batchScheduler";
+
+    /**
+     * Planificateur par défaut : un bean nommé taskScheduler est retenu pour les @Scheduled sans attribut scheduler.
+     */
+    @Bean
+    public ThreadPoolTaskScheduler taskScheduler(ThreadPoolTaskSchedulerBuilder builder) {
+        return builder.build();
+    }
+
+    @Bean(BATCH_SCHEDULER)
+    public ThreadPoolTaskScheduler batchScheduler(@Value("${scheduling.batch.pool-size:2}") int poolSize) {
+        ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
+        scheduler.setPoolSize(poolSize);
+        scheduler.setThreadNamePrefix("batch-scheduling-");
+        scheduler.setWaitForTasksToCompleteOnShutdown(false);
+        return scheduler;
+    }
+}
@@ -2,6 +2,8 @@ package tn.fst.proxiserve.config;
 
 
 import org.apache.catalina.connector.Connector;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.boot.web.embedded.tomcat.TomcatServletWebServerFactory;
 import org.springframework.boot.web.servlet.server.ServletWebServerFactory;
 import org.springframework.context.annotation.Bean;
@@ -17,29 +19,47 @@ import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 
+import jakarta.servlet.DispatcherType;
 import tn.fst.proxiserve.security.CustomUserDetailsService;
 import tn.fst.proxiserve.security.jwt.JwtAuthenticationFilter;
 import tn.fst.proxiserve.security.jwt.JwtTokenProvider;
+import tn.fst.proxiserve.security.ratelimit.RateLimitFilter;
+import tn.fst.proxiserve.security.ratelimit.RateLimitProperties;
+import tn.fst.proxiserve.security.ratelimit.RateLimitStore;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
 
 
 /**
  * Configuration de la sécurité Spring Boot
  */
 @EnableMethodSecurity(prePostEnabled = true)
+@EnableConfigurationProperties(RateLimitProperties.class)
 @Configuration
 public class SecurityConfig {
 
     private final JwtTokenProvider jwtTokenProvider;
     private final CustomUserDetailsService userDetailsService;
+    private final RateLimitStore rateLimitStore;
+    private final RateLimitProperties rateLimitProperties;
+    private final ObjectMapper objectMapper;
 
     /**
      * Constructeur avec injection de dépendances
      * @param jwtTokenProvider fournisseur de tokens JWT
      * @param userDetailsService service de gestion des utilisateurs
+     * @param rateLimitStore stockage des seaux à jetons du limiteur de débit
+     * @param rateLimitProperties règles de limitation de débit
+     * @param objectMapper sérialiseur JSON des réponses 429
      */
-    public SecurityConfig(JwtTokenProvider jwtTokenProvider, CustomUserDetailsService userDetailsService) {
+    public SecurityConfig(JwtTokenProvider jwtTokenProvider, CustomUserDetailsService userDetailsService,
+                          RateLimitStore rateLimitStore, RateLimitProperties rateLimitProperties,
+                          ObjectMapper objectMapper) {
         this.jwtTokenProvider = jwtTokenProvider;
         this.userDetailsService = userDetailsService;
+        this.rateLimitStore = rateLimitStore;
+        this.rateLimitProperties = rateLimitProperties;
+        this.objectMapper = objectMapper;
     }
 
     /**
@@ -55,13 +75,19 @@ public class SecurityConfig {
             .csrf(csrf -> csrf.disable())
             .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
             .authorizeHttpRequests(auth -> auth
+                // Fin des réponses asynchrones (exports en flux) : la requête initiale a déjà été autorisée
+                .dispatcherTypeMatchers(DispatcherType.ASYNC, DispatcherType.ERROR).permitAll()
                 // Routes accessibles sans authentification
                 .requestMatchers(HttpMethod.POST, "/api/auth/signup", "/api/auth/login").permitAll()
+                .requestMatchers(HttpMethod.GET, "/actuator/health", "/actuator/health/**").permitAll()
                 .requestMatchers(HttpMethod.GET, "/api/services/artisan/**").hasAnyAuthority("ROLE_ADMIN", "ROLE_CLIENT", "ROLE_ARTISAN")
 
                 
                 .requestMatchers(HttpMethod.GET, "/api/artisans/nearby").hasAuthority("ROLE_CLIENT") // Corrigé
                 .requestMatchers(HttpMethod.GET, "/api/services/search/advanced").permitAll()
+                // Lectures non bloquantes (profil reactive) : mêmes règles que la version servlet
+                .requestMatchers(HttpMethod.GET, "/api/reactive/artisans/nearby").hasAuthority("ROLE_CLIENT")
+                .requestMatchers(HttpMethod.GET, "/api/reactive/services/search/advanced", "/api/reactive/reviews/**").permitAll()
                 // Artisans peuvent confirmer, rejecter, mettre completé une réservation
                 .requestMatchers(HttpMethod.PUT, "/api/bookings/{id}/confirm").hasAuthority("ROLE_ARTISAN")
                 .requestMatchers(HttpMethod.PUT, "/api/bookings/*/reject").hasAuthority("ROLE_ARTISAN")
@@ -70,9 +96,11 @@ public class SecurityConfig {
 
           
 
-                .requestMatchers(HttpMethod.POST, "/api/payments/create").permitAll()
-                //.requestMatchers(HttpMethod.POST, "/api/payments/create").hasAuthority("ROLE_CLIENT")
-                .requestMatchers("/api/payments/**").permitAll()
+                // Paiement d'une réservation par son client ; retours PayPal et webhook (signé) publics
+                .requestMatchers(HttpMethod.POST, "/api/payments/create").hasAuthority("ROLE_CLIENT")
+                .requestMatchers(HttpMethod.GET, "/api/payments/success", "/api/payments/cancel").permitAll()
+                .requestMatchers(HttpMethod.POST, "/api/payments/webhook").permitAll()
+                .requestMatchers(HttpMethod.GET, "/api/payments/*").hasAuthority("ROLE_CLIENT")
 
                 // Clients peuvent ajouter, voir et supprimer un avis
                 .requestMatchers(HttpMethod.POST, "/api/reviews").hasAnyAuthority("ROLE_CLIENT", "ROLE_ADMIN")
@@ -86,8 +114,12 @@ public class SecurityConfig {
                 .requestMatchers(HttpMethod.DELETE, "/api/bookings/**").hasAuthority("ROLE_CLIENT")
 
                 .requestMatchers(HttpMethod.POST, "/api/services").hasAuthority("ROLE_ARTISAN")
+                // Opérations groupées sur le catalogue de l'artisan connecté
+                .requestMatchers("/api/services/bulk/**").hasAuthority("ROLE_ARTISAN")
                 // Admins peuvent voir le dashboard
                 .requestMatchers(HttpMethod.GET, "/api/admin/dashboard").hasAuthority("ROLE_ADMIN")
+                // Admins uniquement pour le reste de l'administration (exports...)
+                .requestMatchers("/api/admin/**").hasAuthority("ROLE_ADMIN")
                 //  Admins peuvent voir les clients
                 .requestMatchers(HttpMethod.GET, "/api/clients").hasAuthority("ROLE_ADMIN") 
                 //  Admins peuvent voir les artisans
@@ -102,7 +134,10 @@ public class SecurityConfig {
                 .anyRequest().authenticated()
             )
             .addFilterBefore(new JwtAuthenticationFilter(jwtTokenProvider, userDetailsService), 
-                            UsernamePasswordAuthenticationFilter.class);
+                            UsernamePasswordAuthenticationFilter.class)
+            // Limitation de débit avant toute authentification (BCrypt, recherche)
+            .addFilterBefore(new RateLimitFilter(rateLimitStore, rateLimitProperties, objectMapper),
+                            JwtAuthenticationFilter.class);
     
         return http.build();
     }
@@ -113,11 +148,12 @@ public class SecurityConfig {
 
     /**
      * Bean pour le hachage des mots de passe avec BCrypt
+     * @param strength coût BCrypt (les empreintes existantes sont mises à niveau à la connexion)
      * @return PasswordEncoder instance de BCryptPasswordEncoder
      */
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder passwordEncoder(@Value("${security.password.bcrypt-strength:10}") int strength) {
+        return new BCryptPasswordEncoder(strength);
     }
 
     /**
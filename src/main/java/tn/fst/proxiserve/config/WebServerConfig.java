@@ -0,0 +1,41 @@
+package tn.fst.proxiserve.config;
+
+import org.apache.tomcat.util.net.SSLHostConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.embedded.tomcat.TomcatServletWebServerFactory;
+import org.springframework.boot.web.server.WebServerFactoryCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Réglages du connecteur TLS (8443).
+ *
+ * HTTP/2 et la compression gzip sont activés par les propriétés server.http2.* et
+ * server.compression.* (appliquées au connecteur principal). Ce composant ajoute la reprise
+ * de session TLS : un client qui se reconnecte réutilise sa session au lieu de refaire
+ * une poignée de main complète (cache de sessions côté serveur ; les tickets de session
+ * TLS 1.3 sont gérés par la JVM).
+ */
+@Configuration
+public class WebServerConfig {
+
+    private static final Logger logger = LoggerFactory.getLogger(WebServerConfig.class);
+
+    @Bean
+    public WebServerFactoryCustomizer<TomcatServletWebServerFactory> tlsSessionResumption(
+            @Value("${proxiserve.tls.session-cache-size:20000}") int sessionCacheSize,
+            @Value("${proxiserve.tls.session-timeout-seconds:86400}") int sessionTimeoutSeconds) {
+        return factory -> factory.addConnectorCustomizers(connector -> {
+            for (SSLHostConfig hostConfig : connector.findSslHostConfigs()) {
+                hostConfig.setSessionCacheSize(sessionCacheSize);
+                hostConfig.setSessionTimeout(sessionTimeoutSeconds);
+            }
+            if (connector.getSecure()) {
+                logger.info(" Reprise de session TLS sur le port {} : cache de {} sessions, durée {} s",
+                        connector.getPort(), sessionCacheSize, sessionTimeoutSeconds);
+            }
+        });
+    }
+}
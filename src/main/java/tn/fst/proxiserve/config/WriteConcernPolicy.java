@@ -0,0 +1,131 @@
+package tn.fst.proxiserve.config;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import org.springframework.beans.BeansException;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.ApplicationContextAware;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.data.mongodb.MongoDatabaseFactory;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoAction;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.WriteConcernResolver;
+import org.springframework.data.mongodb.core.convert.MongoConverter;
+
+import com.mongodb.WriteConcern;
+
+import tn.fst.proxiserve.model.WriteClass;
+import tn.fst.proxiserve.model.WritePolicy;
+
+/**
+ * Write concern par classe d'opération ({@link WriteClass}).
+ *
+ * La classe d'une écriture est, dans l'ordre : celle imposée sur le thread courant
+ * ({@link #runAs}), celle de l'annotation {@link WritePolicy} du type écrit, celle de la collection
+ * ({@code mongodb.client.writes.collections}), puis la classe par défaut.
+ *
+ * MongoTemplate n'interroge pas le resolver pour les écritures groupées (il applique son write
+ * concern par défaut) : {@link #bulkOps} fournit des BulkOperations issues d'un template dédié
+ * à la classe du type écrit.
+ */
+public class WriteConcernPolicy implements WriteConcernResolver, ApplicationContextAware {
+
+    private static final ThreadLocal<WriteClass> CURRENT = new ThreadLocal<>();
+
+    private final Map<WriteClass, WriteConcern> concerns = new EnumMap<>(WriteClass.class);
+    private final Map<WriteClass, MongoTemplate> bulkTemplates = new EnumMap<>(WriteClass.class);
+    private final Map<String, WriteClass> collections;
+    private final WriteClass defaultClass;
+
+    public WriteConcernPolicy(MongoClientProperties.Writes writes,
+                              MongoDatabaseFactory mongoDatabaseFactory,
+                              MongoConverter mongoConverter) {
+        concerns.put(WriteClass.CRITICAL, WriteConcern.MAJORITY
+                .withJournal(true)
+                .withWTimeout(writes.getCriticalTimeoutMs(), TimeUnit.MILLISECONDS));
+        concerns.put(WriteClass.STANDARD, WriteConcern.ACKNOWLEDGED);
+        concerns.put(WriteClass.FAST, WriteConcern.W1.withJournal(false));
+        this.collections = Map.copyOf(writes.getCollections());
+        this.defaultClass = writes.getDefaultClass();
+
+        for (WriteClass writeClass : WriteClass.values()) {
+            MongoTemplate template = new MongoTemplate(mongoDatabaseFactory, mongoConverter);
+            template.setWriteConcern(concerns.get(writeClass));
+            bulkTemplates.put(writeClass, template);
+        }
+    }
+
+    @Override
+    public WriteConcern resolve(MongoAction action) {
+        return concerns.get(classOf(action.getEntityType(), action.getCollectionName()));
+    }
+
+    /**
+     * Écritures groupées sur un type d'entité, avec le write concern de sa classe.
+     */
+    public BulkOperations bulkOps(BulkOperations.BulkMode mode, Class<?> entityType) {
+        return bulkTemplates.get(classOf(entityType, null)).bulkOps(mode, entityType);
+    }
+
+    /**
+     * @return Classe d'écriture appliquée à ce type ou à cette collection sur le thread courant.
+     */
+    public WriteClass classOf(Class<?> entityType, String collectionName) {
+        WriteClass current = CURRENT.get();
+        if (current != null) {
+            return current;
+        }
+        if (entityType != null) {
+            WritePolicy policy = AnnotatedElementUtils.findMergedAnnotation(entityType, WritePolicy.class);
+            if (policy != null) {
+                return policy.value();
+            }
+        }
+        if (collectionName != null) {
+            WriteClass configured = collections.get(collectionName);
+            if (configured != null) {
+                return configured;
+            }
+        }
+        return defaultClass;
+    }
+
+    public WriteConcern concernOf(WriteClass writeClass) {
+        return concerns.get(writeClass);
+    }
+
+    /**
+     * Exécute des écritures avec une classe imposée, quel que soit le type écrit
+     * (ex : persistance des verrous de connexion, reconstructible depuis la mémoire).
+     */
+    public static void runAs(WriteClass writeClass, Runnable writes) {
+        callAs(writeClass, () -> {
+            writes.run();
+            return null;
+        });
+    }
+
+    public static <T> T callAs(WriteClass writeClass, Supplier<T> writes) {
+        WriteClass previous = CURRENT.get();
+        CURRENT.set(writeClass);
+        try {
+            return writes.get();
+        } finally {
+            if (previous != null) {
+                CURRENT.set(previous);
+            } else {
+                CURRENT.remove();
+            }
+        }
+    }
+
+    @Override
+    public void setApplicationContext(ApplicationContext applicationContext) throws BeansException {
+        // Événements et callbacks d'entité (audit, conversions) identiques au template principal
+        bulkTemplates.values().forEach(template -> template.setApplicationContext(applicationContext));
+    }
+}
@@ -1,16 +1,40 @@
 package tn.fst.proxiserve.controller;
 
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.web.PageableDefault;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import lombok.RequiredArgsConstructor;
+import tn.fst.proxiserve.dto.DashboardView;
+import tn.fst.proxiserve.dto.SliceView;
+import tn.fst.proxiserve.dto.UserView;
+import tn.fst.proxiserve.service.ListingService;
+import tn.fst.proxiserve.service.StatsRollupService;
+
 @RequestMapping("/api/admin")
 @RestController
+@RequiredArgsConstructor
 public class AdminController {
-    
+
+    private final StatsRollupService statsRollupService;
+    private final ListingService listingService;
+
+    // Utilisateurs page par page, filtrables par rôle (sans mot de passe)
+    @GetMapping("/users")
+    public ResponseEntity<SliceView<UserView>> getUsers(@RequestParam(required = false) String role,
+                                                        @PageableDefault(size = 20) Pageable pageable) {
+        Slice<UserView> users = listingService.listUsers(role, pageable);
+        return ResponseEntity.ok(SliceView.of(users));
+    }
+
+    // Indicateurs de la plateforme, lus depuis les agrégats pré-calculés (stats_rollups)
     @GetMapping("/dashboard")
-    public ResponseEntity<String> getDashboard() {
-        return ResponseEntity.ok("Bienvenue dans le dashboard Admin !");
+    public ResponseEntity<DashboardView> getDashboard(@RequestParam(defaultValue = "30") int days) {
+        return ResponseEntity.ok(statsRollupService.dashboard(days));
     }
 }
@@ -4,6 +4,9 @@ import java.util.List;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.web.PageableDefault;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -11,8 +14,10 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import tn.fst.proxiserve.dto.SliceView;
 import tn.fst.proxiserve.model.Artisan;
 import tn.fst.proxiserve.service.ArtisanService;
+import tn.fst.proxiserve.service.ListingService;
 
 /**
  * Contrôleur REST pour gérer les artisans.
@@ -25,13 +30,35 @@ public class ArtisanController {
 
     private static final Logger logger = LoggerFactory.getLogger(ArtisanController.class);
     private final ArtisanService artisanService;
+    private final ListingService listingService;
 
     /**
      * Injection de dépendance via le constructeur (bonne pratique).
      * @param artisanService Service permettant de récupérer les artisans
+     * @param listingService Service des listes paginées
      */
-    public ArtisanController(ArtisanService artisanService) {
+    public ArtisanController(ArtisanService artisanService, ListingService listingService) {
         this.artisanService = artisanService;
+        this.listingService = listingService;
+    }
+
+    /**
+     * Liste paginée des artisans, filtrable par profession et catégorie.
+     *
+     * @param profession Profession (optionnelle)
+     * @param category   Catégorie de service (optionnelle)
+     * @param pageable   page, size (bornée par listing.max-page-size) et sort
+     * @return Page d'artisans, sans comptage total
+     */
+    @GetMapping
+    @PreAuthorize("hasAnyAuthority('ROLE_ADMIN', 'ROLE_CLIENT', 'ROLE_ARTISAN')")
+    public ResponseEntity<SliceView<Artisan>> getArtisans(
+            @RequestParam(required = false) String profession,
+            @RequestParam(required = false) String category,
+            @PageableDefault(size = 20) Pageable pageable) {
+        Slice<Artisan> artisans = listingService.listArtisans(profession, category, pageable);
+        logger.info(" [INFO] - {} artisans retournés (page {})", artisans.getNumberOfElements(), artisans.getNumber());
+        return ResponseEntity.ok(SliceView.of(artisans));
     }
 
     /**
@@ -41,6 +68,8 @@ public class ArtisanController {
      * @param latitude  Latitude du client
      * @param longitude Longitude du client
      * @param radius    Rayon de recherche en kilomètres
+     * @param category  Catégorie de service (optionnelle)
+     * @param profession Profession (optionnelle)
      * @return Liste des artisans trouvés dans le rayon spécifié
      */
     @GetMapping("/nearby")
@@ -48,7 +77,9 @@ public class ArtisanController {
     public ResponseEntity<List<Artisan>> getNearbyArtisans(
             @RequestParam double latitude,
             @RequestParam double longitude,
-            @RequestParam double radius) {
+            @RequestParam double radius,
+            @RequestParam(required = false) String category,
+            @RequestParam(required = false) String profession) {
 
         logger.info(" [INFO] - Requête reçue : Recherche d'artisans proches (lat: {}, long: {}, rayon: {} km)", latitude, longitude, radius);
 
@@ -63,7 +94,7 @@ public class ArtisanController {
         }
 
         // Recherche des artisans à proximité
-        List<Artisan> artisans = artisanService.findNearbyArtisans(latitude, longitude, radius);
+        List<Artisan> artisans = artisanService.findNearbyArtisans(latitude, longitude, radius, category, profession);
 
         if (artisans.isEmpty()) {
             logger.info("ℹ [INFO] - Aucun artisan trouvé dans le rayon de {} km autour de (lat={}, long={})", radius, latitude, longitude);
@@ -3,17 +3,16 @@ package tn.fst.proxiserve.controller;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.data.mongodb.core.geo.GeoJsonPoint;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
@@ -23,16 +22,18 @@ import org.springframework.web.bind.annotation.RestController;
 
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import tn.fst.proxiserve.cache.ArtisanCache;
 import tn.fst.proxiserve.dto.LoginRequest;
 import tn.fst.proxiserve.dto.SignupRequest;
 import tn.fst.proxiserve.model.Artisan;
 import tn.fst.proxiserve.model.Client;
 import tn.fst.proxiserve.model.User;
-import tn.fst.proxiserve.repository.ArtisanRepository;
 import tn.fst.proxiserve.repository.ClientRepository;
 import tn.fst.proxiserve.repository.UserRepository;
 import tn.fst.proxiserve.security.jwt.JwtTokenProvider;
 import tn.fst.proxiserve.service.LoginAttemptService;
+import tn.fst.proxiserve.service.PasswordHashingService;
+import tn.fst.proxiserve.service.StatsRollupService;
 
 @RestController
 @RequestMapping("/api/auth")
@@ -41,14 +42,14 @@ public class AuthController {
 
     private static final Logger logger = LoggerFactory.getLogger(AuthController.class);
 
-    private final AuthenticationManager authenticationManager;
     private final UserRepository userRepository;
-    private final PasswordEncoder passwordEncoder;
+    private final PasswordHashingService passwordHashingService;
     private final JwtTokenProvider jwtTokenProvider;
-    private final ArtisanRepository artisanRepository;
+    private final ArtisanCache artisanCache;
     private final ClientRepository clientRepository;
 
     private final LoginAttemptService loginAttemptService;
+    private final StatsRollupService statsRollupService;
 
 
     @PostMapping("/signup")
@@ -67,7 +68,7 @@ public class AuthController {
             return ResponseEntity.badRequest().body("Erreur : rôle invalide !");
         }
 
-        String encodedPassword = passwordEncoder.encode(request.getPassword());
+        String encodedPassword = passwordHashingService.encode(request.getPassword());
 
         User user = new User();
         user.setEmail(request.getEmail());
@@ -76,6 +77,7 @@ public class AuthController {
         user.setFullName(request.getFullName() != null ? request.getFullName() : "Inconnu");
         user.setPhoneNumber(request.getPhoneNumber() != null ? request.getPhoneNumber() : "N/A");
         userRepository.save(user);
+        statsRollupService.userRegistered(user);
 
         if ("ROLE_CLIENT".equals(role)) {
             Client client = new Client();
@@ -102,7 +104,7 @@ public class AuthController {
             }
 
             artisan.setLocation(new GeoJsonPoint(longitude, latitude));
-            artisanRepository.save(artisan);
+            artisanCache.save(artisan); // Indexé par ArtisanCategoryIndex (AfterSaveEvent)
         }
 
         return ResponseEntity.ok("Utilisateur enregistré avec succès avec le rôle : " + role);
@@ -113,26 +115,41 @@ public class AuthController {
         String email = credentials.getEmail();
         logger.info("Tentative de connexion pour l'email : {}", email);
 
+        // Verrou local : aucune lecture en base pendant une rafale sur un compte bloqué
         if (loginAttemptService.isBlocked(email)) {
-            logger.warn("Compte bloqué pour 15 minutes - Email : {}", email);
-            return ResponseEntity.status(HttpStatus.LOCKED)
-                    .body("Trop de tentatives échouées. Compte bloqué pour 15 minutes.");
+            return locked(email);
         }
 
         try {
-            User user = userRepository.findByEmail(email)
-                    .orElseThrow(() -> new BadCredentialsException("Utilisateur non trouvé"));
+            Optional<User> userOpt = userRepository.findByEmail(email);
+            if (userOpt.isEmpty()) {
+                // Même calcul BCrypt qu'un compte existant : pas d'énumération des comptes par la latence
+                passwordHashingService.matchesDummy(credentials.getPassword());
+                throw new BadCredentialsException("Utilisateur non trouvé");
+            }
+            User user = userOpt.get();
+
+            // Verrou posé par un autre nœud, lu sur l'utilisateur déjà chargé (un verrou échu ne bloque pas)
+            if (loginAttemptService.isBlocked(email, user)) {
+                return locked(email);
+            }
 
-            if (!passwordEncoder.matches(credentials.getPassword(), user.getPassword())) {
+            // Un seul calcul BCrypt par connexion, sur le pool dédié
+            if (!passwordHashingService.matches(credentials.getPassword(), user.getPassword())) {
                 throw new BadCredentialsException("Mot de passe incorrect");
             }
 
-            Authentication authentication = authenticationManager.authenticate(
-                    new UsernamePasswordAuthenticationToken(email, credentials.getPassword())
-            );
+            Authentication authentication =
+                    UsernamePasswordAuthenticationToken.authenticated(user, null, user.getAuthorities());
 
             String token = jwtTokenProvider.generateToken(authentication);
             loginAttemptService.loginSucceeded(email);
+            try {
+                passwordHashingService.rehashIfNeeded(user, credentials.getPassword());
+            } catch (RuntimeException e) {
+                // Mise à niveau de l'empreinte facultative : retentée à la prochaine connexion
+                logger.warn("Mise à niveau de l'empreinte impossible - Email : {} : {}", email, e.getMessage());
+            }
             logger.info("Connexion réussie - Email : {}", email);
             return ResponseEntity.ok(Map.of("token", token));
 
@@ -143,6 +160,12 @@ public class AuthController {
         }
     }
 
+    private ResponseEntity<?> locked(String email) {
+        logger.warn("Compte bloqué pour 15 minutes - Email : {}", email);
+        return ResponseEntity.status(HttpStatus.LOCKED)
+                .body("Trop de tentatives échouées. Compte bloqué pour 15 minutes.");
+    }
+
     @GetMapping("/validate-token")
     public ResponseEntity<?> validateToken(@RequestHeader("Authorization") String token) {
         try {
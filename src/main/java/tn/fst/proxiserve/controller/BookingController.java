@@ -1,11 +1,14 @@
 package tn.fst.proxiserve.controller;
 
 import java.time.LocalDateTime;
-import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.data.domain.Slice;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
@@ -20,25 +23,27 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
-import com.paypal.api.payments.Payment;
-import com.paypal.api.payments.PaymentExecution;
-import com.paypal.base.rest.PayPalRESTException;
-
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
-import tn.fst.proxiserve.config.PayPalConfig;
+import tn.fst.proxiserve.cache.ArtisanCache;
+import tn.fst.proxiserve.cache.ServiceCache;
 import tn.fst.proxiserve.dto.BookingView;
+import tn.fst.proxiserve.dto.SliceView;
 import tn.fst.proxiserve.model.Artisan;
 import tn.fst.proxiserve.model.Booking;
 import tn.fst.proxiserve.model.Client;
+import tn.fst.proxiserve.model.PaymentRecord;
 import tn.fst.proxiserve.model.ServiceEntity;
 import tn.fst.proxiserve.model.User;
 import tn.fst.proxiserve.repository.ArtisanRepository;
 import tn.fst.proxiserve.repository.BookingRepository;
 import tn.fst.proxiserve.repository.ClientRepository;
-import tn.fst.proxiserve.repository.ServiceRepository;
 import tn.fst.proxiserve.repository.UserRepository;
+import tn.fst.proxiserve.service.BookingService;
 import tn.fst.proxiserve.service.MailService;
+import tn.fst.proxiserve.service.PaymentOrchestrationService;
+import tn.fst.proxiserve.service.ReferenceResolver;
+import tn.fst.proxiserve.service.StatsRollupService;
 
 @RestController
 @RequestMapping("/api/bookings")
@@ -49,13 +54,16 @@ public class BookingController {
 
     private final BookingRepository bookingRepository;
     private final ClientRepository clientRepository;
-    private final ServiceRepository serviceRepository;
+    private final ServiceCache serviceCache;
+    private final ArtisanCache artisanCache;
     private final UserRepository userRepository;
     private final ArtisanRepository artisanRepository;
+    @Lazy
     private final MailService mailService;
-    //appContext() appelé d'ou ?
-    //temporaire pour éviter l'erreur
-    private final PayPalConfig payPalConfig;
+    private final PaymentOrchestrationService paymentOrchestrationService;
+    private final StatsRollupService statsRollupService;
+    private final ReferenceResolver referenceResolver;
+    private final BookingService bookingService;
 
 
     //  Créer une réservation (par un client connecté)
@@ -80,18 +88,30 @@ public class BookingController {
             return ResponseEntity.status(HttpStatus.NOT_FOUND).body("Client non trouvé");
         }
 
-        Optional<ServiceEntity> serviceOpt = serviceRepository.findById(bookingRequest.getServiceId());
+        Optional<ServiceEntity> serviceOpt = serviceCache.findById(bookingRequest.getServiceId());
         if (serviceOpt.isEmpty()) {
             logger.warn("Service non trouvé avec l'ID : {}", bookingRequest.getServiceId());
             return ResponseEntity.status(HttpStatus.NOT_FOUND).body("Service non trouvé");
         }
 
         bookingRequest.setClientId(clientOpt.get().getId());
+        // L'artisan est celui du service, jamais celui envoyé par le client (clé de la boîte de réception)
+        bookingRequest.setArtisanId(serviceOpt.get().getArtisanId());
         bookingRequest.setCreatedAt(LocalDateTime.now());
         bookingRequest.setStatus("PENDING");
+        // Nouvelle réservation uniquement : identifiant et état de paiement fixés par le serveur
+        // (les champs de paiement ne sont écrits que par la réconciliation et les webhooks)
+        bookingRequest.setId(null);
+        bookingRequest.setExpiredAt(null);
+        bookingRequest.setPaymentStatus("UNPAID");
+        bookingRequest.setPaymentCompleted(false);
+        bookingRequest.setPaidAt(null);
+        bookingRequest.setPaidBy(null);
+        bookingRequest.setPaymentEventAt(null);
+        bookingRequest.setPaymentEventId(null);
 
         // Récupérer les infos de l'artisan concerné
-        Optional<Artisan> artisanOpt = artisanRepository.findById(bookingRequest.getArtisanId());
+        Optional<Artisan> artisanOpt = artisanCache.findById(bookingRequest.getArtisanId());
         artisanOpt.ifPresent(artisan -> {
             String artisanEmail = artisan.getEmail();
             String message = String.format("""
@@ -123,7 +143,8 @@ public class BookingController {
 
 
 
-        Booking saved = bookingRepository.save(bookingRequest);
+        Booking saved = bookingRepository.insert(bookingRequest);
+        statsRollupService.bookingCreated(saved);
         logger.info("Réservation créée avec ID : {}", saved.getId());
 
         return ResponseEntity.status(HttpStatus.CREATED).body(saved);
@@ -133,7 +154,10 @@ public class BookingController {
     @GetMapping("/client")
     public ResponseEntity<?> getBookingsForClient(
             @AuthenticationPrincipal UserDetails userDetails,
-            @RequestParam(required = false) String status) {
+            @RequestParam(required = false) String status,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "50") int size,
+            @RequestParam(defaultValue = "true") boolean archived) {
 
         logger.info("[GET] /api/bookings/client called by {}", userDetails.getUsername());
 
@@ -149,13 +173,15 @@ public class BookingController {
 
         String clientId = clientOpt.get().getId();
 
-        //  Appliquer un filtre par statut si fourni
-        List<Booking> bookings = (status != null && !status.isBlank())
-                ? bookingRepository.findByClientIdAndStatus(clientId, status.toUpperCase())
-                : bookingRepository.findByClientId(clientId);
+        //  Appliquer un filtre par statut si fourni ; historique archivé inclus sauf archived=false
+        Slice<Booking> bookings = bookingService.clientHistory(clientId, status, page, size, archived);
+
+        // Services des réservations de la page en une seule lecture (cache, puis base pour les absents)
+        Map<String, ServiceEntity> servicesById = serviceCache.findAllById(
+                bookings.stream().map(Booking::getServiceId).distinct().toList());
 
-        List<BookingView> result = bookings.stream().map(booking -> {
-            ServiceEntity service = serviceRepository.findById(booking.getServiceId()).orElse(null);
+        Slice<BookingView> result = bookings.map(booking -> {
+            ServiceEntity service = servicesById.get(booking.getServiceId());
 
             return new BookingView(
                 booking.getId(),
@@ -168,17 +194,24 @@ public class BookingController {
                 service != null ? service.getDescription() : null,
                 service != null ? service.getPrice() : 0.0
             );
-        }).toList();
+        });
 
-        return ResponseEntity.ok(result);
+        return ResponseEntity.ok(SliceView.of(result));
     }
 
 
    
 
-    //  Récupérer les réservations des services de l'artisan connecté
+    //  Boîte de réception de l'artisan connecté : filtre par artisanId, statut et fenêtre de dates
     @GetMapping("/artisan")
-    public ResponseEntity<?> getBookingsForArtisan(@AuthenticationPrincipal UserDetails userDetails) {
+    public ResponseEntity<?> getBookingsForArtisan(@AuthenticationPrincipal UserDetails userDetails,
+                                                   @RequestParam(required = false) String status,
+                                                   @RequestParam(defaultValue = "all") String window,
+                                                   @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+                                                   @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+                                                   @RequestParam(defaultValue = "0") int page,
+                                                   @RequestParam(defaultValue = "50") int size,
+                                                   @RequestParam(defaultValue = "true") boolean archived) {
         logger.info("[GET] /api/bookings/artisan called by {}", userDetails.getUsername());
 
         String email = userDetails.getUsername();
@@ -194,27 +227,17 @@ public class BookingController {
 
         String artisanId = artisanOpt.get().getId(); //  le vrai ID de l'artisan
 
-        List<ServiceEntity> services = serviceRepository.findByArtisanId(artisanId);
-        if (services.isEmpty()) {
-            logger.info("Aucun service trouvé pour l'artisan {}", artisanId);
-            return ResponseEntity.ok(List.of()); // liste vide mais sans erreur
-        }
-
-        List<String> serviceIds = services.stream()
-                                        .map(ServiceEntity::getId)
-                                        .toList();
-
-        List<Booking> bookings = bookingRepository.findByServiceIdIn(serviceIds);
-        
+        // Un seul parcours de l'index (artisanId, status, bookingDate), quel que soit le nombre de services
+        Slice<Booking> bookings = bookingService.artisanInbox(artisanId, status, window, from, to, page, size, archived);
 
-        List<BookingView> result = bookings.stream().map(booking -> {
-            String clientId = booking.getClientId();
-            String serviceId = booking.getServiceId();
+        // Services (cache) et clients (une requête $in) des réservations de la page
+        Map<String, ServiceEntity> servicesById = serviceCache.findAllById(
+                bookings.stream().map(Booking::getServiceId).distinct().toList());
+        Map<String, Client> clientsById = referenceResolver.resolve(bookings.getContent(), Booking::getClientId, Client.class);
 
-            // Récupérer le client
-            var client = clientRepository.findById(clientId).orElse(null);
-            // Récupérer le service
-            var service = serviceRepository.findById(serviceId).orElse(null);
+        Slice<BookingView> result = bookings.map(booking -> {
+            var client = clientsById.get(booking.getClientId());
+            var service = servicesById.get(booking.getServiceId());
 
             return new BookingView(
                 booking.getId(),
@@ -227,9 +250,9 @@ public class BookingController {
                 service != null ? service.getDescription() : null,
                 service != null ? service.getPrice() : 0.0
             );
-        }).toList();
+        });
 
-        return ResponseEntity.ok(result);
+        return ResponseEntity.ok(SliceView.of(result));
 
     }
 
@@ -261,8 +284,14 @@ public class BookingController {
             return ResponseEntity.status(HttpStatus.FORBIDDEN).body("Réservation non autorisée");
         }
 
+        // Écriture conditionnelle du seul statut : une réservation expirée, rejetée ou terminée entre-temps reste inchangée
+        String previousStatus = bookingService.cancel(id);
+        if (previousStatus == null) {
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body("Réservation déjà terminée, rejetée, annulée ou expirée : elle ne peut plus être annulée");
+        }
         booking.setStatus("CANCELLED");
-        bookingRepository.save(booking);
+        statsRollupService.bookingStatusChanged(booking, previousStatus);
 
         logger.info("Réservation {} annulée avec succès", booking.getId());
 
@@ -294,11 +323,17 @@ public class BookingController {
         Booking booking = bookingOpt.get();
 
         // Vérifie que la réservation concerne un service appartenant à l'artisan connecté
-        Optional<ServiceEntity> serviceOpt = serviceRepository.findById(booking.getServiceId());
+        Optional<ServiceEntity> serviceOpt = serviceCache.findById(booking.getServiceId());
         if (serviceOpt.isEmpty() || !serviceOpt.get().getArtisanId().equals(artisanOpt.get().getId())) {
             return ResponseEntity.status(HttpStatus.FORBIDDEN).body("Action non autorisée");
         }
 
+        // Écriture conditionnelle : seule une réservation encore PENDING est confirmée
+        if (!bookingService.decidePending(id, "CONFIRMED")) {
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body("Réservation déjà traitée, annulée ou expirée : elle ne peut plus être confirmée");
+        }
+        String previousStatus = "PENDING";
         booking.setStatus("CONFIRMED");
 
         // Notification au client
@@ -322,12 +357,7 @@ public class BookingController {
             mailService.sendEmail(client.getEmail(), subject, body);
         });
 
-
-
-
-
-        
-        bookingRepository.save(booking);
+        statsRollupService.bookingStatusChanged(booking, previousStatus);
 
         logger.info("Réservation {} confirmée par l'artisan {}", id, artisanOpt.get().getId());
 
@@ -358,10 +388,17 @@ public class BookingController {
         Booking booking = bookingOpt.get();
 
         // Vérifie que la réservation concerne un service appartenant à l'artisan connecté
-        Optional<ServiceEntity> serviceOpt = serviceRepository.findById(booking.getServiceId());
+        Optional<ServiceEntity> serviceOpt = serviceCache.findById(booking.getServiceId());
         if (serviceOpt.isEmpty() || !serviceOpt.get().getArtisanId().equals(artisanOpt.get().getId())) {
             return ResponseEntity.status(HttpStatus.FORBIDDEN).body("Action non autorisée");
         }
+
+        // Écriture conditionnelle : seule une réservation encore PENDING est rejetée
+        if (!bookingService.decidePending(id, "REJECTED")) {
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body("Réservation déjà traitée, annulée ou expirée : elle ne peut plus être rejetée");
+        }
+        String previousStatus = "PENDING";
         booking.setStatus("REJECTED");
 
         clientRepository.findById(booking.getClientId()).ifPresent(client -> {
@@ -385,12 +422,7 @@ public class BookingController {
             });
         });
 
-
-
-
-
-        
-        bookingRepository.save(booking);
+        statsRollupService.bookingStatusChanged(booking, previousStatus);
 
         logger.info("Réservation {} rejetée par l'artisan {}", id, artisanOpt.get().getId());
 
@@ -413,11 +445,17 @@ public class BookingController {
         if (bookingOpt.isEmpty()) return ResponseEntity.status(HttpStatus.NOT_FOUND).body("Réservation non trouvée");
 
         Booking booking = bookingOpt.get();
-        Optional<ServiceEntity> serviceOpt = serviceRepository.findById(booking.getServiceId());
+        Optional<ServiceEntity> serviceOpt = serviceCache.findById(booking.getServiceId());
         if (serviceOpt.isEmpty() || !serviceOpt.get().getArtisanId().equals(artisanOpt.get().getId())) {
             return ResponseEntity.status(HttpStatus.FORBIDDEN).body("Action non autorisée");
         }
 
+        // Écriture conditionnelle du seul statut : seule une réservation confirmée peut être terminée
+        if (!bookingService.complete(id)) {
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body("Seule une réservation confirmée peut être marquée comme terminée");
+        }
+        String previousStatus = "CONFIRMED";
         booking.setStatus("COMPLETED");
         clientRepository.findById(booking.getClientId()).ifPresent(client -> {
             userRepository.findById(client.getUserId()).ifPresent(user -> {
@@ -441,8 +479,9 @@ public class BookingController {
                 mailService.sendEmail(user.getEmail(), subject, body);
             });
         });
-        
-        bookingRepository.save(booking);
+
+
+        statsRollupService.bookingStatusChanged(booking, previousStatus);
 
         logger.info("Réservation {} marquée comme terminée par l'artisan {}", id, artisanOpt.get().getId());
         return ResponseEntity.ok("Réservation terminée avec succès");
@@ -452,29 +491,18 @@ public class BookingController {
 
     @GetMapping("/success")
     public ResponseEntity<?> successPayment(@RequestParam("paymentId") String paymentId,
-                                            @RequestParam("PayerID") String payerId,
-                                            @RequestParam("bookingId") String bookingId) {
-        try {
-        	//retrieve it from where : PayPalConfig ??
-            Payment payment = Payment.get(payPalConfig.apiContext(), paymentId);
-            PaymentExecution paymentExecution = new PaymentExecution();
-            paymentExecution.setPayerId(payerId);
-            Payment executedPayment = payment.execute(payPalConfig.apiContext(), paymentExecution);
-
-            // 🔄 Mise à jour de la réservation
-            Optional<Booking> bookingOpt = bookingRepository.findById(bookingId);
-            bookingOpt.ifPresent(booking -> {
-                booking.setPaymentStatus("PAID");
-                booking.setPaymentMethod("paypal");
-                booking.setPaymentCompleted(true);
-                bookingRepository.save(booking);
-            });
-
-            return ResponseEntity.ok("Paiement effectué avec succès : " + executedPayment.getId());
-
-        } catch (PayPalRESTException e) {
-            return ResponseEntity.badRequest().body("Erreur lors de l’exécution du paiement : " + e.getMessage());
+                                            @RequestParam("PayerID") String payerId) {
+        // L'exécution PayPal et la mise à jour de la réservation sont traitées en arrière-plan ;
+        // la réservation payée est celle enregistrée à la création du paiement
+        PaymentRecord record = paymentOrchestrationService.approve(paymentId, payerId);
+        if (record == null) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("error", "Paiement introuvable"));
         }
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(Map.of(
+                "paymentId", paymentId,
+                "status", record.getStatus(),
+                "message", "Paiement approuvé, exécution en cours."
+        ));
     }
 
     
@@ -1,9 +1,10 @@
 package tn.fst.proxiserve.controller;
 
-import java.util.List;
-
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.web.PageableDefault;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
@@ -13,11 +14,14 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import lombok.RequiredArgsConstructor;
+import tn.fst.proxiserve.dto.SliceView;
 import tn.fst.proxiserve.model.Client;
 import tn.fst.proxiserve.service.ClientService;
+import tn.fst.proxiserve.service.ListingService;
 
 /**
  * Contrôleur REST pour gérer les clients.
@@ -30,26 +34,24 @@ public class ClientController {
 
     private static final Logger logger = LoggerFactory.getLogger(ClientController.class);
     private final ClientService clientService;
+    private final ListingService listingService;
 
 
 
     /**
-     * Récupérer tous les clients (accessible uniquement par un administrateur).
-     * @return Liste des clients.
+     * Récupérer les clients page par page (accessible uniquement par un administrateur).
+     * @param name Filtre sur le nom (optionnel).
+     * @param pageable page, size (bornée par listing.max-page-size) et sort (ex : createdAt,desc).
+     * @return Page de clients, sans comptage total.
      */
     @GetMapping
     @PreAuthorize("hasAuthority('ROLE_ADMIN')")
-    public ResponseEntity<List<Client>> getAllClients() {
-        logger.info(" Récupération de tous les clients...");
-        List<Client> clients = clientService.getAllClients();
-        
-        if (clients.isEmpty()) {
-            logger.info(" Aucun client trouvé !");
-            return ResponseEntity.noContent().build();
-        }
-
-        logger.info(" {} clients récupérés avec succès.", clients.size());
-        return ResponseEntity.ok(clients);
+    public ResponseEntity<SliceView<Client>> getAllClients(@RequestParam(required = false) String name,
+                                                           @PageableDefault(size = 20) Pageable pageable) {
+        logger.info(" Récupération des clients (page {}, taille {})", pageable.getPageNumber(), pageable.getPageSize());
+        Slice<Client> clients = listingService.listClients(name, pageable);
+        logger.info(" {} clients récupérés avec succès.", clients.getNumberOfElements());
+        return ResponseEntity.ok(SliceView.of(clients));
     }
 
     /**
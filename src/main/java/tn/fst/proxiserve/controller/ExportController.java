@@ -0,0 +1,64 @@
+package tn.fst.proxiserve.controller;
+
+import java.nio.charset.StandardCharsets;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import lombok.RequiredArgsConstructor;
+import tn.fst.proxiserve.service.ExportService;
+
+/**
+ * Exports administrateur en flux continu (CSV ou NDJSON, gzip optionnel).
+ */
+@RestController
+@RequestMapping("/api/admin/export")
+@RequiredArgsConstructor
+public class ExportController {
+
+    private static final Logger logger = LoggerFactory.getLogger(ExportController.class);
+    private final ExportService exportService;
+
+    /**
+     * Exporte une collection complète sans la charger en mémoire.
+     * @param type clients, artisans ou bookings.
+     * @param format csv (par défaut) ou ndjson.
+     * @param gzip Compresser la réponse (Content-Encoding: gzip).
+     * @param batchSize Taille des lots lus depuis MongoDB.
+     * @return Flux de l'export.
+     */
+    @GetMapping("/{type}")
+    @PreAuthorize("hasAuthority('ROLE_ADMIN')")
+    public ResponseEntity<StreamingResponseBody> export(@PathVariable String type,
+                                                        @RequestParam(defaultValue = "csv") String format,
+                                                        @RequestParam(defaultValue = "false") boolean gzip,
+                                                        @RequestParam(required = false) Integer batchSize) {
+        ExportService.Format exportFormat = exportService.validate(type, format);
+        logger.info(" Export {} demandé (format {}, gzip {})", type, exportFormat, gzip);
+
+        String extension = exportFormat == ExportService.Format.CSV ? "csv" : "ndjson";
+        MediaType mediaType = exportFormat == ExportService.Format.CSV
+                ? new MediaType("text", "csv", StandardCharsets.UTF_8)
+                : new MediaType("application", "x-ndjson");
+
+        StreamingResponseBody body = out -> exportService.export(type, exportFormat, gzip, batchSize, out);
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(mediaType)
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + type + "." + extension + "\"");
+        if (gzip) {
+            response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        return response.body(body);
+    }
+}
@@ -0,0 +1,68 @@
+package tn.fst.proxiserve.controller;
+
+import java.security.Principal;
+import java.util.List;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RequestPart;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.multipart.MultipartFile;
+
+import lombok.RequiredArgsConstructor;
+import tn.fst.proxiserve.model.ImportJob;
+import tn.fst.proxiserve.service.ImportService;
+
+/**
+ * Imports administrateur d'artisans et de clients (NDJSON ou CSV), traités en arrière-plan.
+ */
+@RestController
+@RequestMapping("/api/admin/import")
+@RequiredArgsConstructor
+@PreAuthorize("hasAuthority('ROLE_ADMIN')")
+public class ImportController {
+
+    private final ImportService importService;
+
+    /**
+     * Lance un import.
+     * @param type artisans ou clients.
+     * @param file Fichier NDJSON ou CSV (une fiche par ligne).
+     * @param format csv ou ndjson (déduit de l'extension si absent).
+     * @return 202 avec l'import créé ; l'avancement se suit via GET /api/admin/import/{jobId}.
+     */
+    @PostMapping(value = "/{type}", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<ImportJob> startImport(@PathVariable String type,
+                                                 @RequestPart("file") MultipartFile file,
+                                                 @RequestParam(required = false) String format,
+                                                 Principal principal) {
+        return ResponseEntity.status(HttpStatus.ACCEPTED)
+                .body(importService.start(type, format, file, principal.getName()));
+    }
+
+    // Reprise d'un import interrompu à partir de son dernier point de reprise
+    @PostMapping("/{jobId}/resume")
+    public ResponseEntity<ImportJob> resumeImport(@PathVariable String jobId,
+                                                  @RequestPart(value = "file", required = false) MultipartFile file) {
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(importService.resume(jobId, file));
+    }
+
+    // Avancement d'un import
+    @GetMapping("/{jobId}")
+    public ResponseEntity<ImportJob> getImport(@PathVariable String jobId) {
+        return ResponseEntity.ok(importService.find(jobId));
+    }
+
+    // Derniers imports
+    @GetMapping
+    public ResponseEntity<List<ImportJob>> getImports() {
+        return ResponseEntity.ok(importService.recent());
+    }
+}
@@ -6,9 +6,9 @@ import java.util.Optional;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.context.annotation.Lazy;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
@@ -19,6 +19,7 @@ import tn.fst.proxiserve.model.User;
 import tn.fst.proxiserve.repository.UserRepository;
 import tn.fst.proxiserve.security.jwt.JwtTokenProvider;
 import tn.fst.proxiserve.service.MailService;
+import tn.fst.proxiserve.service.PasswordHashingService;
 
 @RestController
 @RequestMapping("/api/auth")
@@ -31,8 +32,9 @@ public class PasswordResetController {
 
     private final JwtTokenProvider jwtTokenProvider;
 
-    private final PasswordEncoder passwordEncoder;
+    private final PasswordHashingService passwordHashingService;
 
+    @Lazy
     private final MailService mailService;
 
     /**
@@ -131,7 +133,7 @@ public class PasswordResetController {
         }
 
         // Mettre à jour le mot de passe et supprimer le token
-        user.setPassword(passwordEncoder.encode(newPassword));
+        user.setPassword(passwordHashingService.encode(newPassword));
         user.setResetPasswordToken(null);
         user.setTokenExpiration(null);
         userRepository.save(user);
@@ -1,33 +1,53 @@
 package tn.fst.proxiserve.controller;
 
 import com.paypal.api.payments.*;
-import com.paypal.base.rest.APIContext;
 import com.paypal.base.rest.PayPalRESTException;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.*;
 
+import tn.fst.proxiserve.model.PaymentRecord;
+import tn.fst.proxiserve.service.PayPalGateway;
+import tn.fst.proxiserve.service.PaymentOrchestrationService;
+import tn.fst.proxiserve.service.PaymentWebhookService;
+
 @RestController
 @RequestMapping("/api/payments")
 public class PaymentController {
 
     @Autowired
-    private APIContext apiContext;
+    @Lazy
+    private PayPalGateway payPalGateway;
+
+    @Autowired
+    private PaymentOrchestrationService paymentOrchestrationService;
 
-    // 1. Créer un paiement PayPal
+    @Autowired
+    private PaymentWebhookService paymentWebhookService;
+
+    // 1. Créer un paiement PayPal pour une réservation du client connecté (montant = prix du service)
     @PostMapping("/create")
-    public ResponseEntity<?> createPayment(@RequestParam String amount, @RequestParam String currency) {
+    public ResponseEntity<?> createPayment(@AuthenticationPrincipal UserDetails userDetails,
+                                           @RequestParam String bookingId) {
         Map<String, Object> response = new HashMap<>();
+        PaymentOrchestrationService.BookingCharge charge =
+                paymentOrchestrationService.chargeFor(userDetails.getUsername(), bookingId);
 
         Amount amt = new Amount();
-        amt.setCurrency(currency);
-        amt.setTotal(amount);
+        amt.setCurrency(charge.currency());
+        amt.setTotal(charge.amount());
 
         Transaction transaction = new Transaction();
         transaction.setDescription("Paiement réservation");
         transaction.setAmount(amt);
+        transaction.setCustom(charge.bookingId()); // Renvoyé par PayPal dans les notifications webhook
 
         Payer payer = new Payer();
         payer.setPaymentMethod("paypal");
@@ -43,12 +63,13 @@ public class PaymentController {
         payment.setRedirectUrls(redirectUrls);
 
         try {
-            Payment createdPayment = payment.create(apiContext);
+            Payment createdPayment = payPalGateway.execute(payment::create);
             for (Links link : createdPayment.getLinks()) {
                 if ("approval_url".equals(link.getRel())) {
                     response.put("redirect_url", link.getHref());
                 }
             }
+            paymentOrchestrationService.register(createdPayment.getId(), charge);
             response.put("payment_id", createdPayment.getId());
             return ResponseEntity.ok(response);
         } catch (PayPalRESTException e) {
@@ -62,21 +83,38 @@ public class PaymentController {
         return ResponseEntity.ok("Le paiement a été annulé.");
     }
 
-    // 3. Paiement validé avec succès
+    // 3. Paiement approuvé : l'exécution est traitée en arrière-plan
     @GetMapping("/success")
     public ResponseEntity<?> successPayment(@RequestParam("paymentId") String paymentId,
                                             @RequestParam("PayerID") String payerId) {
-        try {
-            Payment payment = Payment.get(apiContext, paymentId);
-
-            PaymentExecution paymentExecution = new PaymentExecution();
-            paymentExecution.setPayerId(payerId);
+        PaymentRecord record = paymentOrchestrationService.approve(paymentId, payerId);
+        if (record == null) {
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("error", "Paiement introuvable"));
+        }
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(Map.of(
+                "paymentId", paymentId,
+                "status", record.getStatus(),
+                "message", "Paiement approuvé, exécution en cours."
+        ));
+    }
 
-            Payment executedPayment = payment.execute(apiContext, paymentExecution);
+    // 4. Suivi de l'état d'un paiement, réservé au client qui l'a créé
+    @GetMapping("/{paymentId}")
+    public ResponseEntity<?> getPaymentStatus(@AuthenticationPrincipal UserDetails userDetails,
+                                              @PathVariable String paymentId) {
+        return ResponseEntity.ok(paymentOrchestrationService.findForClient(userDetails.getUsername(), paymentId));
+    }
 
-            return ResponseEntity.ok("Paiement effectué avec succès : " + executedPayment.getId());
-        } catch (PayPalRESTException e) {
-            return ResponseEntity.badRequest().body("Erreur lors de l’exécution du paiement : " + e.getMessage());
+    // 5. Notifications webhook PayPal : acquittement une fois enregistrées, traitement par lots en arrière-plan
+    @PostMapping("/webhook")
+    public ResponseEntity<?> receiveWebhook(@RequestHeader HttpHeaders headers, @RequestBody String body) {
+        if (!paymentWebhookService.verify(headers, body)) {
+            return ResponseEntity.badRequest().body(Map.of("error", "Signature invalide"));
+        }
+        if (!paymentWebhookService.enqueue(body)) {
+            // PayPal renvoie la notification plus tard en cas de réponse non 2xx
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
         }
+        return ResponseEntity.ok().build();
     }
 }
@@ -0,0 +1,74 @@
+package tn.fst.proxiserve.controller;
+
+import java.util.Map;
+
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+import lombok.RequiredArgsConstructor;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import tn.fst.proxiserve.dto.RatingStatsView;
+import tn.fst.proxiserve.dto.ReviewView;
+import tn.fst.proxiserve.model.Artisan;
+import tn.fst.proxiserve.service.ReactiveSearchService;
+
+/**
+ * Version non bloquante des lectures de recherche et d'avis (profil "reactive").
+ *
+ * Les chemins reprennent ceux de la version servlet sous le préfixe /api/reactive, ce qui permet
+ * de comparer les deux implémentations sur la même instance. Aucun thread n'est retenu pendant
+ * l'attente de MongoDB. Avec Accept: application/x-ndjson, les résultats sont envoyés au fil de
+ * l'eau et la lecture du curseur suit le rythme du client ; sinon un tableau JSON est renvoyé.
+ */
+@RestController
+@RequestMapping("/api/reactive")
+@Profile("reactive")
+@RequiredArgsConstructor
+public class ReactiveSearchController {
+
+    private final ReactiveSearchService reactiveSearchService;
+
+    @GetMapping(value = "/artisans/nearby", produces = { MediaType.APPLICATION_NDJSON_VALUE, MediaType.APPLICATION_JSON_VALUE })
+    @PreAuthorize("hasAuthority('ROLE_CLIENT')")
+    public Flux<Artisan> getNearbyArtisans(@RequestParam double latitude,
+                                           @RequestParam double longitude,
+                                           @RequestParam double radius,
+                                           @RequestParam(required = false) String category,
+                                           @RequestParam(required = false) String profession) {
+        if (radius <= 0 || latitude < -90 || latitude > 90 || longitude < -180 || longitude > 180) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Coordonnées ou rayon invalides");
+        }
+        return reactiveSearchService.findNearbyArtisans(latitude, longitude, radius, category, profession);
+    }
+
+    @GetMapping(value = "/services/search/advanced", produces = { MediaType.APPLICATION_NDJSON_VALUE, MediaType.APPLICATION_JSON_VALUE })
+    public Flux<Map<String, Object>> advancedSearch(@RequestParam(required = false) String query,
+                                                    @RequestParam(required = false) String category,
+                                                    @RequestParam double latitude,
+                                                    @RequestParam double longitude,
+                                                    @RequestParam(defaultValue = "10.0") double radiusKm,
+                                                    @RequestParam(defaultValue = "0") int page,
+                                                    @RequestParam(defaultValue = "10") int size,
+                                                    @RequestParam(defaultValue = "distance") String sortBy) {
+        return reactiveSearchService.advancedSearch(query, category, latitude, longitude, radiusKm, page, size, sortBy);
+    }
+
+    @GetMapping(value = "/reviews/artisan/{artisanId}", produces = { MediaType.APPLICATION_NDJSON_VALUE, MediaType.APPLICATION_JSON_VALUE })
+    public Flux<ReviewView> getReviewsByArtisan(@PathVariable String artisanId) {
+        return reactiveSearchService.reviewsOf(artisanId);
+    }
+
+    @GetMapping("/reviews/stats/{artisanId}")
+    public Mono<RatingStatsView> getStatsForArtisan(@PathVariable String artisanId) {
+        return reactiveSearchService.ratingStats(artisanId);
+    }
+}
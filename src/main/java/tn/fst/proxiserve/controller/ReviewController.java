@@ -4,6 +4,7 @@ import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
@@ -14,18 +15,22 @@ import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import tn.fst.proxiserve.config.HttpCachePolicies;
 import tn.fst.proxiserve.dto.RatingStatsView;
 import tn.fst.proxiserve.dto.ReviewView;
 import tn.fst.proxiserve.model.Review;
 import tn.fst.proxiserve.model.User;
 import tn.fst.proxiserve.repository.ReviewRepository;
 import tn.fst.proxiserve.repository.UserRepository;
+import tn.fst.proxiserve.service.ResourceVersionService;
 import tn.fst.proxiserve.service.ReviewService;
+import tn.fst.proxiserve.service.StatsRollupService;
 
 @RestController
 @RequestMapping("/api/reviews")
@@ -36,6 +41,9 @@ public class ReviewController {
     private final UserRepository userRepository;
 
     private final ReviewService reviewService;
+    private final StatsRollupService statsRollupService;
+    private final ResourceVersionService resourceVersionService;
+    private final HttpCachePolicies httpCachePolicies;
 
     // ✅ Ajouter un avis
     @PostMapping
@@ -48,12 +56,19 @@ public class ReviewController {
         review.setCreatedAt(LocalDateTime.now());
 
         Review saved = reviewRepository.save(review);
+        statsRollupService.reviewAdded(saved);
+        resourceVersionService.changed(ResourceVersionService.artisanReviews(saved.getArtisanId()));
         return ResponseEntity.ok(saved);
     }
 
     // ✅ Voir les avis d’un artisan (ReviewView)
     @GetMapping("/artisan/{artisanId}")
-    public ResponseEntity<List<ReviewView>> getReviewsByArtisan(@PathVariable String artisanId) {
+    public ResponseEntity<List<ReviewView>> getReviewsByArtisan(@PathVariable String artisanId,
+                                                                @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        String etag = resourceVersionService.etag(ResourceVersionService.artisanReviews(artisanId));
+        if (ResourceVersionService.matches(ifNoneMatch, etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).cacheControl(httpCachePolicies.reviews()).build();
+        }
         List<Review> reviews = reviewRepository.findByArtisanId(artisanId);
 
         List<ReviewView> reviewViews = reviews.stream().map(review -> {
@@ -69,7 +84,7 @@ public class ReviewController {
             );
         }).toList();
 
-        return ResponseEntity.ok(reviewViews);
+        return ResponseEntity.ok().eTag(etag).cacheControl(httpCachePolicies.reviews()).body(reviewViews);
     }
 
     // ✅ Supprimer un avis (par le client ou l'admin)
@@ -92,13 +107,21 @@ public class ReviewController {
         }
 
         reviewRepository.deleteById(reviewId);
+        statsRollupService.reviewRemoved(review);
+        resourceVersionService.changed(ResourceVersionService.artisanReviews(review.getArtisanId()));
         return ResponseEntity.ok("Avis supprimé avec succès.");
     }
 
     // ✅ Statistiques d’un artisan : moyenne, nb d’avis, etc.
     @GetMapping("/stats/{artisanId}")
-    public ResponseEntity<RatingStatsView> getStatsForArtisan(@PathVariable String artisanId) {
+    public ResponseEntity<RatingStatsView> getStatsForArtisan(@PathVariable String artisanId,
+                                                              @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        // Même compteur que la liste des avis : les statistiques changent avec elle
+        String etag = resourceVersionService.etag(ResourceVersionService.artisanReviews(artisanId));
+        if (ResourceVersionService.matches(ifNoneMatch, etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).cacheControl(httpCachePolicies.reviewStats()).build();
+        }
         RatingStatsView stats = reviewService.getRatingStatsForArtisan(artisanId);
-        return ResponseEntity.ok(stats);
+        return ResponseEntity.ok().eTag(etag).cacheControl(httpCachePolicies.reviewStats()).body(stats);
     }
 }
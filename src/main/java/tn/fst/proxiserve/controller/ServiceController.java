@@ -4,6 +4,10 @@ import java.security.Principal;
 import java.util.List;
 import java.util.Optional;
 
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.web.PageableDefault;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
@@ -14,18 +18,28 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.server.ResponseStatusException;
 
 import lombok.RequiredArgsConstructor;
+import tn.fst.proxiserve.cache.ServiceCache;
+import tn.fst.proxiserve.config.HttpCachePolicies;
+import tn.fst.proxiserve.dto.BulkResultView;
 import tn.fst.proxiserve.dto.ServiceRequest;
+import tn.fst.proxiserve.dto.ServiceUpdateItem;
+import tn.fst.proxiserve.dto.SliceView;
 import tn.fst.proxiserve.model.Artisan;
 import tn.fst.proxiserve.model.ServiceEntity;
 import tn.fst.proxiserve.model.User;
 import tn.fst.proxiserve.repository.ArtisanRepository;
 import tn.fst.proxiserve.repository.ServiceRepository;
 import tn.fst.proxiserve.repository.UserRepository;
+import tn.fst.proxiserve.service.ListingService;
+import tn.fst.proxiserve.service.ResourceVersionService;
+import tn.fst.proxiserve.service.ServiceBulkService;
 
 @RestController
 @RequestMapping("/api/services")
@@ -35,6 +49,11 @@ public class ServiceController {
     private final ServiceRepository serviceRepository;
     private final ArtisanRepository artisanRepository;
     private final UserRepository userRepository;
+    private final ListingService listingService;
+    private final ServiceCache serviceCache;
+    private final ServiceBulkService serviceBulkService;
+    private final ResourceVersionService resourceVersionService;
+    private final HttpCachePolicies httpCachePolicies;
 
     @PostMapping
     public ResponseEntity<?> createService(@RequestBody ServiceRequest request, Principal principal) {
@@ -50,43 +69,86 @@ public class ServiceController {
         service.setPrice(request.getPrice());
         service.setArtisanId(artisan.getId());
 
-        serviceRepository.save(service);
+        serviceCache.save(service);
+        resourceVersionService.changed(ResourceVersionService.SERVICES,
+                ResourceVersionService.service(service.getId()),
+                ResourceVersionService.artisanServices(artisan.getId()));
 
         return ResponseEntity.ok("Service créé avec succès");
     }
 
-    // Récupérer tous les services
+    // Créer plusieurs services en un seul aller-retour (ordered=true : arrêt à la première erreur)
+    @PostMapping("/bulk")
+    public ResponseEntity<BulkResultView> createServices(@RequestBody List<ServiceRequest> requests,
+                                                         @RequestParam(defaultValue = "false") boolean ordered,
+                                                         Principal principal) {
+        return ResponseEntity.ok(serviceBulkService.create(principal.getName(), requests, ordered));
+    }
+
+    // Modifier plusieurs services de l'artisan connecté
+    @PutMapping("/bulk")
+    public ResponseEntity<BulkResultView> updateServices(@RequestBody List<ServiceUpdateItem> items,
+                                                         @RequestParam(defaultValue = "false") boolean ordered,
+                                                         Principal principal) {
+        return ResponseEntity.ok(serviceBulkService.update(principal.getName(), items, ordered));
+    }
+
+    // Supprimer plusieurs services de l'artisan connecté (liste d'identifiants)
+    @PostMapping("/bulk/delete")
+    public ResponseEntity<BulkResultView> deleteServices(@RequestBody List<String> ids,
+                                                         @RequestParam(defaultValue = "false") boolean ordered,
+                                                         Principal principal) {
+        return ResponseEntity.ok(serviceBulkService.delete(principal.getName(), ids, ordered));
+    }
+
+    // Récupérer les services page par page (filtres optionnels : artisan, fourchette de prix)
 
     @GetMapping
-    public ResponseEntity<List<ServiceEntity>> getAllServices() {
-        List<ServiceEntity> services = serviceRepository.findAll();
-        return ResponseEntity.ok(services);
+    public ResponseEntity<SliceView<ServiceEntity>> getAllServices(@RequestParam(required = false) String artisanId,
+                                                                   @RequestParam(required = false) Double minPrice,
+                                                                   @RequestParam(required = false) Double maxPrice,
+                                                                   @PageableDefault(size = 20) Pageable pageable,
+                                                                   @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        String etag = resourceVersionService.etag(ResourceVersionService.SERVICES);
+        if (ResourceVersionService.matches(ifNoneMatch, etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).cacheControl(httpCachePolicies.servicesList()).build();
+        }
+        Slice<ServiceEntity> services = listingService.listServices(artisanId, minPrice, maxPrice, pageable);
+        return ResponseEntity.ok().eTag(etag).cacheControl(httpCachePolicies.servicesList()).body(SliceView.of(services));
     }
 
     // Récupérer un service par son ID
 
     @GetMapping("/{id}")
-    public ResponseEntity<?> getServiceById(@PathVariable String id) {
-        Optional<ServiceEntity> serviceOpt = serviceRepository.findById(id);
+    public ResponseEntity<?> getServiceById(@PathVariable String id,
+                                            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        // Version vérifiée avant toute lecture du service
+        String etag = resourceVersionService.etag(ResourceVersionService.service(id));
+        if (ResourceVersionService.matches(ifNoneMatch, etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).cacheControl(httpCachePolicies.serviceDetail()).build();
+        }
+        Optional<ServiceEntity> serviceOpt = serviceCache.findById(id);
         
         if (serviceOpt.isEmpty()) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND)
                                 .body("Service non trouvé avec l'ID : " + id);
         }
 
-        return ResponseEntity.ok(serviceOpt.get());
+        return ResponseEntity.ok().eTag(etag).cacheControl(httpCachePolicies.serviceDetail()).body(serviceOpt.get());
 }
     // Mettre à jour un service
     @PutMapping("/{id}")
     public ResponseEntity<?> updateService(@PathVariable String id, @RequestBody ServiceEntity serviceUpdate) {
-        Optional<ServiceEntity> existingServiceOpt = serviceRepository.findById(id);
+        Optional<ServiceEntity> existingServiceOpt = serviceCache.findById(id);
 
         if (existingServiceOpt.isEmpty()) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND)
                                 .body("Service non trouvé avec l'ID : " + id);
         }
 
-        ServiceEntity existingService = existingServiceOpt.get();
+        // Copie : l'instance partagée du cache n'est jamais modifiée, même si l'enregistrement échoue
+        ServiceEntity existingService = ServiceCache.copyOf(existingServiceOpt.get());
+        String previousArtisanId = existingService.getArtisanId();
 
        // Mettre à jour uniquement les champs non-nuls du service envoyé
         if (serviceUpdate.getTitle() != null) {
@@ -102,7 +164,11 @@ public class ServiceController {
         if (serviceUpdate.getArtisanId() != null)
             existingService.setArtisanId(serviceUpdate.getArtisanId());
 
-        serviceRepository.save(existingService);
+        serviceCache.save(existingService);
+        resourceVersionService.changed(ResourceVersionService.SERVICES,
+                ResourceVersionService.service(id),
+                ResourceVersionService.artisanServices(previousArtisanId),
+                ResourceVersionService.artisanServices(existingService.getArtisanId()));
 
         return ResponseEntity.ok(existingService);
     }
@@ -113,7 +179,7 @@ public class ServiceController {
             @PathVariable String id,
             @AuthenticationPrincipal UserDetails userDetails) {
 
-        Optional<ServiceEntity> serviceOpt = serviceRepository.findById(id);
+        Optional<ServiceEntity> serviceOpt = serviceCache.findById(id);
 
         if (serviceOpt.isEmpty()) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND)
@@ -134,7 +200,8 @@ public class ServiceController {
 
     // ADMIN peut tout supprimer
     if ("ROLE_ADMIN".equals(role)) {
-        serviceRepository.deleteById(id);
+        serviceCache.deleteById(id);
+        serviceDeleted(service);
         return ResponseEntity.ok("Service supprimé par l'admin");
     }
 
@@ -153,7 +220,8 @@ public class ServiceController {
                                 .body("Vous n'avez pas le droit de supprimer ce service.");
         }
 
-        serviceRepository.deleteById(id);
+        serviceCache.deleteById(id);
+        serviceDeleted(service);
         return ResponseEntity.ok("Service supprimé par son propriétaire");
     }
 
@@ -163,9 +231,20 @@ public class ServiceController {
 
     // Récupérer les services d'un artisan
     @GetMapping("/artisan/{artisanId}")
-    public ResponseEntity<List<ServiceEntity>> getServicesByArtisan(@PathVariable String artisanId) {
+    public ResponseEntity<List<ServiceEntity>> getServicesByArtisan(@PathVariable String artisanId,
+                                                                    @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        String etag = resourceVersionService.etag(ResourceVersionService.artisanServices(artisanId));
+        if (ResourceVersionService.matches(ifNoneMatch, etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).cacheControl(httpCachePolicies.artisanServices()).build();
+        }
         List<ServiceEntity> services = serviceRepository.findByArtisanId(artisanId);
-        return ResponseEntity.ok(services);
+        return ResponseEntity.ok().eTag(etag).cacheControl(httpCachePolicies.artisanServices()).body(services);
+    }
+
+    private void serviceDeleted(ServiceEntity service) {
+        resourceVersionService.changed(ResourceVersionService.SERVICES,
+                ResourceVersionService.service(service.getId()),
+                ResourceVersionService.artisanServices(service.getArtisanId()));
     }
 
 
@@ -16,10 +16,11 @@ import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import lombok.RequiredArgsConstructor;
+import tn.fst.proxiserve.cache.ArtisanCache;
 import tn.fst.proxiserve.model.Artisan;
 import tn.fst.proxiserve.model.ServiceEntity;
-import tn.fst.proxiserve.repository.ArtisanRepository;
-import tn.fst.proxiserve.repository.ServiceRepository;
+import tn.fst.proxiserve.repository.read.ServiceReadRepository;
+import tn.fst.proxiserve.service.ArtisanCategoryIndex;
 import tn.fst.proxiserve.service.ArtisanService;
 
 @RestController
@@ -27,11 +28,12 @@ import tn.fst.proxiserve.service.ArtisanService;
 @RequiredArgsConstructor
 public class ServiceSearchController {
 
-    private final ServiceRepository serviceRepository;
-    private final ArtisanRepository artisanRepository;
+    private final ServiceReadRepository serviceRepository;
+    private final ArtisanCache artisanCache;
     
 
     private final ArtisanService artisanService;
+    private final ArtisanCategoryIndex artisanCategoryIndex;
 
 
     
@@ -39,6 +41,7 @@ public class ServiceSearchController {
     @GetMapping("/advanced")
     public ResponseEntity<List<Map<String, Object>>> advancedSearch(
             @RequestParam(required = false) String query,
+            @RequestParam(required = false) String category,
             @RequestParam double latitude,
             @RequestParam double longitude,
             @RequestParam(defaultValue = "10.0") double radiusKm,
@@ -48,9 +51,16 @@ public class ServiceSearchController {
 
         List<ServiceEntity> services = serviceRepository.findAll();
         List<Map<String, Object>> results = new ArrayList<>();
+        // Artisans de tous les services en une seule lecture (cache, puis base pour les absents)
+        Map<String, Artisan> artisansById = artisanCache.findAllById(
+                services.stream().map(ServiceEntity::getArtisanId).toList());
 
         for (ServiceEntity service : services) {
-            Optional<Artisan> artisanOpt = artisanRepository.findById(service.getArtisanId());
+            if (category != null && !category.isBlank()
+                    && !artisanCategoryIndex.hasCategory(category, service.getArtisanId())) {
+                continue;
+            }
+            Optional<Artisan> artisanOpt = Optional.ofNullable(artisansById.get(service.getArtisanId()));
             if (artisanOpt.isPresent()) {
                 Artisan artisan = artisanOpt.get();
                 GeoJsonPoint loc = artisan.getLocation();
@@ -0,0 +1,20 @@
+package tn.fst.proxiserve.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Résultat d'un élément d'une opération groupée.
+ * Statuts : CREATED, UPDATED, DELETED, INVALID, NOT_FOUND, FORBIDDEN, FAILED,
+ * SKIPPED (non exécuté après une erreur en mode ordonné).
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class BulkItemResult {
+    private int index;
+    private String id;
+    private String status;
+    private String error;
+}
@@ -0,0 +1,29 @@
+package tn.fst.proxiserve.dto;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * Réponse d'une opération groupée : un résultat par élément, dans l'ordre de la requête.
+ */
+@Data
+@AllArgsConstructor
+public class BulkResultView {
+    private boolean ordered;
+    private int requested;
+    private int succeeded;
+    private int failed;
+    private List<BulkItemResult> items;
+
+    public static BulkResultView of(boolean ordered, List<BulkItemResult> items) {
+        int succeeded = (int) items.stream()
+                .filter(item -> switch (item.getStatus()) {
+                    case "CREATED", "UPDATED", "DELETED" -> true;
+                    default -> false;
+                })
+                .count();
+        return new BulkResultView(ordered, items.size(), succeeded, items.size() - succeeded, items);
+    }
+}
@@ -0,0 +1,35 @@
+package tn.fst.proxiserve.dto;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class DashboardView {
+    private LocalDateTime from;
+    private LocalDateTime to;
+    private long bookingsCreated;
+    private Map<String, Long> bookingsByStatus;   // ex : {PENDING=4, COMPLETED=12}
+    private long paidBookings;
+    private double revenue;
+    private Map<String, Long> signupsByRole;      // ex : {ROLE_CLIENT=20, ROLE_ARTISAN=5}
+    private Map<String, Long> reviewsByRating;    // ex : {5=3, 4=1}
+    private double averageRating;
+    private List<Point> daily;                    // Une entrée par jour
+    private List<Point> last24Hours;              // Une entrée par heure
+
+    @Data
+    @AllArgsConstructor
+    public static class Point {
+        private LocalDateTime periodStart;
+        private long bookingsCreated;
+        private long paidBookings;
+        private double revenue;
+        private long signups;
+        private long reviews;
+    }
+}
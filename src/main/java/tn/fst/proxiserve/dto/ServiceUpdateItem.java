@@ -0,0 +1,14 @@
+package tn.fst.proxiserve.dto;
+
+import lombok.Data;
+
+/**
+ * Modification d'un service dans une mise à jour groupée : seuls les champs non nuls sont appliqués.
+ */
+@Data
+public class ServiceUpdateItem {
+    private String id;
+    private String title;
+    private String description;
+    private Double price;
+}
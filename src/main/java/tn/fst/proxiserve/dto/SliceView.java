@@ -0,0 +1,27 @@
+package tn.fst.proxiserve.dto;
+
+import java.util.List;
+
+import org.springframework.data.domain.Slice;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+/**
+ * Page de résultats sans comptage total : seul l'existence d'une page suivante est connue
+ * (une ligne de plus est lue), ce qui évite un count() sur toute la collection.
+ */
+@Data
+@AllArgsConstructor
+public class SliceView<T> {
+    private List<T> content;
+    private int page;
+    private int size;
+    private boolean hasNext;
+    private String sort;
+
+    public static <T> SliceView<T> of(Slice<T> slice) {
+        return new SliceView<>(slice.getContent(), slice.getNumber(), slice.getSize(), slice.hasNext(),
+                slice.getSort().isSorted() ? slice.getSort().toString() : null);
+    }
+}
@@ -0,0 +1,29 @@
+package tn.fst.proxiserve.dto;
+
+import java.time.LocalDateTime;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import tn.fst.proxiserve.model.User;
+
+/**
+ * Utilisateur tel qu'affiché dans les listes d'administration
+ * (ni mot de passe, ni jeton, ni champs de sécurité internes).
+ */
+@Data
+@AllArgsConstructor
+public class UserView {
+
+    private String id;
+    private String email;
+    private String fullName;
+    private String phoneNumber;
+    private String role;
+    private boolean accountLocked;
+    private LocalDateTime createdAt;
+
+    public static UserView of(User user) {
+        return new UserView(user.getId(), user.getEmail(), user.getFullName(), user.getPhoneNumber(),
+                user.getRole(), user.isAccountLocked(), user.getCreatedAt());
+    }
+}
@@ -0,0 +1,19 @@
+package tn.fst.proxiserve.health;
+
+import org.springframework.boot.actuate.health.Status;
+
+/**
+ * Statuts de santé des services externes (PayPal, SMTP).
+ */
+public final class ExternalServiceStatus {
+
+    /**
+     * Service externe injoignable : les fonctionnalités qui en dépendent échouent,
+     * le reste de l'application (recherche, réservations) continue de répondre.
+     * Déclaré dans management.endpoint.health.status.order et renvoyé en HTTP 200.
+     */
+    public static final Status DEGRADED = new Status("DEGRADED");
+
+    private ExternalServiceStatus() {
+    }
+}
@@ -0,0 +1,40 @@
+package tn.fst.proxiserve.health;
+
+import java.util.Date;
+
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Component;
+
+import tn.fst.proxiserve.service.PayPalGateway;
+
+/**
+ * Santé de la passerelle PayPal d'après le jeton OAuth en cache.
+ * Aucun appel réseau : l'état reflète la dernière tentative de PayPalGateway.
+ */
+@Component("paypal")
+public class PayPalHealthIndicator implements HealthIndicator {
+
+    private final PayPalGateway payPalGateway;
+
+    public PayPalHealthIndicator(@Lazy PayPalGateway payPalGateway) {
+        this.payPalGateway = payPalGateway;
+    }
+
+    @Override
+    public Health health() {
+        long lastAttempt = payPalGateway.lastAttemptAtMillis();
+        if (payPalGateway.hasValidToken()) {
+            return Health.up().withDetail("lastTokenRequest", new Date(lastAttempt)).build();
+        }
+        String failure = payPalGateway.lastFailure();
+        if (failure != null) {
+            return Health.status(ExternalServiceStatus.DEGRADED)
+                    .withDetail("lastTokenRequest", new Date(lastAttempt))
+                    .withDetail("error", failure)
+                    .build();
+        }
+        return Health.unknown().withDetail("reason", "Jeton PayPal pas encore demandé").build();
+    }
+}
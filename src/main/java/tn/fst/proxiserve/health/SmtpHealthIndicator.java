@@ -0,0 +1,42 @@
+package tn.fst.proxiserve.health;
+
+import java.util.Date;
+
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Component;
+
+import tn.fst.proxiserve.service.MailService;
+
+/**
+ * Santé du serveur SMTP d'après la dernière vérification ou le dernier envoi de MailService.
+ * Remplace l'indicateur mail de Spring Boot, qui ouvre une connexion SMTP à chaque appel.
+ */
+@Component("smtp")
+public class SmtpHealthIndicator implements HealthIndicator {
+
+    private final MailService mailService;
+
+    public SmtpHealthIndicator(@Lazy MailService mailService) {
+        this.mailService = mailService;
+    }
+
+    @Override
+    public Health health() {
+        Boolean reachable = mailService.isReachable();
+        if (reachable == null) {
+            return Health.unknown()
+                    .withDetail("reason", "Connexion SMTP pas encore vérifiée")
+                    .withDetail("pending", mailService.pendingCount())
+                    .build();
+        }
+        Health.Builder builder = reachable ? Health.up() : Health.status(ExternalServiceStatus.DEGRADED);
+        builder.withDetail("lastCheck", new Date(mailService.lastCheckAtMillis()))
+                .withDetail("pending", mailService.pendingCount());
+        if (!reachable) {
+            builder.withDetail("error", mailService.lastFailure());
+        }
+        return builder.build();
+    }
+}
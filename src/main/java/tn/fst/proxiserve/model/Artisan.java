@@ -1,13 +1,16 @@
 package tn.fst.proxiserve.model;
 
+import java.text.Normalizer;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Locale;
 
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.Id;
 import org.springframework.data.mongodb.core.geo.GeoJsonPoint;
 import org.springframework.data.mongodb.core.index.GeoSpatialIndexType;
 import org.springframework.data.mongodb.core.index.GeoSpatialIndexed;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import jakarta.validation.constraints.NotBlank;
@@ -56,6 +59,13 @@ public class Artisan {
     @Size(min = 1, message = "L'artisan doit proposer au moins un service")
     private List<String> serviceCategories;
 
+    /** Profession normalisée (minuscules, sans accents) : permet une recherche exacte sur index */
+    @Indexed
+    private String professionKey;
+
+    /** Catégories normalisées (minuscules, sans accents) : index multiclé utilisé à la place des regex */
+    @Indexed
+    private List<String> categoryKeys;
 
 
     /** Localisation géographique pour la recherche de proximité */
@@ -69,5 +79,35 @@ public class Artisan {
     @org.springframework.data.annotation.Transient
     private Double averageRating;
 
-   
+    /**
+     * Met à jour la profession et sa clé normalisée.
+     * @param profession Profession saisie par l'artisan.
+     */
+    public void setProfession(String profession) {
+        this.profession = profession;
+        this.professionKey = normalizeKey(profession);
+    }
+
+    /**
+     * Met à jour les catégories de services et leurs clés normalisées.
+     * @param serviceCategories Catégories saisies par l'artisan.
+     */
+    public void setServiceCategories(List<String> serviceCategories) {
+        this.serviceCategories = serviceCategories;
+        this.categoryKeys = serviceCategories == null ? null
+                : serviceCategories.stream().map(Artisan::normalizeKey).distinct().toList();
+    }
+
+    /**
+     * Normalise une valeur de recherche : suppression des espaces superflus, des accents et passage en minuscules.
+     * @param value Valeur brute (ex : "Électricien ").
+     * @return Clé normalisée (ex : "electricien"), ou null si la valeur est nulle.
+     */
+    public static String normalizeKey(String value) {
+        if (value == null) {
+            return null;
+        }
+        String decomposed = Normalizer.normalize(value.trim(), Normalizer.Form.NFD);
+        return decomposed.replaceAll("\\p{M}", "").toLowerCase(Locale.ROOT);
+    }
 }
@@ -4,30 +4,48 @@ import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.springframework.data.annotation.Id;
-import org.springframework.data.mongodb.core.mapping.DBRef;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
 import org.springframework.data.mongodb.core.mapping.Document;
 import java.time.LocalDateTime;
 
+/**
+ * Réservation d'un service par un client.
+ * Client, service et artisan sont référencés par identifiant (pas de @DBRef) et lus par lots
+ * avec {@link tn.fst.proxiserve.service.ReferenceResolver}.
+ */
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
+@WritePolicy(WriteClass.CRITICAL)
 @Document(collection = "bookings")
+// Boîte de réception artisan : égalité (artisanId, status) puis tri / plage sur bookingDate
+@CompoundIndexes({
+        @CompoundIndex(name = "artisan_status_date_idx", def = "{'artisanId': 1, 'status': 1, 'bookingDate': 1}"),
+        @CompoundIndex(name = "artisan_date_idx", def = "{'artisanId': 1, 'bookingDate': 1}"),
+        // Historique client paginé, plus récentes d'abord (même index dans bookings_archive)
+        @CompoundIndex(name = "client_date_idx", def = "{'clientId': 1, 'bookingDate': -1}"),
+        // Expiration des réservations PENDING (date passée ou ancienneté)
+        @CompoundIndex(name = "status_date_idx", def = "{'status': 1, 'bookingDate': 1}"),
+        @CompoundIndex(name = "status_created_idx", def = "{'status': 1, 'createdAt': 1}")
+})
 public class Booking {
     @Id
     private String id;
-    @DBRef 
-    private Client client;        // Client ayant effectué la réservation
-    @DBRef
-    private ServiceEntity service; // Service réservé
     private String clientId;       // ID du client ayant effectué la réservation
     private String artisanId;      // ID de l'artisan concerné
     private String serviceId;      // ID du service réservé
 
     private LocalDateTime bookingDate;   // Date à laquelle le service est demandé
-    private String status;               // Status : PENDING, CONFIRMED, CANCELLED, COMPLETED
+    private String status;               // Status : PENDING, CONFIRMED, CANCELLED, COMPLETED, EXPIRED
+    private LocalDateTime expiredAt;     // Date de passage automatique à EXPIRED
     private String paymentStatus = "UNPAID"; // UNPAID ou PAID
     private String paymentMethod;            // paypal, cash, stripe...
     private boolean paymentCompleted = false;
+    private LocalDateTime paidAt;            // Date de passage à PAID
+    private String paidBy;                   // Lot d'écriture (réconciliation, webhooks) ayant fait passer à PAID
+    private LocalDateTime paymentEventAt;    // Date du dernier événement PayPal appliqué (webhook)
+    private String paymentEventId;           // Identifiant de cet événement
 
     private LocalDateTime createdAt = LocalDateTime.now(); // Date de création
 }
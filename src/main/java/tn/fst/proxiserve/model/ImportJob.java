@@ -0,0 +1,66 @@
+package tn.fst.proxiserve.model;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Import en masse de comptes (artisans ou clients) depuis un fichier NDJSON ou CSV.
+ * processedLines sert de point de reprise : les lignes déjà traitées ne sont pas relues
+ * lorsqu'un import interrompu est relancé.
+ *
+ * Cycle de vie : QUEUED → RUNNING → COMPLETED (ou FAILED / INTERRUPTED, puis reprise).
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@WritePolicy(WriteClass.FAST)
+@Document(collection = "import_jobs")
+public class ImportJob {
+
+    public static final String QUEUED = "QUEUED";
+    public static final String RUNNING = "RUNNING";
+    public static final String COMPLETED = "COMPLETED";
+    public static final String FAILED = "FAILED";
+    public static final String INTERRUPTED = "INTERRUPTED";
+
+    @Id
+    private String id;
+
+    /** artisans ou clients */
+    private String type;
+
+    /** CSV ou NDJSON */
+    private String format;
+
+    private String fileName;
+    private long fileSize;
+
+    /** État courant : QUEUED, RUNNING, COMPLETED, FAILED, INTERRUPTED */
+    @Indexed
+    private String status;
+
+    /** Lignes de données traitées et enregistrées (point de reprise) */
+    private long processedLines;
+
+    private long imported;
+    private long duplicates;
+    private long invalid;
+    private long failed;
+
+    /** Échantillon des erreurs rencontrées (borné) */
+    private List<String> errors = new ArrayList<>();
+
+    private String createdBy;
+    private LocalDateTime createdAt;
+    private LocalDateTime updatedAt;
+    private LocalDateTime finishedAt;
+}
@@ -0,0 +1,48 @@
+package tn.fst.proxiserve.model;
+
+import java.time.LocalDateTime;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Notification webhook PayPal vérifiée, enregistrée avant l'acquittement.
+ * L'identifiant de l'événement PayPal sert de clé primaire : une notification renvoyée
+ * par PayPal n'est stockée qu'une fois.
+ *
+ * Cycle de vie : PENDING → PROCESSED. Un événement reste PENDING tant que son lot
+ * n'a pas été appliqué aux réservations, et il est alors repris.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@WritePolicy(WriteClass.CRITICAL)
+@Document(collection = "payment_events")
+@CompoundIndex(name = "status_received_idx", def = "{'status': 1, 'receivedAt': 1}")
+public class PaymentEvent {
+
+    public static final String PENDING = "PENDING";
+    public static final String PROCESSED = "PROCESSED";
+
+    /** Identifiant de l'événement PayPal (WH-...) */
+    @Id
+    private String eventId;
+
+    /** Corps brut de la notification */
+    private String body;
+
+    /** État courant : PENDING ou PROCESSED */
+    private String status;
+
+    private LocalDateTime receivedAt;
+
+    /** Événements traités conservés 30 jours (PayPal renvoie une notification pendant 3 jours) */
+    @Indexed(name = "processed_ttl_idx", expireAfter = "30d")
+    private LocalDateTime processedAt;
+}
@@ -0,0 +1,74 @@
+package tn.fst.proxiserve.model;
+
+import java.time.LocalDateTime;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Suivi d'un paiement PayPal.
+ * L'identifiant PayPal du paiement sert de clé primaire : il garantit l'idempotence
+ * de l'exécution (une redirection rejouée ne déclenche pas une seconde exécution).
+ *
+ * Cycle de vie : CREATED → APPROVED → EXECUTED → RECONCILED (ou FAILED).
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@WritePolicy(WriteClass.CRITICAL)
+@Document(collection = "payments")
+public class PaymentRecord {
+
+    public static final String CREATED = "CREATED";
+    public static final String APPROVED = "APPROVED";
+    public static final String EXECUTED = "EXECUTED";
+    public static final String RECONCILED = "RECONCILED";
+    public static final String FAILED = "FAILED";
+
+    /** Identifiant du paiement PayPal (PAY-...) */
+    @Id
+    private String paymentId;
+
+    /** Réservation payée, vérifiée à la création du paiement (appartient au client payeur) */
+    @Indexed
+    private String bookingId;
+
+    /** Client propriétaire de la réservation, seul autorisé à consulter le paiement */
+    private String clientId;
+
+    /** Montant attendu, calculé côté serveur à partir du prix du service (ex : "25.00") */
+    private String amount;
+
+    /** Devise attendue */
+    private String currency;
+
+    /** Montant et devise effectivement exécutés, renvoyés par PayPal */
+    private String executedAmount;
+    private String executedCurrency;
+
+    /** Identifiant du payeur renvoyé par PayPal lors de l'approbation */
+    private String payerId;
+
+    /** État courant : CREATED, APPROVED, EXECUTED, RECONCILED, FAILED */
+    @Indexed
+    private String status;
+
+    /** Nombre de tentatives d'exécution */
+    private int attempts;
+
+    /** Dernière erreur PayPal rencontrée */
+    private String lastError;
+
+    /** Prise en charge par un worker (bail) : évite deux exécutions concurrentes */
+    private LocalDateTime claimedAt;
+
+    private LocalDateTime createdAt;
+    private LocalDateTime approvedAt;
+    private LocalDateTime executedAt;
+    private LocalDateTime reconciledAt;
+}
@@ -0,0 +1,29 @@
+package tn.fst.proxiserve.model;
+
+import java.time.LocalDateTime;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Compteur de modifications d'une ressource exposée en lecture (ex : service:{id}, artisan-reviews:{id}).
+ * Incrémenté à chaque écriture ; sa valeur forme l'ETag des réponses correspondantes.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "resource_versions")
+public class ResourceVersion {
+
+    /** Clé de la ressource */
+    @Id
+    private String id;
+
+    private long version;
+
+    private LocalDateTime updatedAt;
+}
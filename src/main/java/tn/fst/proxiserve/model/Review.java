@@ -17,6 +17,7 @@ import java.time.LocalDateTime;
 /**
  * Modèle représentant un avis laissé par un utilisateur sur un artisan.
  */
+@WritePolicy(WriteClass.FAST)
 @Document(collection = "reviews") // Stocke les avis dans une collection séparée
 @Data
 @NoArgsConstructor
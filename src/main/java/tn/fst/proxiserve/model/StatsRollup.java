@@ -0,0 +1,57 @@
+package tn.fst.proxiserve.model;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Agrégat statistique pré-calculé sur une période (jour ou heure).
+ * Identifiant déterministe (ex : DAY:2025-04-12, HOUR:2025-04-12T14) : les mises à jour
+ * incrémentales sont de simples upserts $inc sur un document connu.
+ *
+ * Rattachement des compteurs :
+ * - réservations : période de création, ventilées par statut courant ;
+ * - chiffre d'affaires : période de paiement (paidAt), prix du service réservé ;
+ * - inscriptions : période de création du compte, par rôle ;
+ * - avis : période de création, par note.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@WritePolicy(WriteClass.FAST)
+@Document(collection = "stats_rollups")
+@CompoundIndex(name = "granularity_period_idx", def = "{'granularity': 1, 'periodStart': 1}")
+public class StatsRollup {
+
+    public static final String DAY = "DAY";
+    public static final String HOUR = "HOUR";
+
+    @Id
+    private String id;
+
+    /** DAY ou HOUR */
+    private String granularity;
+
+    /** Début de la période (heure locale) */
+    private LocalDateTime periodStart;
+
+    private long bookingsCreated;
+    private Map<String, Long> bookingsByStatus = new HashMap<>();
+
+    private long paidBookings;
+    private double revenue;
+
+    private Map<String, Long> signupsByRole = new HashMap<>();
+    private Map<String, Long> reviewsByRating = new HashMap<>();
+
+    /** Dernière mise à jour (incrémentale ou recalcul) */
+    private LocalDateTime updatedAt;
+}
@@ -48,6 +48,7 @@ public class User implements UserDetails {
     private String password;
 
     @NotBlank(message = "Le rôle est requis")
+    @Indexed // Listes d'administration filtrées par rôle
     private String role; // ← Retour à String ici !
 
     @CreatedDate
@@ -60,6 +61,9 @@ public class User implements UserDetails {
     private String resetPasswordToken;
     private LocalDateTime tokenExpiration;
 
+    @Indexed(sparse = true)
+    private String importJobId; // Import en masse ayant créé le compte (reprise d'un import interrompu)
+
     @Override
     public Collection<? extends GrantedAuthority> getAuthorities() {
         return role != null ? List.of(new SimpleGrantedAuthority(role.trim())) : Collections.emptyList();
@@ -0,0 +1,17 @@
+package tn.fst.proxiserve.model;
+
+/**
+ * Classes d'écriture MongoDB, de la plus durable à la plus rapide.
+ * Le write concern associé à chaque classe est fixé par WriteConcernPolicy.
+ */
+public enum WriteClass {
+
+    /** Argent et engagements (réservations, paiements) : majorité du replica set + journal */
+    CRITICAL,
+
+    /** Comportement par défaut du serveur (acquittement simple) */
+    STANDARD,
+
+    /** Écritures fréquentes et reconstructibles (compteurs, agrégats, progression) : primaire seul, sans journal */
+    FAST
+}
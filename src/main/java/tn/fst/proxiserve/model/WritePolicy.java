@@ -0,0 +1,19 @@
+package tn.fst.proxiserve.model;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Classe d'écriture d'un document : toutes les écritures de MongoTemplate et des repositories
+ * sur ce type utilisent le write concern correspondant.
+ */
+@Documented
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface WritePolicy {
+
+    WriteClass value();
+}
@@ -53,12 +53,12 @@ public interface ArtisanRepository extends MongoRepository<Artisan, String> {
 
     /**
      * Recherche des artisans en fonction de leur profession.
-     * Insensible à la casse.
+     * Utilise la clé normalisée `professionKey` (index simple) au lieu d'une regex insensible à la casse.
      * 
-     * @param profession Nom de la profession.
+     * @param professionKey Profession normalisée via {@link Artisan#normalizeKey(String)}.
      * @return Liste des artisans ayant cette profession.
      */
-    List<Artisan> findByProfessionIgnoreCase(String profession);
+    List<Artisan> findByProfessionKey(String professionKey);
 
     /**
      * Recherche des artisans par nom d'entreprise.
@@ -71,22 +71,24 @@ public interface ArtisanRepository extends MongoRepository<Artisan, String> {
 
     /**
      * Recherche des artisans par catégorie de services.
+     * S'appuie sur l'index multiclé `categoryKeys`.
      * 
-     * @param category Nom de la catégorie de service.
+     * @param categoryKey Catégorie normalisée via {@link Artisan#normalizeKey(String)}.
      * @return Liste des artisans proposant ce service.
      */
-    List<Artisan> findByServiceCategoriesContainingIgnoreCase(String category);
+    List<Artisan> findByCategoryKeys(String categoryKey);
 
     /**
      * Recherche avancée : artisans par profession et localisation.
+     * Égalité sur `professionKey` combinée au filtre géospatial, sans regex.
      * 
-     * @param profession Profession de l'artisan (ex: Plombier, Électricien).
-     * @param location   Point de référence (latitude, longitude).
-     * @param distance   Rayon de recherche.
+     * @param professionKey Profession normalisée (ex: plombier, electricien).
+     * @param location      Point de référence (latitude, longitude).
+     * @param distance      Rayon de recherche en mètres.
      * @return Liste des artisans correspondant aux critères.
      */
-    @Query("{ 'profession': { $regex: ?0, $options: 'i' }, 'location': { $near: { $geometry: ?1, $maxDistance: ?2 } } }")
-    List<Artisan> findByProfessionAndLocation(String profession, Point location, double distance);
+    @Query("{ 'professionKey': ?0, 'location': { $near: { $geometry: ?1, $maxDistance: ?2 } } }")
+    List<Artisan> findByProfessionKeyAndLocation(String professionKey, Point location, double distance);
 
     /**
      * Recherche paginée des artisans pour améliorer les performances sur de grandes bases de données.
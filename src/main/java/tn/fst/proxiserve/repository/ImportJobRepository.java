@@ -0,0 +1,12 @@
+package tn.fst.proxiserve.repository;
+
+import java.util.List;
+
+import org.springframework.data.mongodb.repository.MongoRepository;
+
+import tn.fst.proxiserve.model.ImportJob;
+
+public interface ImportJobRepository extends MongoRepository<ImportJob, String> {
+
+    List<ImportJob> findTop20ByOrderByCreatedAtDesc();
+}
@@ -0,0 +1,12 @@
+package tn.fst.proxiserve.repository;
+
+import java.util.List;
+
+import org.springframework.data.mongodb.repository.MongoRepository;
+
+import tn.fst.proxiserve.model.PaymentRecord;
+
+public interface PaymentRecordRepository extends MongoRepository<PaymentRecord, String> {
+
+    List<PaymentRecord> findByBookingId(String bookingId);
+}
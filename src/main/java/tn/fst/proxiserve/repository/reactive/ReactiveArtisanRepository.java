@@ -0,0 +1,23 @@
+package tn.fst.proxiserve.repository.reactive;
+
+import org.springframework.data.geo.Distance;
+import org.springframework.data.geo.Point;
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+
+import reactor.core.publisher.Flux;
+import tn.fst.proxiserve.model.Artisan;
+
+/**
+ * Équivalent non bloquant de {@link tn.fst.proxiserve.repository.ArtisanRepository}
+ * pour les lectures du profil "reactive".
+ */
+public interface ReactiveArtisanRepository extends ReactiveMongoRepository<Artisan, String> {
+
+    /**
+     * Artisans dans le rayon donné, triés par distance (index 2dsphere sur location).
+     * @param location Point de référence (longitude, latitude).
+     * @param distance Rayon de recherche.
+     * @return Flux des artisans, émis au fil de la lecture du curseur.
+     */
+    Flux<Artisan> findByLocationNear(Point location, Distance distance);
+}
@@ -0,0 +1,14 @@
+package tn.fst.proxiserve.repository.reactive;
+
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+
+import reactor.core.publisher.Flux;
+import tn.fst.proxiserve.model.Review;
+
+/**
+ * Équivalent non bloquant de {@link tn.fst.proxiserve.repository.ReviewRepository}.
+ */
+public interface ReactiveReviewRepository extends ReactiveMongoRepository<Review, String> {
+
+    Flux<Review> findByArtisanId(String artisanId);
+}
@@ -0,0 +1,14 @@
+package tn.fst.proxiserve.repository.reactive;
+
+import org.springframework.data.mongodb.repository.ReactiveMongoRepository;
+
+import reactor.core.publisher.Flux;
+import tn.fst.proxiserve.model.ServiceEntity;
+
+/**
+ * Équivalent non bloquant de {@link tn.fst.proxiserve.repository.ServiceRepository}.
+ */
+public interface ReactiveServiceRepository extends ReactiveMongoRepository<ServiceEntity, String> {
+
+    Flux<ServiceEntity> findByArtisanId(String artisanId);
+}
@@ -0,0 +1,18 @@
+package tn.fst.proxiserve.repository.read;
+
+import java.util.List;
+
+import org.springframework.data.geo.Distance;
+import org.springframework.data.geo.Point;
+import org.springframework.data.repository.Repository;
+
+import tn.fst.proxiserve.model.Artisan;
+
+/**
+ * Lectures de recherche des artisans, servies par readMongoTemplate (secondaires si disponibles).
+ * Les écritures et les lectures qui suivent une écriture passent par ArtisanRepository.
+ */
+public interface ArtisanReadRepository extends Repository<Artisan, String> {
+
+    List<Artisan> findByLocationNear(Point location, Distance distance);
+}
@@ -0,0 +1,15 @@
+package tn.fst.proxiserve.repository.read;
+
+import java.util.List;
+
+import org.springframework.data.repository.Repository;
+
+import tn.fst.proxiserve.model.Review;
+
+/**
+ * Lectures publiques des avis, servies par readMongoTemplate (secondaires si disponibles).
+ */
+public interface ReviewReadRepository extends Repository<Review, String> {
+
+    List<Review> findByArtisanId(String artisanId);
+}
@@ -0,0 +1,15 @@
+package tn.fst.proxiserve.repository.read;
+
+import java.util.List;
+
+import org.springframework.data.repository.Repository;
+
+import tn.fst.proxiserve.model.ServiceEntity;
+
+/**
+ * Lectures de recherche des services, servies par readMongoTemplate (secondaires si disponibles).
+ */
+public interface ServiceReadRepository extends Repository<ServiceEntity, String> {
+
+    List<ServiceEntity> findAll();
+}
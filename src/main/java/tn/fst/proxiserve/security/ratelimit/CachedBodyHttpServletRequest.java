@@ -0,0 +1,102 @@
+package tn.fst.proxiserve.security.ratelimit;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+
+/**
+ * Requête dont le début du corps (au plus {@code maxPrefixBytes} octets) est lu une fois puis rejoué,
+ * afin que le filtre puisse en extraire l'identifiant du compte sans priver le contrôleur du corps.
+ * Le préfixe est lu quel que soit le Content-Length annoncé (corps chunked ou volumineux) ;
+ * la suite éventuelle du corps est lue depuis la requête d'origine.
+ */
+class CachedBodyHttpServletRequest extends HttpServletRequestWrapper {
+
+    private final byte[] prefix;
+    private final boolean truncated;
+
+    CachedBodyHttpServletRequest(HttpServletRequest request, int maxPrefixBytes) throws IOException {
+        super(request);
+        byte[] read = request.getInputStream().readNBytes(maxPrefixBytes + 1);
+        this.truncated = read.length > maxPrefixBytes;
+        this.prefix = read;
+    }
+
+    /**
+     * @return Début du corps (un octet de plus que la limite si le corps la dépasse).
+     */
+    byte[] getBody() {
+        return prefix;
+    }
+
+    /**
+     * @return true si le corps dépasse la limite inspectée.
+     */
+    boolean isTruncated() {
+        return truncated;
+    }
+
+    @Override
+    public ServletInputStream getInputStream() throws IOException {
+        ByteArrayInputStream cached = new ByteArrayInputStream(prefix);
+        ServletInputStream remainder = truncated ? super.getInputStream() : null;
+        return new ServletInputStream() {
+            @Override
+            public boolean isFinished() {
+                return cached.available() == 0 && (remainder == null || remainder.isFinished());
+            }
+
+            @Override
+            public boolean isReady() {
+                return cached.available() > 0 || remainder == null || remainder.isReady();
+            }
+
+            @Override
+            public void setReadListener(ReadListener listener) {
+                if (remainder != null) {
+                    // Suite du corps encore à lire : notifications de la requête d'origine
+                    remainder.setReadListener(listener);
+                    return;
+                }
+                // Corps entièrement en mémoire : disponible immédiatement
+                try {
+                    listener.onDataAvailable();
+                    listener.onAllDataRead();
+                } catch (IOException e) {
+                    listener.onError(e);
+                }
+            }
+
+            @Override
+            public int read() throws IOException {
+                if (cached.available() > 0) {
+                    return cached.read();
+                }
+                return remainder != null ? remainder.read() : -1;
+            }
+
+            @Override
+            public int read(byte[] buffer, int offset, int length) throws IOException {
+                if (cached.available() > 0) {
+                    return cached.read(buffer, offset, length);
+                }
+                return remainder != null ? remainder.read(buffer, offset, length) : -1;
+            }
+        };
+    }
+
+    @Override
+    public BufferedReader getReader() throws IOException {
+        String encoding = getCharacterEncoding();
+        return new BufferedReader(new InputStreamReader(getInputStream(),
+                encoding != null ? Charset.forName(encoding) : StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,37 @@
+package tn.fst.proxiserve.security.ratelimit;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Stockage en mémoire des seaux à jetons (un nœud).
+ */
+@Component
+public class InMemoryRateLimitStore implements RateLimitStore {
+
+    private final ConcurrentHashMap<String, TokenBucket> buckets = new ConcurrentHashMap<>();
+
+    @Override
+    public long tryConsume(String key, int capacity, double refillPerSecond) {
+        long now = System.nanoTime();
+        TokenBucket bucket = buckets.computeIfAbsent(key, k -> new TokenBucket(capacity, refillPerSecond, now));
+        long waitNanos = bucket.tryConsume(now);
+        return waitNanos == 0 ? 0 : Math.max(1, TimeUnit.NANOSECONDS.toMillis(waitNanos));
+    }
+
+    /**
+     * Supprime les seaux redevenus pleins pour borner la mémoire (IP et comptes de passage).
+     */
+    @Scheduled(fixedDelayString = "${ratelimit.eviction-interval-ms:300000}")
+    public void evictIdleBuckets() {
+        long now = System.nanoTime();
+        buckets.entrySet().removeIf(entry -> entry.getValue().isFull(now));
+    }
+
+    int size() {
+        return buckets.size();
+    }
+}
@@ -0,0 +1,148 @@
+package tn.fst.proxiserve.security.ratelimit;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.Locale;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Filtre de limitation de débit placé avant {@code JwtAuthenticationFilter}.
+ * Les routes coûteuses (BCrypt, recherche) sont protégées par des seaux à jetons
+ * indexés par route + IP et, pour les routes d'authentification, par route + compte.
+ */
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    private static final Logger logger = LoggerFactory.getLogger(RateLimitFilter.class);
+    private static final int MAX_INSPECTED_BODY_BYTES = 16 * 1024;
+
+    private final RateLimitStore store;
+    private final RateLimitProperties properties;
+    private final ObjectMapper objectMapper;
+
+    public RateLimitFilter(RateLimitStore store, RateLimitProperties properties, ObjectMapper objectMapper) {
+        this.store = store;
+        this.properties = properties;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !properties.isEnabled() || findRule(request) == null;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+
+        RateLimitProperties.Rule rule = findRule(request);
+        String route = rule.getMethod() + ":" + rule.getPath();
+
+        String ip = clientIp(request);
+        long waitMillis = consume(route + "|ip|" + ip, rule.getPerIp());
+
+        HttpServletRequest forwarded = request;
+        if (waitMillis == 0 && rule.getAccountField() != null) {
+            // Début du corps toujours inspecté, quel que soit le Content-Length (absent si chunked)
+            CachedBodyHttpServletRequest cached = new CachedBodyHttpServletRequest(request, MAX_INSPECTED_BODY_BYTES);
+            forwarded = cached;
+            String account = extractAccount(cached.getBody(), rule.getAccountField());
+            if (account != null) {
+                waitMillis = consume(route + "|account|" + account, rule.getPerAccount());
+            } else if (cached.isTruncated()) {
+                // Compte introuvable dans les premiers octets d'un corps volumineux : limite par compte contournée
+                logger.warn(" Corps trop volumineux sans compte identifiable : route={} ip={}", route, ip);
+                reject(request, response, HttpStatus.PAYLOAD_TOO_LARGE, "Corps de requête trop volumineux.");
+                return;
+            }
+        }
+
+        if (waitMillis > 0) {
+            logger.warn(" Limite de débit atteinte : route={} ip={}", route, ip);
+            long retryAfterSeconds = Math.max(1, (waitMillis + 999) / 1000);
+            response.setHeader("Retry-After", String.valueOf(retryAfterSeconds));
+            reject(request, response, HttpStatus.TOO_MANY_REQUESTS,
+                    "Veuillez réessayer dans " + retryAfterSeconds + " secondes.");
+            return;
+        }
+
+        filterChain.doFilter(forwarded, response);
+    }
+
+    private RateLimitProperties.Rule findRule(HttpServletRequest request) {
+        String path = request.getServletPath();
+        for (RateLimitProperties.Rule rule : properties.getRules()) {
+            if (rule.getPath().equals(path)
+                    && (rule.getMethod() == null || rule.getMethod().equalsIgnoreCase(request.getMethod()))) {
+                return rule;
+            }
+        }
+        return null;
+    }
+
+    private long consume(String key, RateLimitProperties.Limit limit) {
+        return store.tryConsume(key, limit.getCapacity(), limit.getRefillPerMinute() / 60d);
+    }
+
+    private String clientIp(HttpServletRequest request) {
+        if (properties.isTrustForwardedFor()) {
+            String forwardedFor = request.getHeader("X-Forwarded-For");
+            if (forwardedFor != null && !forwardedFor.isBlank()) {
+                return forwardedFor.split(",")[0].trim();
+            }
+        }
+        return request.getRemoteAddr();
+    }
+
+    /**
+     * Lecture en flux des champs de premier niveau : le compte est trouvé même si le préfixe
+     * inspecté s'arrête au milieu du document.
+     */
+    private String extractAccount(byte[] body, String field) {
+        try (JsonParser parser = objectMapper.getFactory().createParser(body)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                return null;
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String name = parser.currentName();
+                JsonToken value = parser.nextToken();
+                if (field.equals(name)) {
+                    return value == JsonToken.VALUE_STRING ? parser.getText().trim().toLowerCase(Locale.ROOT) : null;
+                }
+                parser.skipChildren();
+            }
+            return null;
+        } catch (IOException e) {
+            // Corps invalide ou tronqué avant le champ : le contrôleur renverra l'erreur de validation
+            return null;
+        }
+    }
+
+    private void reject(HttpServletRequest request, HttpServletResponse response, HttpStatus status, String message)
+            throws IOException {
+        response.setStatus(status.value());
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setCharacterEncoding("UTF-8");
+        objectMapper.writeValue(response.getOutputStream(), Map.of(
+                "timestamp", LocalDateTime.now().toString(),
+                "status", status.value(),
+                "error", status == HttpStatus.TOO_MANY_REQUESTS ? "Trop de requêtes" : status.getReasonPhrase(),
+                "message", message,
+                "path", request.getRequestURI()
+        ));
+    }
+}
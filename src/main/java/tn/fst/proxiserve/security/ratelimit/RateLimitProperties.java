@@ -0,0 +1,48 @@
+package tn.fst.proxiserve.security.ratelimit;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import lombok.Data;
+
+/**
+ * Configuration du limiteur de débit (préfixe {@code ratelimit}).
+ * Chaque règle cible une route et définit un quota par IP et, optionnellement, par compte.
+ */
+@Data
+@ConfigurationProperties(prefix = "ratelimit")
+public class RateLimitProperties {
+
+    /** Active ou désactive le filtre */
+    private boolean enabled = true;
+
+    /** Utiliser l'en-tête X-Forwarded-For (uniquement derrière un proxy de confiance) */
+    private boolean trustForwardedFor = false;
+
+    /** Règles par route */
+    private List<Rule> rules = new ArrayList<>();
+
+    @Data
+    public static class Rule {
+        /** Méthode HTTP ciblée (ex : POST) */
+        private String method;
+        /** Chemin exact de la route (ex : /api/auth/login) */
+        private String path;
+        /** Champ JSON du corps identifiant le compte (ex : email), optionnel */
+        private String accountField;
+        /** Quota par adresse IP */
+        private Limit perIp = new Limit();
+        /** Quota par compte (ignoré si accountField est absent) */
+        private Limit perAccount = new Limit();
+    }
+
+    @Data
+    public static class Limit {
+        /** Taille de la rafale autorisée */
+        private int capacity = 10;
+        /** Jetons rechargés par minute */
+        private double refillPerMinute = 10;
+    }
+}
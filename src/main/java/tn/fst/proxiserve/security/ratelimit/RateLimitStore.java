@@ -0,0 +1,20 @@
+package tn.fst.proxiserve.security.ratelimit;
+
+/**
+ * Stockage des seaux à jetons du limiteur de débit.
+ * L'implémentation par défaut est locale au nœud ({@link InMemoryRateLimitStore}) ;
+ * un bean {@code @Primary} implémentant cette interface (Redis, MongoDB...) permet
+ * de partager les quotas entre plusieurs instances.
+ */
+public interface RateLimitStore {
+
+    /**
+     * Tente de consommer un jeton dans le seau identifié par la clé.
+     *
+     * @param key             Clé du seau (route + IP ou route + compte).
+     * @param capacity        Nombre maximal de jetons (rafale autorisée).
+     * @param refillPerSecond Jetons ajoutés par seconde.
+     * @return 0 si la requête est autorisée, sinon le délai en millisecondes avant le prochain jeton.
+     */
+    long tryConsume(String key, int capacity, double refillPerSecond);
+}
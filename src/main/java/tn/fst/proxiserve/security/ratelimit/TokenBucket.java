@@ -0,0 +1,58 @@
+package tn.fst.proxiserve.security.ratelimit;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Seau à jetons sans verrou : la recharge est calculée paresseusement à chaque consommation
+ * et l'état (jetons, horodatage) est remplacé par compare-and-set. Coût O(1).
+ */
+final class TokenBucket {
+
+    private final int capacity;
+    private final double refillPerNano;
+    private final AtomicReference<State> state;
+
+    private record State(double tokens, long timestampNanos) {}
+
+    TokenBucket(int capacity, double refillPerSecond, long nowNanos) {
+        this.capacity = capacity;
+        this.refillPerNano = refillPerSecond / 1_000_000_000d;
+        this.state = new AtomicReference<>(new State(capacity, nowNanos));
+    }
+
+    /**
+     * Tente de consommer un jeton.
+     * @param nowNanos Horloge monotone (System.nanoTime()).
+     * @return 0 si le jeton est accordé, sinon le délai en nanosecondes avant le prochain jeton.
+     */
+    long tryConsume(long nowNanos) {
+        while (true) {
+            State current = state.get();
+            double tokens = refill(current, nowNanos);
+            long timestamp = Math.max(nowNanos, current.timestampNanos());
+
+            if (tokens >= 1) {
+                if (state.compareAndSet(current, new State(tokens - 1, timestamp))) {
+                    return 0;
+                }
+                continue;
+            }
+            if (refillPerNano <= 0) {
+                return Long.MAX_VALUE;
+            }
+            return (long) Math.ceil((1 - tokens) / refillPerNano);
+        }
+    }
+
+    /**
+     * Un seau plein n'apporte plus d'information : il peut être supprimé sans effet observable.
+     */
+    boolean isFull(long nowNanos) {
+        return refill(state.get(), nowNanos) >= capacity;
+    }
+
+    private double refill(State current, long nowNanos) {
+        long elapsed = Math.max(0, nowNanos - current.timestampNanos());
+        return Math.min(capacity, current.tokens() + elapsed * refillPerNano);
+    }
+}
@@ -0,0 +1,283 @@
+package tn.fst.proxiserve.service;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.mapping.event.AbstractMongoEventListener;
+import org.springframework.data.mongodb.core.mapping.event.AfterSaveEvent;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import tn.fst.proxiserve.cache.CacheInvalidationEvent;
+import tn.fst.proxiserve.model.Artisan;
+
+/**
+ * Index inversé en mémoire : catégorie / profession → bitmap des artisans.
+ * Chaque artisan reçoit un ordinal stable ; un filtre "catégorie + localisation"
+ * se résume alors à un ET logique entre bitmaps au lieu d'un parcours par regex.
+ *
+ * L'index est propre à chaque nœud : il suit les enregistrements d'artisans faits sur ce nœud
+ * (événement AfterSave) et ceux faits ailleurs via le {@link tn.fst.proxiserve.cache.CacheInvalidationBus}.
+ */
+@Component
+public class ArtisanCategoryIndex extends AbstractMongoEventListener<Artisan> {
+
+    private static final Logger logger = LoggerFactory.getLogger(ArtisanCategoryIndex.class);
+    private static final int BACKFILL_BATCH_SIZE = 500;
+    private static final String COLLECTION = "artisans";
+
+    private final MongoTemplate mongoTemplate;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final Map<String, Integer> ordinals = new HashMap<>();
+    private final List<String> artisanIds = new ArrayList<>();
+    private final Map<String, BitSet> byCategory = new HashMap<>();
+    private final Map<String, BitSet> byProfession = new HashMap<>();
+    private final Map<Integer, Set<String>> categoriesOf = new HashMap<>();
+    private final Map<Integer, String> professionOf = new HashMap<>();
+
+    public ArtisanCategoryIndex(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    /**
+     * Construit l'index au démarrage et renseigne les clés normalisées manquantes
+     * des artisans créés avant leur introduction.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        Query query = new Query();
+        query.fields().include("profession", "serviceCategories", "professionKey", "categoryKeys");
+
+        List<Artisan> missingKeys = new ArrayList<>();
+        Set<String> seen = new HashSet<>();
+        int count = 0;
+        try (Stream<Artisan> artisans = mongoTemplate.stream(query, Artisan.class)) {
+            for (Artisan artisan : (Iterable<Artisan>) artisans::iterator) {
+                if (artisan.getProfessionKey() == null || artisan.getCategoryKeys() == null) {
+                    // Les setters recalculent les clés normalisées
+                    artisan.setProfession(artisan.getProfession());
+                    artisan.setServiceCategories(artisan.getServiceCategories());
+                    missingKeys.add(artisan);
+                    if (missingKeys.size() >= BACKFILL_BATCH_SIZE) {
+                        backfillKeys(missingKeys);
+                        missingKeys.clear();
+                    }
+                }
+                index(artisan);
+                seen.add(artisan.getId());
+                count++;
+            }
+        }
+        backfillKeys(missingKeys);
+        // Reconstruction après une invalidation complète : les artisans supprimés entre-temps sortent de l'index
+        List<String> stale;
+        lock.readLock().lock();
+        try {
+            stale = ordinals.keySet().stream().filter(id -> !seen.contains(id)).toList();
+        } finally {
+            lock.readLock().unlock();
+        }
+        stale.forEach(this::remove);
+        logger.info(" Index des catégories construit : {} artisans, {} catégories, {} professions",
+                count, byCategory.size(), byProfession.size());
+    }
+
+    /**
+     * Artisan enregistré sur ce nœud (repository ou template) : indexé sans attendre le change stream.
+     */
+    @Override
+    public void onAfterSave(AfterSaveEvent<Artisan> event) {
+        index(event.getSource());
+    }
+
+    /**
+     * Artisan modifié ou supprimé sur n'importe quel nœud (ou par un script) : l'entrée est relue
+     * depuis la base ; une invalidation complète reconstruit l'index.
+     */
+    @EventListener(condition = "#root.event.concerns('" + COLLECTION + "')")
+    public void onInvalidation(CacheInvalidationEvent event) {
+        switch (event.kind()) {
+            case ALL -> rebuild();
+            case DELETE -> remove(event.documentId());
+            case UPSERT -> {
+                if (event.documentId() == null) {
+                    return;
+                }
+                Query query = Query.query(Criteria.where("id").is(event.documentId()));
+                query.fields().include("professionKey", "categoryKeys");
+                Artisan artisan = mongoTemplate.findOne(query, Artisan.class);
+                if (artisan != null) {
+                    index(artisan);
+                } else {
+                    remove(event.documentId());
+                }
+            }
+        }
+    }
+
+    /**
+     * Ajoute ou met à jour un artisan dans l'index.
+     * @param artisan Artisan (ses clés normalisées doivent être renseignées).
+     */
+    public void index(Artisan artisan) {
+        if (artisan == null || artisan.getId() == null) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            int ordinal = ordinals.computeIfAbsent(artisan.getId(), id -> {
+                artisanIds.add(id);
+                return artisanIds.size() - 1;
+            });
+            unindex(ordinal);
+
+            Set<String> categories = artisan.getCategoryKeys() == null ? Set.of()
+                    : artisan.getCategoryKeys().stream().filter(Objects::nonNull).collect(Collectors.toSet());
+            categories.forEach(key -> byCategory.computeIfAbsent(key, k -> new BitSet()).set(ordinal));
+            categoriesOf.put(ordinal, categories);
+
+            String profession = artisan.getProfessionKey();
+            if (profession != null) {
+                byProfession.computeIfAbsent(profession, k -> new BitSet()).set(ordinal);
+                professionOf.put(ordinal, profession);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Retire un artisan de l'index (l'ordinal reste réservé).
+     * @param artisanId Identifiant de l'artisan.
+     */
+    public void remove(String artisanId) {
+        lock.writeLock().lock();
+        try {
+            Integer ordinal = ordinals.get(artisanId);
+            if (ordinal != null) {
+                unindex(ordinal);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Indique si un artisan propose la catégorie donnée.
+     * @param category Catégorie brute ou normalisée.
+     * @param artisanId Identifiant de l'artisan.
+     * @return true si l'artisan est indexé dans cette catégorie.
+     */
+    public boolean hasCategory(String category, String artisanId) {
+        lock.readLock().lock();
+        try {
+            Integer ordinal = ordinals.get(artisanId);
+            BitSet bitmap = byCategory.get(Artisan.normalizeKey(category));
+            return ordinal != null && bitmap != null && bitmap.get(ordinal);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Filtre des candidats (typiquement issus d'une recherche géographique) par catégorie et/ou profession.
+     * L'ordre des candidats est conservé (tri par distance).
+     *
+     * @param candidates Artisans candidats.
+     * @param category   Catégorie recherchée (optionnelle).
+     * @param profession Profession recherchée (optionnelle).
+     * @return Candidats dont le bit est présent dans l'intersection des bitmaps.
+     */
+    public List<Artisan> filter(List<Artisan> candidates, String category, String profession) {
+        boolean byCat = category != null && !category.isBlank();
+        boolean byProf = profession != null && !profession.isBlank();
+        if (!byCat && !byProf) {
+            return candidates;
+        }
+
+        lock.readLock().lock();
+        try {
+            BitSet mask = toBitmap(candidates.stream().map(Artisan::getId).toList());
+            if (byCat) {
+                mask.and(byCategory.getOrDefault(Artisan.normalizeKey(category), new BitSet()));
+            }
+            if (byProf) {
+                mask.and(byProfession.getOrDefault(Artisan.normalizeKey(profession), new BitSet()));
+            }
+            return candidates.stream()
+                    .filter(artisan -> {
+                        Integer ordinal = ordinals.get(artisan.getId());
+                        return ordinal != null && mask.get(ordinal);
+                    })
+                    .toList();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private BitSet toBitmap(Collection<String> ids) {
+        BitSet bitmap = new BitSet(artisanIds.size());
+        for (String id : ids) {
+            Integer ordinal = ordinals.get(id);
+            if (ordinal != null) {
+                bitmap.set(ordinal);
+            }
+        }
+        return bitmap;
+    }
+
+    private void unindex(int ordinal) {
+        Set<String> previousCategories = categoriesOf.remove(ordinal);
+        if (previousCategories != null) {
+            previousCategories.forEach(key -> clearBit(byCategory, key, ordinal));
+        }
+        String previousProfession = professionOf.remove(ordinal);
+        if (previousProfession != null) {
+            clearBit(byProfession, previousProfession, ordinal);
+        }
+    }
+
+    private static void clearBit(Map<String, BitSet> bitmaps, String key, int ordinal) {
+        BitSet bitmap = bitmaps.get(key);
+        if (bitmap != null) {
+            bitmap.clear(ordinal);
+            if (bitmap.isEmpty()) {
+                bitmaps.remove(key);
+            }
+        }
+    }
+
+    private void backfillKeys(List<Artisan> artisans) {
+        if (artisans.isEmpty()) {
+            return;
+        }
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, Artisan.class);
+        for (Artisan artisan : artisans) {
+            bulk.updateOne(Query.query(Criteria.where("id").is(artisan.getId())),
+                    new Update().set("professionKey", artisan.getProfessionKey())
+                                .set("categoryKeys", artisan.getCategoryKeys()));
+        }
+        bulk.execute();
+        logger.info(" Clés normalisées renseignées pour {} artisans", artisans.size());
+    }
+}
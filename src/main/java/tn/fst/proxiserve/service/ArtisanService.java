@@ -12,8 +12,8 @@ import org.springframework.stereotype.Service;
 
 import tn.fst.proxiserve.model.Artisan;
 import tn.fst.proxiserve.model.Review;
-import tn.fst.proxiserve.repository.ArtisanRepository;
-import tn.fst.proxiserve.repository.ReviewRepository;
+import tn.fst.proxiserve.repository.read.ArtisanReadRepository;
+import tn.fst.proxiserve.repository.read.ReviewReadRepository;
 
 /**
  * Service pour la gestion des artisans, notamment la recherche géographique.
@@ -22,18 +22,24 @@ import tn.fst.proxiserve.repository.ReviewRepository;
 public class ArtisanService {
 
     private static final Logger logger = LoggerFactory.getLogger(ArtisanService.class);
-    private final ArtisanRepository artisanRepository;
+    private final ArtisanReadRepository artisanRepository;
 
     /**
      * Constructeur avec injection de dépendances.
-     * @param artisanRepository Référentiel des artisans.
+     * Recherche et notes moyennes sont des lectures seules : elles passent par les repositories
+     * du paquet read (secondaires si disponibles).
+     * @param artisanRepository Référentiel des artisans (lecture).
      */
     @Autowired
-    private ReviewRepository reviewRepository;
+    private ReviewReadRepository reviewRepository;
 
-    public ArtisanService(ArtisanRepository artisanRepository, ReviewRepository reviewRepository) {
+    private final ArtisanCategoryIndex artisanCategoryIndex;
+
+    public ArtisanService(ArtisanReadRepository artisanRepository, ReviewReadRepository reviewRepository,
+                          ArtisanCategoryIndex artisanCategoryIndex) {
         this.artisanRepository = artisanRepository;
         this.reviewRepository = reviewRepository;
+        this.artisanCategoryIndex = artisanCategoryIndex;
     }
     
     /**
@@ -73,6 +79,25 @@ public class ArtisanService {
         return artisans;
     }
 
+    /**
+     * Recherche des artisans à proximité, filtrés par catégorie et/ou profession.
+     * Le filtre est appliqué par intersection de bitmaps sur les candidats géographiques.
+     * @param latitude   Latitude du point de référence.
+     * @param longitude  Longitude du point de référence.
+     * @param radiusInKm Rayon de recherche en kilomètres.
+     * @param category   Catégorie de service (optionnelle).
+     * @param profession Profession (optionnelle).
+     * @return Liste des artisans correspondant, triés par distance.
+     */
+    public List<Artisan> findNearbyArtisans(double latitude, double longitude, double radiusInKm,
+                                            String category, String profession) {
+        List<Artisan> candidates = findNearbyArtisans(latitude, longitude, radiusInKm);
+        List<Artisan> artisans = artisanCategoryIndex.filter(candidates, category, profession);
+        logger.debug(" Filtre catégorie={} profession={} : {} / {} artisans retenus",
+                category, profession, artisans.size(), candidates.size());
+        return artisans;
+    }
+
 
 
     
@@ -0,0 +1,255 @@
+package tn.fst.proxiserve.service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.mongodb.MongoException;
+import com.mongodb.client.model.DeleteOneModel;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.ReplaceOneModel;
+import com.mongodb.client.model.ReplaceOptions;
+
+import tn.fst.proxiserve.config.SchedulingConfig;
+import tn.fst.proxiserve.config.WriteConcernPolicy;
+import tn.fst.proxiserve.model.Booking;
+
+/**
+ * Archivage des réservations terminées (COMPLETED, CANCELLED, REJECTED, EXPIRED) dont la date
+ * remonte à plus de {@code bookings.archive.after-days} jours, vers la collection bookings_archive.
+ *
+ * Chaque lot est copié (remplacement par _id, acquitté par la majorité) puis supprimé de bookings :
+ * un lot interrompu entre les deux étapes est simplement recopié au passage suivant, sans doublon.
+ * La suppression d'une réservation exige qu'elle soit identique à la copie (statut, paiement) : un paiement
+ * ou un remboursement arrivé entre la copie et la suppression la laisse dans bookings, recopiée au passage
+ * suivant. Les lectures fusionnées privilégient la version active d'une réservation présente des deux côtés.
+ * La collection d'archive est compressée en zstd et porte le mois de la réservation (archiveMonth).
+ * Un seul nœud archive (verrou booking-archive) ; les historiques lisent les deux collections
+ * via {@link #findWithArchive}.
+ */
+@Service
+public class BookingArchiveService {
+
+    private static final Logger logger = LoggerFactory.getLogger(BookingArchiveService.class);
+    public static final String ARCHIVE_COLLECTION = "bookings_archive";
+    private static final String LOCK = "booking-archive";
+    private static final List<String> TERMINAL_STATUSES = List.of("COMPLETED", "CANCELLED", "REJECTED", "EXPIRED");
+
+    private final MongoTemplate mongoTemplate;
+    private final WriteConcernPolicy writeConcernPolicy;
+    private final SchedulerLockService schedulerLockService;
+    private final boolean enabled;
+    private final int afterDays;
+    private final int batchSize;
+    private final int maxBatchesPerRun;
+    private final Duration lease;
+
+    public BookingArchiveService(MongoTemplate mongoTemplate,
+                                 WriteConcernPolicy writeConcernPolicy,
+                                 SchedulerLockService schedulerLockService,
+                                 @Value("${bookings.archive.enabled:true}") boolean enabled,
+                                 @Value("${bookings.archive.after-days:180}") int afterDays,
+                                 @Value("${bookings.archive.batch-size:1000}") int batchSize,
+                                 @Value("${bookings.archive.max-batches-per-run:100}") int maxBatchesPerRun,
+                                 @Value("${bookings.archive.lease-seconds:900}") long leaseSeconds) {
+        this.mongoTemplate = mongoTemplate;
+        this.writeConcernPolicy = writeConcernPolicy;
+        this.schedulerLockService = schedulerLockService;
+        this.enabled = enabled;
+        this.afterDays = afterDays;
+        this.batchSize = batchSize;
+        this.maxBatchesPerRun = maxBatchesPerRun;
+        this.lease = Duration.ofSeconds(leaseSeconds);
+    }
+
+    /**
+     * Crée la collection d'archive compressée et ses index d'historique si elle n'existe pas.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void prepareArchive() {
+        try {
+            if (!mongoTemplate.collectionExists(ARCHIVE_COLLECTION)) {
+                mongoTemplate.getDb().runCommand(new Document("create", ARCHIVE_COLLECTION)
+                        .append("storageEngine", new Document("wiredTiger",
+                                new Document("configString", "block_compressor=zstd"))));
+                logger.info(" Collection {} créée (compression zstd)", ARCHIVE_COLLECTION);
+            }
+            mongoTemplate.indexOps(ARCHIVE_COLLECTION).ensureIndex(
+                    new Index().on("clientId", Sort.Direction.ASC).on("bookingDate", Sort.Direction.DESC)
+                            .named("client_date_idx"));
+            mongoTemplate.indexOps(ARCHIVE_COLLECTION).ensureIndex(
+                    new Index().on("artisanId", Sort.Direction.ASC).on("bookingDate", Sort.Direction.DESC)
+                            .named("artisan_date_idx"));
+        } catch (MongoException e) {
+            logger.warn(" Préparation de {} impossible : {}", ARCHIVE_COLLECTION, e.getMessage());
+        }
+    }
+
+    @Scheduled(scheduler = SchedulingConfig.BATCH_SCHEDULER,
+               initialDelayString = "${bookings.archive.initial-delay-ms:120000}",
+               fixedDelayString = "${bookings.archive.sweep-interval-ms:3600000}")
+    public void archiveScheduled() {
+        if (!enabled || !schedulerLockService.tryAcquire(LOCK, lease)) {
+            return;
+        }
+        try {
+            long archived = archive();
+            if (archived > 0) {
+                logger.info(" {} réservations terminées archivées dans {}", archived, ARCHIVE_COLLECTION);
+            }
+        } catch (Exception e) {
+            logger.error(" Échec de l'archivage des réservations : {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Archive les réservations terminées éligibles, au plus {@code max-batches-per-run} lots.
+     * @return Nombre de réservations déplacées.
+     */
+    public long archive() {
+        LocalDateTime cutoff = LocalDateTime.now().minusDays(afterDays);
+        // Index (status, bookingDate) : parcours borné des seules réservations terminées et anciennes
+        Query eligible = Query.query(Criteria.where("status").in(TERMINAL_STATUSES).and("bookingDate").lt(cutoff))
+                .limit(batchSize);
+        String source = mongoTemplate.getCollectionName(Booking.class);
+
+        long total = 0;
+        for (int batch = 0; batch < maxBatchesPerRun; batch++) {
+            List<Document> bookings = mongoTemplate.find(eligible, Document.class, source);
+            if (bookings.isEmpty()) {
+                break;
+            }
+            copyToArchive(bookings);
+            total += removeCopied(bookings, source);
+
+            if (bookings.size() < batchSize || !schedulerLockService.tryAcquire(LOCK, lease)) {
+                break;
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Lecture d'historique sur bookings et bookings_archive : une requête par collection (même index
+     * de part et d'autre), fusion triée puis page demandée. Sans archive, seule la collection active est lue.
+     * Une ligne de plus que la taille de page est lue pour savoir s'il existe une page suivante (pas de count()).
+     * @param criteria Filtre (clientId ou artisanId, statut, dates).
+     * @param pageable Page, taille et tri (sur bookingDate).
+     * @param includeArchive Inclure les réservations archivées.
+     */
+    public Slice<Booking> findWithArchive(Criteria criteria, Pageable pageable, boolean includeArchive) {
+        Sort sort = pageable.getSort();
+        long skip = pageable.getOffset();
+        int size = pageable.getPageSize();
+        List<Booking> rows;
+        if (!includeArchive) {
+            rows = mongoTemplate.find(Query.query(criteria).with(sort).skip(skip).limit(size + 1), Booking.class);
+        } else {
+            // Chaque source fournit au plus skip + size + 1 éléments : la page fusionnée est exacte
+            int window = (int) Math.min(Integer.MAX_VALUE, skip + size + 1);
+            List<Booking> active = mongoTemplate.find(Query.query(criteria).with(sort).limit(window), Booking.class);
+            List<Booking> archived = mongoTemplate.find(Query.query(criteria).with(sort).limit(window),
+                    Booking.class, ARCHIVE_COLLECTION);
+            // Réservation présente des deux côtés (modifiée pendant l'archivage) : la version active l'emporte
+            Set<String> activeIds = active.stream().map(Booking::getId).collect(Collectors.toSet());
+            rows = Stream.concat(active.stream(), archived.stream().filter(booking -> !activeIds.contains(booking.getId())))
+                    .sorted(comparator(sort))
+                    .skip(skip)
+                    .limit(size + 1L)
+                    .toList();
+        }
+        boolean hasNext = rows.size() > size;
+        return new SliceImpl<>(hasNext ? rows.subList(0, size) : rows, pageable, hasNext);
+    }
+
+    /**
+     * Réservations archivées correspondant au filtre (index clientId/artisanId + bookingDate de l'archive).
+     */
+    public List<Booking> findArchived(Criteria criteria, Sort sort) {
+        return mongoTemplate.find(Query.query(criteria).with(sort), Booking.class, ARCHIVE_COLLECTION);
+    }
+
+    /**
+     * Supprime de bookings les réservations copiées, uniquement si elles n'ont pas changé depuis la copie.
+     * @return Nombre de réservations supprimées.
+     */
+    private long removeCopied(List<Document> bookings, String source) {
+        List<DeleteOneModel<Document>> deletes = new ArrayList<>(bookings.size());
+        for (Document booking : bookings) {
+            // eq(champ, null) correspond aussi à un champ absent, comme dans la copie
+            deletes.add(new DeleteOneModel<>(Filters.and(
+                    Filters.eq("_id", booking.get("_id")),
+                    Filters.in("status", TERMINAL_STATUSES),
+                    Filters.eq("status", booking.get("status")),
+                    Filters.eq("paymentStatus", booking.get("paymentStatus")),
+                    Filters.eq("paymentEventAt", booking.get("paymentEventAt")),
+                    Filters.eq("paidAt", booking.get("paidAt")))));
+        }
+        long deleted = mongoTemplate.getCollection(source)
+                .withWriteConcern(writeConcernPolicy.concernOf(writeConcernPolicy.classOf(Booking.class, source)))
+                .bulkWrite(deletes)
+                .getDeletedCount();
+        if (deleted < bookings.size()) {
+            logger.info(" {} réservations modifiées pendant l'archivage conservées dans bookings", bookings.size() - deleted);
+        }
+        return deleted;
+    }
+
+    private void copyToArchive(List<Document> bookings) {
+        List<ReplaceOneModel<Document>> copies = new ArrayList<>(bookings.size());
+        for (Document booking : bookings) {
+            Document archived = new Document(booking).append("archiveMonth", archiveMonth(booking));
+            copies.add(new ReplaceOneModel<>(Filters.eq("_id", booking.get("_id")), archived,
+                    new ReplaceOptions().upsert(true)));
+        }
+        // Écriture brute sur le driver : write concern de la collection d'archive appliqué explicitement
+        mongoTemplate.getCollection(ARCHIVE_COLLECTION)
+                .withWriteConcern(writeConcernPolicy.concernOf(writeConcernPolicy.classOf(Booking.class, ARCHIVE_COLLECTION)))
+                .bulkWrite(copies);
+    }
+
+    private static String archiveMonth(Document booking) {
+        Object date = booking.get("bookingDate") != null ? booking.get("bookingDate") : booking.get("createdAt");
+        if (!(date instanceof Date value)) {
+            return null;
+        }
+        LocalDateTime at = LocalDateTime.ofInstant(value.toInstant(), ZoneId.systemDefault());
+        return String.format("%04d-%02d", at.getYear(), at.getMonthValue());
+    }
+
+    /**
+     * Ordre des réservations selon le tri demandé sur bookingDate (dates absentes en dernier).
+     */
+    public static Comparator<Booking> comparator(Sort sort) {
+        Sort.Order order = sort.getOrderFor("bookingDate");
+        Function<Booking, LocalDateTime> key = Booking::getBookingDate;
+        Comparator<LocalDateTime> direction = order != null && order.isDescending()
+                ? Comparator.reverseOrder() : Comparator.naturalOrder();
+        return Comparator.comparing(key, Comparator.nullsLast(direction));
+    }
+}
@@ -0,0 +1,153 @@
+package tn.fst.proxiserve.service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import tn.fst.proxiserve.config.SchedulingConfig;
+import tn.fst.proxiserve.model.Booking;
+import tn.fst.proxiserve.model.Client;
+
+/**
+ * Expiration des réservations jamais confirmées.
+ *
+ * Une réservation PENDING dont la date est passée, ou créée depuis plus de
+ * {@code bookings.expiry.pending-max-age-hours}, passe à EXPIRED. Un seul nœud balaie
+ * (verrou booking-expiry de {@link SchedulerLockService}) ; les réservations sont traitées par lots
+ * (lecture des identifiants sur les index (status, bookingDate) / (status, createdAt), puis updateMany).
+ * Le client est prévenu par email (file d'envoi de MailService).
+ */
+@Service
+public class BookingExpiryService {
+
+    private static final Logger logger = LoggerFactory.getLogger(BookingExpiryService.class);
+    private static final String LOCK = "booking-expiry";
+
+    private final MongoTemplate mongoTemplate;
+    private final SchedulerLockService schedulerLockService;
+    private final StatsRollupService statsRollupService;
+    private final ReferenceResolver referenceResolver;
+    private final MailService mailService;
+    private final boolean enabled;
+    private final long pendingMaxAgeHours;
+    private final int batchSize;
+    private final Duration lease;
+    private final boolean notifyClients;
+
+    public BookingExpiryService(MongoTemplate mongoTemplate,
+                                SchedulerLockService schedulerLockService,
+                                StatsRollupService statsRollupService,
+                                ReferenceResolver referenceResolver,
+                                @Lazy MailService mailService,
+                                @Value("${bookings.expiry.enabled:true}") boolean enabled,
+                                @Value("${bookings.expiry.pending-max-age-hours:72}") long pendingMaxAgeHours,
+                                @Value("${bookings.expiry.batch-size:500}") int batchSize,
+                                @Value("${bookings.expiry.lease-seconds:600}") long leaseSeconds,
+                                @Value("${bookings.expiry.notify-clients:true}") boolean notifyClients) {
+        this.mongoTemplate = mongoTemplate;
+        this.schedulerLockService = schedulerLockService;
+        this.statsRollupService = statsRollupService;
+        this.referenceResolver = referenceResolver;
+        this.mailService = mailService;
+        this.enabled = enabled;
+        this.pendingMaxAgeHours = pendingMaxAgeHours;
+        this.batchSize = batchSize;
+        this.lease = Duration.ofSeconds(leaseSeconds);
+        this.notifyClients = notifyClients;
+    }
+
+    @Scheduled(scheduler = SchedulingConfig.BATCH_SCHEDULER,
+               initialDelayString = "${bookings.expiry.initial-delay-ms:60000}",
+               fixedDelayString = "${bookings.expiry.sweep-interval-ms:300000}")
+    public void sweep() {
+        if (!enabled || !schedulerLockService.tryAcquire(LOCK, lease)) {
+            return;
+        }
+        try {
+            long expired = expirePending();
+            if (expired > 0) {
+                logger.info(" {} réservations PENDING passées à EXPIRED", expired);
+            }
+        } catch (Exception e) {
+            logger.error(" Échec du balayage des réservations expirées : {}", e.getMessage());
+        }
+    }
+
+    /**
+     * @return Nombre de réservations passées à EXPIRED.
+     */
+    public long expirePending() {
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.MILLIS);
+        // Chaque branche du $or porte l'égalité sur status : un index par branche
+        Criteria due = new Criteria().orOperator(
+                Criteria.where("status").is("PENDING").and("bookingDate").lt(now),
+                Criteria.where("status").is("PENDING").and("createdAt").lt(now.minusHours(pendingMaxAgeHours)));
+
+        long total = 0;
+        while (true) {
+            Query batchQuery = Query.query(due).limit(batchSize);
+            batchQuery.fields().include("id");
+            List<String> ids = mongoTemplate.find(batchQuery, Booking.class).stream().map(Booking::getId).toList();
+            if (ids.isEmpty()) {
+                break;
+            }
+
+            // Garde sur status : une confirmation concurrente l'emporte
+            long modified = mongoTemplate.updateMulti(
+                    Query.query(Criteria.where("id").in(ids).and("status").is("PENDING")),
+                    new Update().set("status", "EXPIRED").set("expiredAt", now),
+                    Booking.class).getModifiedCount();
+            if (modified > 0) {
+                List<Booking> expired = mongoTemplate.find(
+                        Query.query(Criteria.where("id").in(ids).and("status").is("EXPIRED").and("expiredAt").is(now)),
+                        Booking.class);
+                statsRollupService.bookingsExpired(expired);
+                if (notifyClients) {
+                    notifyClients(expired);
+                }
+                total += expired.size();
+            }
+
+            if (ids.size() < batchSize || modified == 0 || !schedulerLockService.tryAcquire(LOCK, lease)) {
+                // Dernier lot, lot déjà traité par ailleurs, ou verrou perdu : le prochain passage reprendra
+                break;
+            }
+        }
+        return total;
+    }
+
+    private void notifyClients(List<Booking> expired) {
+        Map<String, Client> clients = referenceResolver.resolve(expired, Booking::getClientId, Client.class);
+        for (Booking booking : expired) {
+            Client client = clients.get(booking.getClientId());
+            if (client == null || client.getEmail() == null) {
+                continue;
+            }
+            String body = String.format("""
+                    Bonjour %s,
+
+                    Votre réservation du %s n'a pas été confirmée par l'artisan et a expiré.
+                    Vous pouvez effectuer une nouvelle demande depuis l'application.
+
+                    --
+                    L'équipe Proxiserve
+                    """,
+                    client.getFullName() != null ? client.getFullName() : "",
+                    booking.getBookingDate());
+            mailService.sendEmail(client.getEmail(), "⌛ Votre réservation a expiré", body);
+        }
+    }
+}
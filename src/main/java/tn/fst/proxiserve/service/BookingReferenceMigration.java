@@ -0,0 +1,174 @@
+package tn.fst.proxiserve.service;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import com.mongodb.DBRef;
+
+import tn.fst.proxiserve.config.WriteConcernPolicy;
+import tn.fst.proxiserve.model.Booking;
+import tn.fst.proxiserve.model.ServiceEntity;
+
+/**
+ * Migration des réservations : les anciens champs @DBRef {@code client} et {@code service}
+ * sont remplacés par clientId / serviceId (renseignés depuis le $id de la référence s'ils manquent)
+ * puis supprimés.
+ *
+ * Les réservations anciennes sans artisanId le reçoivent ensuite depuis leur service
+ * (clé de la boîte de réception artisan).
+ *
+ * Idempotente : seuls les documents encore concernés sont lus, par lots ;
+ * une exécution interrompue reprend au prochain démarrage.
+ */
+@Service
+public class BookingReferenceMigration {
+
+    private static final Logger logger = LoggerFactory.getLogger(BookingReferenceMigration.class);
+
+    private final MongoTemplate mongoTemplate;
+    private final WriteConcernPolicy writeConcernPolicy;
+    private final ReferenceResolver referenceResolver;
+    private final boolean enabled;
+    private final int batchSize;
+
+    public BookingReferenceMigration(MongoTemplate mongoTemplate,
+                                     WriteConcernPolicy writeConcernPolicy,
+                                     ReferenceResolver referenceResolver,
+                                     @Value("${migrations.booking-refs.enabled:true}") boolean enabled,
+                                     @Value("${migrations.booking-refs.batch-size:1000}") int batchSize) {
+        this.mongoTemplate = mongoTemplate;
+        this.writeConcernPolicy = writeConcernPolicy;
+        this.referenceResolver = referenceResolver;
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void migrateOnStartup() {
+        if (enabled) {
+            migrate();
+            backfillArtisanIds();
+        }
+    }
+
+    /**
+     * @return Nombre de réservations réécrites.
+     */
+    public long migrate() {
+        Query pending = new Query(new Criteria().orOperator(
+                Criteria.where("client").exists(true),
+                Criteria.where("service").exists(true)))
+                .cursorBatchSize(batchSize);
+        pending.fields().include("client", "service", "clientId", "serviceId");
+
+        long migrated = 0;
+        int inBatch = 0;
+        BulkOperations bulk = null;
+        String collection = mongoTemplate.getCollectionName(Booking.class);
+        try (Stream<Document> documents = mongoTemplate.stream(pending, Document.class, collection)) {
+            Iterator<Document> cursor = documents.iterator();
+            while (cursor.hasNext()) {
+                Document booking = cursor.next();
+                if (bulk == null) {
+                    bulk = writeConcernPolicy.bulkOps(BulkOperations.BulkMode.UNORDERED, Booking.class);
+                }
+                bulk.updateOne(Query.query(Criteria.where("_id").is(booking.get("_id"))), rewrite(booking));
+                if (++inBatch == batchSize) {
+                    bulk.execute();
+                    migrated += inBatch;
+                    inBatch = 0;
+                    bulk = null;
+                }
+            }
+        }
+        if (bulk != null) {
+            bulk.execute();
+            migrated += inBatch;
+        }
+        if (migrated > 0) {
+            logger.info(" Références @DBRef supprimées de {} réservations", migrated);
+        }
+        return migrated;
+    }
+
+    /**
+     * Renseigne artisanId sur les réservations qui n'en ont pas, d'après le service réservé
+     * (une requête $in sur les services par lot).
+     * @return Nombre de réservations complétées.
+     */
+    public long backfillArtisanIds() {
+        Query pending = Query.query(Criteria.where("artisanId").is(null).and("serviceId").ne(null))
+                .cursorBatchSize(batchSize);
+        pending.fields().include("serviceId");
+
+        long updated = 0;
+        List<Document> batch = new ArrayList<>(batchSize);
+        String collection = mongoTemplate.getCollectionName(Booking.class);
+        try (Stream<Document> documents = mongoTemplate.stream(pending, Document.class, collection)) {
+            Iterator<Document> cursor = documents.iterator();
+            while (cursor.hasNext()) {
+                batch.add(cursor.next());
+                if (batch.size() == batchSize) {
+                    updated += setArtisanIds(batch);
+                    batch.clear();
+                }
+            }
+        }
+        updated += setArtisanIds(batch);
+        if (updated > 0) {
+            logger.info(" artisanId renseigné sur {} réservations", updated);
+        }
+        return updated;
+    }
+
+    private int setArtisanIds(List<Document> bookings) {
+        if (bookings.isEmpty()) {
+            return 0;
+        }
+        Map<String, ServiceEntity> services = referenceResolver.resolve(bookings,
+                booking -> booking.getString("serviceId"), ServiceEntity.class);
+        BulkOperations bulk = writeConcernPolicy.bulkOps(BulkOperations.BulkMode.UNORDERED, Booking.class);
+        int updates = 0;
+        for (Document booking : bookings) {
+            ServiceEntity service = services.get(booking.getString("serviceId"));
+            if (service == null || service.getArtisanId() == null) {
+                // Service supprimé : la réservation reste hors des boîtes de réception
+                continue;
+            }
+            bulk.updateOne(Query.query(Criteria.where("_id").is(booking.get("_id"))),
+                    new Update().set("artisanId", service.getArtisanId()));
+            updates++;
+        }
+        if (updates > 0) {
+            bulk.execute();
+        }
+        return updates;
+    }
+
+    private static Update rewrite(Document booking) {
+        Update update = new Update().unset("client").unset("service");
+        if (booking.get("clientId") == null && booking.get("client") instanceof DBRef client) {
+            update.set("clientId", String.valueOf(client.getId()));
+        }
+        if (booking.get("serviceId") == null && booking.get("service") instanceof DBRef service) {
+            update.set("serviceId", String.valueOf(service.getId()));
+        }
+        return update;
+    }
+}
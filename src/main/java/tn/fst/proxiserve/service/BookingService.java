@@ -1,17 +1,30 @@
 package tn.fst.proxiserve.service;
 
 import java.security.Principal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Locale;
 
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.web.server.ResponseStatusException;
 
 import lombok.RequiredArgsConstructor;
+import tn.fst.proxiserve.cache.ArtisanCache;
+import tn.fst.proxiserve.cache.ServiceCache;
 import tn.fst.proxiserve.dto.BookingRequest;
 import tn.fst.proxiserve.model.Booking;
-import tn.fst.proxiserve.repository.ArtisanRepository;
 import tn.fst.proxiserve.repository.BookingRepository;
-import tn.fst.proxiserve.repository.ServiceRepository;
 import tn.fst.proxiserve.repository.UserRepository;
 
 @Service
@@ -19,9 +32,18 @@ import tn.fst.proxiserve.repository.UserRepository;
 public class BookingService {
 
     private final BookingRepository bookingRepository;
-    private final ServiceRepository serviceRepository;
-    private final ArtisanRepository artisanRepository;
+    private final ServiceCache serviceCache;
+    private final ArtisanCache artisanCache;
     private final UserRepository userRepository;
+    private final StatsRollupService statsRollupService;
+    private final BookingArchiveService bookingArchiveService;
+    private final MongoTemplate mongoTemplate;
+
+    @Value("${bookings.inbox.max-page-size:200}")
+    private int inboxMaxPageSize;
+
+    /** Fenêtres de la boîte de réception artisan, relatives à l'instant de la requête */
+    public enum InboxWindow { ALL, UPCOMING, PAST, TODAY }
 
     public Booking createBooking(BookingRequest request, Principal principal) {
         String email = principal.getName();
@@ -30,10 +52,10 @@ public class BookingService {
         var client = userRepository.findByEmail(email)
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Client non trouvé"));
 
-        var service = serviceRepository.findById(request.getServiceId())
+        var service = serviceCache.findById(request.getServiceId())
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Service non trouvé"));
 
-        var artisan = artisanRepository.findById(service.getArtisanId())
+        var artisan = artisanCache.findById(service.getArtisanId())
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Artisan non trouvé"));
 
         Booking booking = new Booking();
@@ -43,6 +65,140 @@ public class BookingService {
         booking.setBookingDate(request.getBookingDate());
         booking.setStatus("PENDING");
 
-        return bookingRepository.save(booking);
+        Booking saved = bookingRepository.insert(booking);
+        statsRollupService.bookingCreated(saved);
+        return saved;
+    }
+
+    /**
+     * Décision de l'artisan sur une réservation en attente, en une seule écriture conditionnelle :
+     * une réservation annulée, expirée ou déjà traitée entre la lecture et l'écriture n'est pas modifiée.
+     * @param bookingId Réservation.
+     * @param status Nouveau statut (CONFIRMED ou REJECTED).
+     * @return true si la réservation était encore PENDING et a changé de statut.
+     */
+    public boolean decidePending(String bookingId, String status) {
+        return transition(bookingId, List.of("PENDING"), status) != null;
+    }
+
+    /**
+     * Annulation par le client : seule une réservation PENDING ou CONFIRMED est annulée.
+     * @return Statut remplacé (pour les compteurs), ou null si la réservation ne pouvait plus être annulée.
+     */
+    public String cancel(String bookingId) {
+        return transition(bookingId, List.of("PENDING", "CONFIRMED"), "CANCELLED");
+    }
+
+    /**
+     * Fin de prestation déclarée par l'artisan : seule une réservation CONFIRMED est terminée.
+     * @return true si la réservation était CONFIRMED et est passée à COMPLETED.
+     */
+    public boolean complete(String bookingId) {
+        return transition(bookingId, List.of("CONFIRMED"), "COMPLETED") != null;
+    }
+
+    /**
+     * Changement de statut en une écriture conditionnelle portant sur le seul champ status : les champs de
+     * paiement écrits en arrière-plan (réconciliation, webhook) ne sont jamais écrasés par un document lu plus tôt.
+     * @param from Statuts à partir desquels la transition est permise.
+     * @return Statut remplacé, ou null si la réservation n'existe pas ou n'était dans aucun statut permis.
+     */
+    private String transition(String bookingId, List<String> from, String to) {
+        Query query = Query.query(Criteria.where("id").is(bookingId).and("status").in(from));
+        query.fields().include("status");
+        Booking previous = mongoTemplate.findAndModify(query, Update.update("status", to),
+                FindAndModifyOptions.options().returnNew(false), Booking.class);
+        return previous != null ? previous.getStatus() : null;
+    }
+
+    /**
+     * Boîte de réception d'un artisan : un seul parcours d'index (artisanId, status, bookingDate).
+     * @param artisanId Artisan connecté.
+     * @param status Statut (PENDING, CONFIRMED, ...), optionnel.
+     * @param window all, upcoming (à venir, ordre chronologique), past (passées, plus récentes d'abord), today.
+     * @param from Borne basse de bookingDate (incluse), optionnelle.
+     * @param to Borne haute de bookingDate (exclue), optionnelle.
+     * @param page Numéro de page.
+     * @param size Taille de page (bornée par bookings.inbox.max-page-size).
+     * @param includeArchive Inclure les réservations déplacées dans bookings_archive.
+     * @return Page de réservations, sans comptage total (existence d'une page suivante).
+     * @throws ResponseStatusException 400 si la fenêtre est inconnue.
+     */
+    public Slice<Booking> artisanInbox(String artisanId, String status, String window,
+                                      LocalDateTime from, LocalDateTime to, int page, int size,
+                                      boolean includeArchive) {
+        InboxWindow inboxWindow = parseWindow(window);
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime lower = from;
+        LocalDateTime upper = to;
+        switch (inboxWindow) {
+            case UPCOMING -> lower = max(lower, now);
+            case PAST -> upper = min(upper, now);
+            case TODAY -> {
+                lower = max(lower, LocalDate.now().atStartOfDay());
+                upper = min(upper, LocalDate.now().plusDays(1).atStartOfDay());
+            }
+            case ALL -> { }
+        }
+
+        Criteria criteria = Criteria.where("artisanId").is(artisanId);
+        if (status != null && !status.isBlank()) {
+            criteria.and("status").is(status.trim().toUpperCase(Locale.ROOT));
+        }
+        if (lower != null || upper != null) {
+            Criteria date = criteria.and("bookingDate");
+            if (lower != null) {
+                date.gte(lower);
+            }
+            if (upper != null) {
+                date.lt(upper);
+            }
+        }
+
+        Sort.Direction direction = inboxWindow == InboxWindow.PAST ? Sort.Direction.DESC : Sort.Direction.ASC;
+        int boundedSize = Math.max(1, Math.min(size, inboxMaxPageSize));
+        // Tri fourni par l'index dans chaque collection : pas de tri en mémoire côté MongoDB
+        return bookingArchiveService.findWithArchive(criteria,
+                PageRequest.of(Math.max(page, 0), boundedSize, Sort.by(direction, "bookingDate")), includeArchive);
+    }
+
+    /**
+     * Historique d'un client, archive comprise par défaut, plus récentes d'abord : une page lue sur l'index
+     * (clientId, bookingDate) de chaque collection, jamais l'historique complet en mémoire.
+     * @param clientId Client connecté.
+     * @param status Statut, optionnel.
+     * @param page Numéro de page.
+     * @param size Taille de page (bornée par bookings.inbox.max-page-size).
+     * @param includeArchive Inclure les réservations déplacées dans bookings_archive.
+     * @return Page de réservations, sans comptage total (existence d'une page suivante).
+     */
+    public Slice<Booking> clientHistory(String clientId, String status, int page, int size, boolean includeArchive) {
+        Criteria criteria = Criteria.where("clientId").is(clientId);
+        if (status != null && !status.isBlank()) {
+            criteria.and("status").is(status.trim().toUpperCase(Locale.ROOT));
+        }
+        int boundedSize = Math.max(1, Math.min(size, inboxMaxPageSize));
+        return bookingArchiveService.findWithArchive(criteria,
+                PageRequest.of(Math.max(page, 0), boundedSize, Sort.by(Sort.Direction.DESC, "bookingDate")), includeArchive);
+    }
+
+    private static InboxWindow parseWindow(String window) {
+        if (window == null || window.isBlank()) {
+            return InboxWindow.ALL;
+        }
+        try {
+            return InboxWindow.valueOf(window.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Fenêtre inconnue : " + window + " (all, upcoming, past, today)");
+        }
+    }
+
+    private static LocalDateTime max(LocalDateTime bound, LocalDateTime value) {
+        return bound == null || value.isAfter(bound) ? value : bound;
+    }
+
+    private static LocalDateTime min(LocalDateTime bound, LocalDateTime value) {
+        return bound == null || value.isBefore(bound) ? value : bound;
     }
 }
@@ -1,7 +1,5 @@
 package tn.fst.proxiserve.service;
 
-import java.util.List;
-
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
@@ -21,16 +19,6 @@ public class ClientService {
     private static final Logger logger = LoggerFactory.getLogger(ClientService.class);
     private final ClientRepository clientRepository;
 
-    /**
-     * Récupérer tous les clients.
-     * @return Liste de tous les clients.
-     */
-    public List<Client> getAllClients() {
-        List<Client> clients = clientRepository.findAll();
-        logger.info(" {} clients récupérés avec succès", clients.size());
-        return clients;
-    }
-
     /**
      * Récupérer un client par son ID.
      * @param id ID du client.
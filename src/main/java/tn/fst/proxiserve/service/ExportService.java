@@ -0,0 +1,208 @@
+package tn.fst.proxiserve.service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.ZoneId;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import tn.fst.proxiserve.model.Artisan;
+import tn.fst.proxiserve.model.Booking;
+import tn.fst.proxiserve.model.Client;
+
+/**
+ * Export des collections volumineuses (clients, artisans, réservations) en CSV ou NDJSON.
+ *
+ * Les documents sont lus via un curseur MongoDB (par lots de {@code batchSize}) et écrits
+ * au fil de l'eau dans la réponse : la mémoire consommée ne dépend pas du nombre de lignes.
+ */
+@Service
+public class ExportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ExportService.class);
+    private static final int FLUSH_EVERY_ROWS = 1000;
+
+    public enum Format { CSV, NDJSON }
+
+    /** Collection et colonnes exportées (les champs techniques sont exclus) */
+    private record ExportType(Class<?> entity, List<String> columns) {}
+
+    private static final Map<String, ExportType> TYPES = Map.of(
+            "clients", new ExportType(Client.class,
+                    List.of("_id", "userId", "email", "fullName", "phoneNumber", "createdAt")),
+            "artisans", new ExportType(Artisan.class,
+                    List.of("_id", "userId", "email", "phoneNumber", "profession", "companyName",
+                            "serviceCategories", "createdAt")),
+            "bookings", new ExportType(Booking.class,
+                    List.of("_id", "clientId", "artisanId", "serviceId", "bookingDate", "status",
+                            "paymentStatus", "paymentMethod", "paymentCompleted", "paidAt", "createdAt"))
+    );
+
+    private final MongoTemplate mongoTemplate;
+    private final ObjectMapper objectMapper;
+    private final int defaultBatchSize;
+    private final int maxBatchSize;
+
+    public ExportService(MongoTemplate mongoTemplate,
+                         ObjectMapper objectMapper,
+                         @Value("${export.default-batch-size:1000}") int defaultBatchSize,
+                         @Value("${export.max-batch-size:10000}") int maxBatchSize) {
+        this.mongoTemplate = mongoTemplate;
+        this.objectMapper = objectMapper;
+        this.defaultBatchSize = defaultBatchSize;
+        this.maxBatchSize = maxBatchSize;
+    }
+
+    /**
+     * Vérifie les paramètres d'export avant l'ouverture du flux de réponse.
+     * @param type Type d'export demandé.
+     * @param format Format demandé (csv, ndjson).
+     * @return Format reconnu.
+     * @throws ResponseStatusException 400 si le type ou le format est inconnu.
+     */
+    public Format validate(String type, String format) {
+        if (!TYPES.containsKey(type)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Type d'export inconnu : " + type);
+        }
+        try {
+            return Format.valueOf(format.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Format d'export inconnu : " + format);
+        }
+    }
+
+    /**
+     * Écrit l'export complet d'une collection dans le flux.
+     * @param type clients, artisans ou bookings.
+     * @param format CSV ou NDJSON.
+     * @param gzip Compresser le flux.
+     * @param batchSize Taille des lots du curseur (bornée par export.max-batch-size).
+     * @param out Flux de la réponse HTTP.
+     * @return Nombre de lignes écrites.
+     */
+    public long export(String type, Format format, boolean gzip, Integer batchSize, OutputStream out) throws IOException {
+        ExportType exportType = TYPES.get(type);
+        int cursorBatch = batchSize == null || batchSize <= 0 ? defaultBatchSize : Math.min(batchSize, maxBatchSize);
+
+        Query query = new Query().with(Sort.by("_id")).cursorBatchSize(cursorBatch);
+        exportType.columns().forEach(column -> query.fields().include(column));
+
+        GZIPOutputStream gzipStream = gzip ? new GZIPOutputStream(out, 64 * 1024) : null;
+        Writer writer = new BufferedWriter(new OutputStreamWriter(gzip ? gzipStream : out, StandardCharsets.UTF_8), 64 * 1024);
+
+        long rows = 0;
+        String collection = mongoTemplate.getCollectionName(exportType.entity());
+        try (Stream<Document> documents = mongoTemplate.stream(query, Document.class, collection)) {
+            Iterator<Document> cursor = documents.iterator();
+            if (format == Format.CSV) {
+                writer.write(String.join(",", exportType.columns()));
+                writer.write('\n');
+            }
+            while (cursor.hasNext()) {
+                Document document = cursor.next();
+                if (format == Format.CSV) {
+                    writeCsvRow(writer, document, exportType.columns());
+                } else {
+                    writeJsonRow(writer, document, exportType.columns());
+                }
+                if (++rows % FLUSH_EVERY_ROWS == 0) {
+                    // Transmet les données au client au fil de l'export
+                    writer.flush();
+                }
+            }
+        }
+
+        writer.flush();
+        if (gzipStream != null) {
+            gzipStream.finish();
+        }
+        out.flush();
+        logger.info(" Export {} ({}) terminé : {} lignes", type, format, rows);
+        return rows;
+    }
+
+    private static void writeCsvRow(Writer writer, Document document, List<String> columns) throws IOException {
+        for (int i = 0; i < columns.size(); i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            Object value = document.get(columns.get(i));
+            String text = toText(value);
+            // Texte saisi par les utilisateurs : jamais interprété comme formule par un tableur
+            writer.write(csvEscape(value instanceof String || value instanceof List<?> ? neutralizeFormula(text) : text));
+        }
+        writer.write('\n');
+    }
+
+    private void writeJsonRow(Writer writer, Document document, List<String> columns) throws IOException {
+        Map<String, Object> row = new LinkedHashMap<>();
+        for (String column : columns) {
+            Object value = document.get(column);
+            row.put("_id".equals(column) ? "id" : column, toJsonValue(value));
+        }
+        writer.write(objectMapper.writeValueAsString(row));
+        writer.write('\n');
+    }
+
+    private static Object toJsonValue(Object value) {
+        if (value instanceof ObjectId || value instanceof Date) {
+            return toText(value);
+        }
+        return value;
+    }
+
+    private static String toText(Object value) {
+        if (value == null) {
+            return "";
+        }
+        if (value instanceof Date date) {
+            return date.toInstant().atZone(ZoneId.systemDefault()).toLocalDateTime().toString();
+        }
+        if (value instanceof List<?> list) {
+            return String.join("|", list.stream().map(String::valueOf).toList());
+        }
+        return value.toString();
+    }
+
+    /**
+     * Préfixe d'une apostrophe les cellules commençant par =, +, -, @, tabulation ou retour chariot
+     * (injection de formule à l'ouverture du CSV dans un tableur).
+     */
+    private static String neutralizeFormula(String value) {
+        if (value.isEmpty() || "=+-@\t\r".indexOf(value.charAt(0)) < 0) {
+            return value;
+        }
+        return "'" + value;
+    }
+
+    private static String csvEscape(String value) {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+}
@@ -0,0 +1,643 @@
+package tn.fst.proxiserve.service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.geo.Point;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.geo.GeoJsonPoint;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mongodb.bulk.BulkWriteError;
+
+import jakarta.annotation.PreDestroy;
+import tn.fst.proxiserve.model.Artisan;
+import tn.fst.proxiserve.model.Client;
+import tn.fst.proxiserve.model.ImportJob;
+import tn.fst.proxiserve.model.User;
+import tn.fst.proxiserve.repository.ImportJobRepository;
+
+/**
+ * Import en masse d'artisans ou de clients (reprise des comptes d'un partenaire).
+ *
+ * Le fichier (NDJSON ou CSV avec en-tête, une fiche par ligne) est conservé sur disque puis lu
+ * au fil de l'eau par lots. Pour chaque lot : validation, dédoublonnage des emails contre un
+ * ensemble préchargé depuis users, hachage des mots de passe en parallèle, puis insertions
+ * groupées non ordonnées (users, puis artisans ou clients). Le nombre de lignes traitées est
+ * enregistré après chaque lot : un import interrompu reprend à la ligne suivante.
+ *
+ * Un compte dont le profil n'a pas pu être inséré est supprimé aussitôt ; à la reprise, les comptes
+ * de l'import restés sans profil (arrêt entre les deux insertions) sont supprimés puis réimportés
+ * depuis le fichier. Le fichier contient des mots de passe en clair : il est supprimé à la fin de
+ * l'import, et au plus tard {@code import.upload-retention} après la dernière activité d'un import
+ * en échec ou interrompu.
+ */
+@Service
+public class ImportService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ImportService.class);
+    private static final Pattern EMAIL = Pattern.compile("^[^@\\s]+@[^@\\s]+\\.[^@\\s]+$");
+    private static final int MAX_ERROR_SAMPLES = 100;
+    private static final Map<String, String> ROLES = Map.of(
+            "artisans", "ROLE_ARTISAN",
+            "clients", "ROLE_CLIENT");
+
+    /** Fiche lue dans le fichier, avant validation */
+    private record ImportRow(long line, Map<String, Object> fields) {}
+
+    /** Fiche validée prête à être enregistrée */
+    private record Account(long line, User user, Object profile) {}
+
+    private final MongoTemplate mongoTemplate;
+    private final ImportJobRepository importJobRepository;
+    private final PasswordHashingService passwordHashingService;
+    private final ArtisanCategoryIndex artisanCategoryIndex;
+    private final StatsRollupService statsRollupService;
+    private final ObjectMapper objectMapper;
+    private final Path workDir;
+    private final int batchSize;
+    private final Duration staleAfter;
+    private final Duration uploadRetention;
+    private final ThreadPoolExecutor executor;
+
+    public ImportService(MongoTemplate mongoTemplate,
+                         ImportJobRepository importJobRepository,
+                         PasswordHashingService passwordHashingService,
+                         ArtisanCategoryIndex artisanCategoryIndex,
+                         StatsRollupService statsRollupService,
+                         ObjectMapper objectMapper,
+                         @Value("${import.work-dir:${java.io.tmpdir}/proxiserve-imports}") String workDir,
+                         @Value("${import.batch-size:1000}") int batchSize,
+                         @Value("${import.stale-after:5m}") Duration staleAfter,
+                         @Value("${import.queue-capacity:4}") int queueCapacity,
+                         @Value("${import.upload-retention:24h}") Duration uploadRetention) {
+        this.mongoTemplate = mongoTemplate;
+        this.importJobRepository = importJobRepository;
+        this.passwordHashingService = passwordHashingService;
+        this.artisanCategoryIndex = artisanCategoryIndex;
+        this.statsRollupService = statsRollupService;
+        this.objectMapper = objectMapper;
+        this.workDir = Paths.get(workDir);
+        this.batchSize = batchSize;
+        this.staleAfter = staleAfter;
+        this.uploadRetention = uploadRetention;
+        // Un import à la fois : le hachage occupe déjà tous les cœurs
+        this.executor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "account-import");
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    /**
+     * Enregistre le fichier et lance l'import en arrière-plan.
+     * @param type artisans ou clients.
+     * @param format csv ou ndjson (déduit de l'extension si absent).
+     * @param file Fichier envoyé.
+     * @param createdBy Email de l'administrateur.
+     * @return Import créé (à suivre via son identifiant).
+     */
+    public ImportJob start(String type, String format, MultipartFile file, String createdBy) {
+        if (!ROLES.containsKey(type)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Type d'import inconnu : " + type);
+        }
+        if (file == null || file.isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Fichier d'import vide");
+        }
+
+        ImportJob job = new ImportJob();
+        job.setId(new ObjectId().toHexString());
+        job.setType(type);
+        job.setFormat(resolveFormat(format, file.getOriginalFilename()));
+        job.setFileName(file.getOriginalFilename());
+        job.setFileSize(file.getSize());
+        job.setStatus(ImportJob.QUEUED);
+        job.setCreatedBy(createdBy);
+        job.setCreatedAt(LocalDateTime.now());
+        job.setUpdatedAt(job.getCreatedAt());
+
+        store(job.getId(), file);
+        importJobRepository.save(job);
+        submit(job);
+        logger.info(" Import {} ({}) demandé par {} : {} ({} octets)",
+                type, job.getFormat(), createdBy, job.getFileName(), job.getFileSize());
+        return job;
+    }
+
+    /**
+     * Relance un import interrompu à partir de son dernier point de reprise.
+     * @param jobId Identifiant de l'import.
+     * @param file Fichier d'origine, à renvoyer s'il n'est plus présent sur ce nœud (optionnel).
+     * @return Import relancé.
+     */
+    public ImportJob resume(String jobId, MultipartFile file) {
+        ImportJob job = find(jobId);
+        boolean stale = job.getUpdatedAt() == null
+                || job.getUpdatedAt().isBefore(LocalDateTime.now().minus(staleAfter));
+        if (ImportJob.COMPLETED.equals(job.getStatus())
+                || ((ImportJob.RUNNING.equals(job.getStatus()) || ImportJob.QUEUED.equals(job.getStatus())) && !stale)) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT,
+                    "Import " + job.getStatus() + " : reprise impossible");
+        }
+        if (file != null && !file.isEmpty()) {
+            store(jobId, file);
+        } else if (!Files.exists(uploadPath(jobId))) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT,
+                    "Fichier d'import introuvable sur ce serveur : renvoyez le fichier d'origine");
+        }
+
+        job.setStatus(ImportJob.QUEUED);
+        job.setUpdatedAt(LocalDateTime.now());
+        job.setFinishedAt(null);
+        importJobRepository.save(job);
+        submit(job);
+        logger.info(" Reprise de l'import {} à partir de la ligne {}", jobId, job.getProcessedLines() + 1);
+        return job;
+    }
+
+    public ImportJob find(String jobId) {
+        return importJobRepository.findById(jobId)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Import non trouvé"));
+    }
+
+    public List<ImportJob> recent() {
+        return importJobRepository.findTop20ByOrderByCreatedAtDesc();
+    }
+
+    /**
+     * Supprime les fichiers d'import devenus inutiles (mots de passe en clair) : import inconnu ou terminé,
+     * ou sans activité depuis {@code import.upload-retention} (échec, interruption, nœud arrêté).
+     * Une reprise ultérieure demande alors de renvoyer le fichier d'origine.
+     */
+    @Scheduled(initialDelayString = "${import.upload-purge-interval-ms:3600000}",
+               fixedDelayString = "${import.upload-purge-interval-ms:3600000}")
+    public void purgeUploads() {
+        if (!Files.isDirectory(workDir)) {
+            return;
+        }
+        LocalDateTime expiredBefore = LocalDateTime.now().minus(uploadRetention);
+        try (Stream<Path> uploads = Files.list(workDir)) {
+            uploads.filter(path -> path.getFileName().toString().endsWith(".upload")).forEach(path -> {
+                String jobId = path.getFileName().toString().replace(".upload", "");
+                ImportJob job = importJobRepository.findById(jobId).orElse(null);
+                boolean expired = job == null
+                        || ImportJob.COMPLETED.equals(job.getStatus())
+                        || job.getUpdatedAt() == null
+                        || job.getUpdatedAt().isBefore(expiredBefore);
+                if (expired) {
+                    deleteUpload(jobId, job != null ? job.getStatus() : "inconnu");
+                }
+            });
+        } catch (IOException e) {
+            logger.warn(" Purge des fichiers d'import impossible : {}", e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private void submit(ImportJob job) {
+        try {
+            executor.execute(() -> run(job));
+        } catch (RejectedExecutionException e) {
+            mongoTemplate.updateFirst(Query.query(Criteria.where("id").is(job.getId())),
+                    new Update().set("status", ImportJob.INTERRUPTED).set("updatedAt", LocalDateTime.now()),
+                    ImportJob.class);
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE,
+                    "Trop d'imports en attente, relancez celui-ci plus tard.");
+        }
+    }
+
+    private void run(ImportJob job) {
+        String role = ROLES.get(job.getType());
+        boolean csv = "CSV".equals(job.getFormat());
+        job.setStatus(ImportJob.RUNNING);
+        checkpoint(job);
+
+        try (BufferedReader reader = Files.newBufferedReader(uploadPath(job.getId()), StandardCharsets.UTF_8)) {
+            List<String> header = csv ? parseCsvLine(stripBom(reader.readLine())) : null;
+            long line = 0;
+            // Lignes déjà enregistrées lors d'une exécution précédente
+            while (line < job.getProcessedLines() && reader.readLine() != null) {
+                line++;
+            }
+
+            removeAccountsWithoutProfile(job, role);
+            Set<String> knownEmails = loadKnownEmails();
+            List<ImportRow> batch = new ArrayList<>(batchSize);
+            String raw;
+            while ((raw = reader.readLine()) != null) {
+                line++;
+                if (!raw.isBlank()) {
+                    Map<String, Object> fields = csv ? csvFields(header, raw) : jsonFields(raw, job, line);
+                    if (fields != null) {
+                        batch.add(new ImportRow(line, fields));
+                    }
+                }
+                if (batch.size() >= batchSize) {
+                    writeBatch(job, role, batch, knownEmails);
+                    batch.clear();
+                    job.setProcessedLines(line);
+                    checkpoint(job);
+                }
+            }
+            if (!batch.isEmpty()) {
+                writeBatch(job, role, batch, knownEmails);
+            }
+            job.setProcessedLines(line);
+            job.setStatus(ImportJob.COMPLETED);
+            job.setFinishedAt(LocalDateTime.now());
+            checkpoint(job);
+            Files.deleteIfExists(uploadPath(job.getId()));
+            logger.info(" Import {} terminé : {} comptes créés, {} doublons, {} invalides, {} en échec",
+                    job.getId(), job.getImported(), job.getDuplicates(), job.getInvalid(), job.getFailed());
+        } catch (Exception e) {
+            job.setStatus(ImportJob.FAILED);
+            addError(job, "Import interrompu : " + e.getMessage());
+            checkpoint(job);
+            try {
+                removeAccountsWithoutProfile(job, role);
+            } catch (RuntimeException cleanup) {
+                logger.warn(" Import {} : nettoyage des comptes sans profil reporté à la reprise : {}",
+                        job.getId(), cleanup.getMessage());
+            }
+            logger.error(" Échec de l'import {} après {} lignes : {}", job.getId(), job.getProcessedLines(), e.getMessage());
+        }
+    }
+
+    /**
+     * Valide, dédoublonne, hache et enregistre un lot de fiches.
+     */
+    private void writeBatch(ImportJob job, String role, List<ImportRow> rows, Set<String> knownEmails) {
+        List<Account> accounts = new ArrayList<>(rows.size());
+        List<String> passwords = new ArrayList<>(rows.size());
+        LocalDateTime now = LocalDateTime.now();
+
+        for (ImportRow row : rows) {
+            String error = validate(row.fields(), role);
+            if (error != null) {
+                job.setInvalid(job.getInvalid() + 1);
+                addError(job, "ligne " + row.line() + " : " + error);
+                continue;
+            }
+            String email = text(row.fields(), "email");
+            if (!knownEmails.add(email.toLowerCase(Locale.ROOT))) {
+                job.setDuplicates(job.getDuplicates() + 1);
+                continue;
+            }
+
+            User user = new User();
+            user.setId(new ObjectId().toHexString());
+            user.setEmail(email);
+            user.setRole(role);
+            user.setFullName(textOr(row.fields(), "fullName", "Inconnu"));
+            user.setPhoneNumber(textOr(row.fields(), "phoneNumber", "N/A"));
+            user.setCreatedAt(now);
+            user.setImportJobId(job.getId());
+            passwords.add(text(row.fields(), "password"));
+            accounts.add(new Account(row.line(), user, profile(role, user, row.fields(), now)));
+        }
+        if (accounts.isEmpty()) {
+            return;
+        }
+
+        List<String> hashes = passwordHashingService.encodeAll(passwords);
+        for (int i = 0; i < accounts.size(); i++) {
+            accounts.get(i).user().setPassword(hashes.get(i));
+        }
+
+        // Comptes d'abord : un profil n'est créé que si son utilisateur a bien été inséré
+        Set<Integer> rejected = insertAll(job, User.class, accounts.stream().map(Account::user).toList(), accounts);
+        List<Account> created = new ArrayList<>(accounts.size());
+        for (int i = 0; i < accounts.size(); i++) {
+            if (!rejected.contains(i)) {
+                created.add(accounts.get(i));
+            }
+        }
+        if (created.isEmpty()) {
+            return;
+        }
+
+        Class<?> profileType = "ROLE_ARTISAN".equals(role) ? Artisan.class : Client.class;
+        Set<Integer> rejectedProfiles = insertAll(job, profileType, created.stream().map(Account::profile).toList(), created);
+        List<String> orphans = new ArrayList<>(rejectedProfiles.size());
+        for (int i = 0; i < created.size(); i++) {
+            if (rejectedProfiles.contains(i)) {
+                orphans.add(created.get(i).user().getId());
+            } else if (created.get(i).profile() instanceof Artisan artisan) {
+                artisanCategoryIndex.index(artisan);
+            }
+        }
+        // Pas de compte sans profil : l'email reste disponible pour une nouvelle tentative
+        if (!orphans.isEmpty()) {
+            mongoTemplate.remove(Query.query(Criteria.where("id").in(orphans)), User.class);
+        }
+        int imported = created.size() - rejectedProfiles.size();
+        job.setImported(job.getImported() + imported);
+        statsRollupService.usersRegistered(role, imported, now);
+    }
+
+    /**
+     * Supprime les comptes de cet import restés sans profil (échec ou arrêt entre l'insertion des comptes
+     * et celle des profils). Leur lot n'a pas été validé par un point de reprise : ils seront réimportés.
+     */
+    private void removeAccountsWithoutProfile(ImportJob job, String role) {
+        Query accounts = Query.query(Criteria.where("importJobId").is(job.getId()));
+        accounts.fields().include("id");
+        List<String> userIds = mongoTemplate.find(accounts, User.class).stream().map(User::getId).toList();
+        if (userIds.isEmpty()) {
+            return;
+        }
+        Class<?> profileType = "ROLE_ARTISAN".equals(role) ? Artisan.class : Client.class;
+        Set<String> withProfile = new HashSet<>();
+        for (int from = 0; from < userIds.size(); from += batchSize) {
+            Query profiles = Query.query(Criteria.where("userId").in(userIds.subList(from, Math.min(from + batchSize, userIds.size()))));
+            profiles.fields().include("userId");
+            mongoTemplate.find(profiles, Document.class, mongoTemplate.getCollectionName(profileType))
+                    .forEach(profile -> withProfile.add(profile.getString("userId")));
+        }
+        List<String> orphans = userIds.stream().filter(id -> !withProfile.contains(id)).toList();
+        if (!orphans.isEmpty()) {
+            mongoTemplate.remove(Query.query(Criteria.where("id").in(orphans)), User.class);
+            logger.info(" Import {} : {} comptes sans profil supprimés avant reprise", job.getId(), orphans.size());
+        }
+    }
+
+    /**
+     * Insertion groupée non ordonnée : un doublon (inscription concurrente) n'empêche pas les autres insertions.
+     * @return Index des documents refusés.
+     */
+    private Set<Integer> insertAll(ImportJob job, Class<?> type, List<?> documents, List<Account> accounts) {
+        Set<Integer> rejected = new HashSet<>();
+        try {
+            mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, type).insert(documents).execute();
+        } catch (BulkOperationException e) {
+            for (BulkWriteError error : e.getErrors()) {
+                rejected.add(error.getIndex());
+                job.setFailed(job.getFailed() + 1);
+                addError(job, "ligne " + accounts.get(error.getIndex()).line() + " : "
+                        + (error.getCode() == 11000 ? "email déjà utilisé" : error.getMessage()));
+            }
+        }
+        return rejected;
+    }
+
+    private static Object profile(String role, User user, Map<String, Object> fields, LocalDateTime now) {
+        if ("ROLE_ARTISAN".equals(role)) {
+            Artisan artisan = new Artisan();
+            artisan.setId(new ObjectId().toHexString());
+            artisan.setEmail(user.getEmail());
+            artisan.setUserId(user.getId());
+            artisan.setPhoneNumber(user.getPhoneNumber());
+            artisan.setProfession(textOr(fields, "profession", "Non spécifié"));
+            artisan.setCompanyName(textOr(fields, "companyName", "Entreprise inconnue"));
+            List<String> categories = list(fields, "serviceCategories");
+            artisan.setServiceCategories(categories.isEmpty() ? List.of("Général") : categories);
+            Point point = point(fields);
+            artisan.setLocation(new GeoJsonPoint(point.getX(), point.getY()));
+            artisan.setCreatedAt(now);
+            return artisan;
+        }
+        Client client = new Client();
+        client.setId(new ObjectId().toHexString());
+        client.setUserId(user.getId());
+        client.setEmail(user.getEmail());
+        client.setFullName(user.getFullName());
+        client.setPhoneNumber(user.getPhoneNumber());
+        client.setCreatedAt(now);
+        return client;
+    }
+
+    private static String validate(Map<String, Object> fields, String role) {
+        String email = text(fields, "email");
+        if (email == null || !EMAIL.matcher(email).matches()) {
+            return "email invalide";
+        }
+        String password = text(fields, "password");
+        if (password == null || password.length() < 6) {
+            return "mot de passe absent ou trop court";
+        }
+        if ("ROLE_ARTISAN".equals(role) && point(fields) == null) {
+            return "latitude et longitude requises";
+        }
+        return null;
+    }
+
+    /** @return Point (longitude, latitude), ou null si les coordonnées sont absentes ou invalides. */
+    private static Point point(Map<String, Object> fields) {
+        try {
+            String latitude = text(fields, "latitude");
+            String longitude = text(fields, "longitude");
+            if (latitude == null || longitude == null) {
+                return null;
+            }
+            double lat = Double.parseDouble(latitude);
+            double lng = Double.parseDouble(longitude);
+            return Math.abs(lat) <= 90 && Math.abs(lng) <= 180 ? new Point(lng, lat) : null;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Charge les emails existants (projection sur le seul champ email, lecture en flux).
+     */
+    private Set<String> loadKnownEmails() {
+        Query query = new Query();
+        query.fields().include("email");
+        Set<String> emails = new HashSet<>();
+        try (Stream<User> users = mongoTemplate.stream(query, User.class)) {
+            users.forEach(user -> {
+                if (user.getEmail() != null) {
+                    emails.add(user.getEmail().toLowerCase(Locale.ROOT));
+                }
+            });
+        }
+        return emails;
+    }
+
+    private Map<String, Object> jsonFields(String raw, ImportJob job, long line) {
+        try {
+            JsonNode node = objectMapper.readTree(raw);
+            Map<String, Object> fields = new HashMap<>();
+            node.fields().forEachRemaining(entry -> {
+                JsonNode value = entry.getValue();
+                if (value.isArray()) {
+                    List<String> values = new ArrayList<>();
+                    value.forEach(item -> values.add(item.asText()));
+                    fields.put(entry.getKey(), values);
+                } else if (!value.isNull()) {
+                    fields.put(entry.getKey(), value.asText());
+                }
+            });
+            return fields;
+        } catch (IOException e) {
+            job.setInvalid(job.getInvalid() + 1);
+            addError(job, "ligne " + line + " : JSON illisible");
+            return null;
+        }
+    }
+
+    private static Map<String, Object> csvFields(List<String> header, String raw) {
+        List<String> values = parseCsvLine(raw);
+        Map<String, Object> fields = new HashMap<>();
+        for (int i = 0; i < header.size() && i < values.size(); i++) {
+            if (!values.get(i).isEmpty()) {
+                fields.put(header.get(i).trim(), values.get(i));
+            }
+        }
+        return fields;
+    }
+
+    /**
+     * Découpe une ligne CSV (séparateur virgule, champs entre guillemets, "" pour un guillemet).
+     */
+    private static List<String> parseCsvLine(String line) {
+        List<String> values = new ArrayList<>();
+        if (line == null) {
+            return values;
+        }
+        StringBuilder current = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    current.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    current.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                values.add(current.toString());
+                current.setLength(0);
+            } else {
+                current.append(c);
+            }
+        }
+        values.add(current.toString());
+        return values;
+    }
+
+    private static String text(Map<String, Object> fields, String key) {
+        Object value = fields.get(key);
+        if (value == null) {
+            return null;
+        }
+        String text = value instanceof List<?> list ? String.join("|", list.stream().map(String::valueOf).toList())
+                : value.toString().trim();
+        return text.isEmpty() ? null : text;
+    }
+
+    private static String textOr(Map<String, Object> fields, String key, String fallback) {
+        String value = text(fields, key);
+        return value != null ? value : fallback;
+    }
+
+    /** Liste : tableau JSON ou valeurs séparées par "|" (format des exports CSV) */
+    private static List<String> list(Map<String, Object> fields, String key) {
+        Object value = fields.get(key);
+        if (value instanceof List<?> values) {
+            return values.stream().map(String::valueOf).map(String::trim).filter(v -> !v.isEmpty()).toList();
+        }
+        String text = text(fields, key);
+        return text == null ? List.of()
+                : Arrays.stream(text.split("\\|")).map(String::trim).filter(v -> !v.isEmpty()).toList();
+    }
+
+    private static void addError(ImportJob job, String error) {
+        if (job.getErrors().size() < MAX_ERROR_SAMPLES) {
+            job.getErrors().add(error);
+        }
+    }
+
+    private void checkpoint(ImportJob job) {
+        job.setUpdatedAt(LocalDateTime.now());
+        importJobRepository.save(job);
+    }
+
+    private void store(String jobId, MultipartFile file) {
+        try (InputStream in = file.getInputStream()) {
+            Files.createDirectories(workDir);
+            Files.copy(in, uploadPath(jobId), StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            logger.error(" Impossible d'enregistrer le fichier d'import : {}", e.getMessage());
+            throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Impossible d'enregistrer le fichier d'import");
+        }
+    }
+
+    private void deleteUpload(String jobId, String status) {
+        try {
+            if (Files.deleteIfExists(uploadPath(jobId))) {
+                logger.info(" Fichier de l'import {} ({}) supprimé", jobId, status);
+            }
+        } catch (IOException e) {
+            logger.warn(" Suppression du fichier de l'import {} impossible : {}", jobId, e.getMessage());
+        }
+    }
+
+    private Path uploadPath(String jobId) {
+        return workDir.resolve(jobId + ".upload");
+    }
+
+    private static String resolveFormat(String format, String fileName) {
+        String value = format != null && !format.isBlank() ? format
+                : fileName != null && fileName.toLowerCase(Locale.ROOT).endsWith(".csv") ? "csv" : "ndjson";
+        String normalized = value.toUpperCase(Locale.ROOT);
+        if (!"CSV".equals(normalized) && !"NDJSON".equals(normalized)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Format d'import inconnu : " + format);
+        }
+        return normalized;
+    }
+
+    private static String stripBom(String line) {
+        return line != null && line.startsWith("\uFEFF") ? line.substring(1) : line;
+    }
+}
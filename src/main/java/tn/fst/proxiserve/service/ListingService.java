@@ -0,0 +1,157 @@
+package tn.fst.proxiserve.service;
+
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import tn.fst.proxiserve.dto.UserView;
+import tn.fst.proxiserve.model.Artisan;
+import tn.fst.proxiserve.model.Client;
+import tn.fst.proxiserve.model.ServiceEntity;
+import tn.fst.proxiserve.model.User;
+
+/**
+ * Listes paginées (clients, artisans, services, utilisateurs) pour l'administration.
+ *
+ * Pagination sans count() : taille + 1 documents sont lus pour savoir s'il existe une page suivante.
+ * La taille de page est bornée côté serveur et seuls les tris sur des champs connus sont acceptés.
+ * Les listes sont lues via readMongoTemplate (secondaires, retard borné), sauf la liste des services
+ * dont la réponse est validée par ETag : elle reste lue sur le primaire, comme son numéro de version.
+ */
+@Service
+public class ListingService {
+
+    private static final Set<String> CLIENT_SORTS = Set.of("id", "fullName", "email", "createdAt");
+    private static final Set<String> ARTISAN_SORTS = Set.of("id", "profession", "companyName", "createdAt");
+    private static final Set<String> SERVICE_SORTS = Set.of("id", "title", "price");
+    private static final Set<String> USER_SORTS = Set.of("id", "email", "fullName", "role", "createdAt");
+
+    private final MongoTemplate mongoTemplate;
+    private final MongoTemplate readMongoTemplate;
+    private final int maxPageSize;
+
+    public ListingService(MongoTemplate mongoTemplate,
+                          @Qualifier("readMongoTemplate") MongoTemplate readMongoTemplate,
+                          @Value("${listing.max-page-size:100}") int maxPageSize) {
+        this.mongoTemplate = mongoTemplate;
+        this.readMongoTemplate = readMongoTemplate;
+        this.maxPageSize = maxPageSize;
+    }
+
+    /**
+     * @param name Filtre sur le nom (contient, insensible à la casse), optionnel.
+     * @param pageable Page, taille et tri demandés.
+     */
+    public Slice<Client> listClients(String name, Pageable pageable) {
+        Criteria criteria = new Criteria();
+        if (hasText(name)) {
+            criteria.and("fullName").regex(Pattern.quote(name.trim()), "i");
+        }
+        return slice(criteria, pageable, CLIENT_SORTS, Client.class, readMongoTemplate);
+    }
+
+    /**
+     * @param profession Profession (égalité sur la clé normalisée), optionnelle.
+     * @param category Catégorie de service (clé normalisée), optionnelle.
+     * @param pageable Page, taille et tri demandés.
+     */
+    public Slice<Artisan> listArtisans(String profession, String category, Pageable pageable) {
+        Criteria criteria = new Criteria();
+        if (hasText(profession)) {
+            criteria.and("professionKey").is(Artisan.normalizeKey(profession));
+        }
+        if (hasText(category)) {
+            criteria.and("categoryKeys").is(Artisan.normalizeKey(category));
+        }
+        return slice(criteria, pageable, ARTISAN_SORTS, Artisan.class, readMongoTemplate);
+    }
+
+    /**
+     * @param artisanId Services d'un artisan, optionnel.
+     * @param minPrice Prix minimum, optionnel.
+     * @param maxPrice Prix maximum, optionnel.
+     * @param pageable Page, taille et tri demandés.
+     */
+    public Slice<ServiceEntity> listServices(String artisanId, Double minPrice, Double maxPrice, Pageable pageable) {
+        Criteria criteria = new Criteria();
+        if (hasText(artisanId)) {
+            criteria.and("artisanId").is(artisanId);
+        }
+        if (minPrice != null || maxPrice != null) {
+            Criteria price = criteria.and("price");
+            if (minPrice != null) {
+                price.gte(minPrice);
+            }
+            if (maxPrice != null) {
+                price.lte(maxPrice);
+            }
+        }
+        return slice(criteria, pageable, SERVICE_SORTS, ServiceEntity.class, mongoTemplate);
+    }
+
+    /**
+     * @param role Rôle (ROLE_CLIENT, ROLE_ARTISAN, ROLE_ADMIN), optionnel.
+     * @param pageable Page, taille et tri demandés.
+     */
+    public Slice<UserView> listUsers(String role, Pageable pageable) {
+        Criteria criteria = new Criteria();
+        if (hasText(role)) {
+            criteria.and("role").is(role.trim().toUpperCase());
+        }
+        Query query = new Query(criteria);
+        // Seuls les champs affichés sont lus : jamais d'empreinte de mot de passe ni de jeton
+        query.fields().include("email", "fullName", "phoneNumber", "role", "accountLocked", "createdAt");
+        return slice(query, pageable, USER_SORTS, User.class, readMongoTemplate).map(UserView::of);
+    }
+
+    private <T> Slice<T> slice(Criteria criteria, Pageable pageable, Set<String> allowedSorts, Class<T> type,
+                               MongoTemplate source) {
+        return slice(new Query(criteria), pageable, allowedSorts, type, source);
+    }
+
+    private <T> Slice<T> slice(Query query, Pageable pageable, Set<String> allowedSorts, Class<T> type,
+                               MongoTemplate source) {
+        Pageable bounded = bound(pageable, allowedSorts);
+        query.with(bounded.getSort())
+             .skip(bounded.getOffset())
+             .limit(bounded.getPageSize() + 1);
+
+        List<T> rows = source.find(query, type);
+        boolean hasNext = rows.size() > bounded.getPageSize();
+        List<T> content = hasNext ? rows.subList(0, bounded.getPageSize()) : rows;
+        return new SliceImpl<>(content, bounded, hasNext);
+    }
+
+    /**
+     * Borne la taille de page et valide le tri (tri par identifiant par défaut, stable d'une page à l'autre).
+     */
+    private Pageable bound(Pageable pageable, Set<String> allowedSorts) {
+        for (Sort.Order order : pageable.getSort()) {
+            if (!allowedSorts.contains(order.getProperty())) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                        "Tri non autorisé : " + order.getProperty() + " (autorisés : " + allowedSorts + ")");
+            }
+        }
+        Sort sort = pageable.getSort().getOrderFor("id") != null ? pageable.getSort() : pageable.getSort().and(Sort.by("id"));
+        int size = Math.min(Math.max(pageable.getPageSize(), 1), maxPageSize);
+        return PageRequest.of(pageable.getPageNumber(), size, sort);
+    }
+
+    private static boolean hasText(String value) {
+        return value != null && !value.isBlank();
+    }
+}
@@ -1,111 +1,286 @@
 package tn.fst.proxiserve.service;
 
+import java.time.Duration;
+import java.time.Instant;
 import java.time.LocalDateTime;
-import java.time.temporal.ChronoUnit;
-import java.util.Optional;
+import java.time.ZoneId;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
-import lombok.RequiredArgsConstructor;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import jakarta.annotation.PreDestroy;
+import tn.fst.proxiserve.config.WriteConcernPolicy;
 import tn.fst.proxiserve.model.User;
-import tn.fst.proxiserve.repository.UserRepository;
+import tn.fst.proxiserve.model.WriteClass;
 
 /**
  * Service pour gérer les tentatives de connexion et le verrouillage des comptes après plusieurs échecs.
+ *
+ * Les compteurs sont tenus en mémoire (compteurs atomiques par compte, fenêtre de 15 minutes) :
+ * une connexion ne coûte plus aucun aller-retour MongoDB. Seules les transitions
+ * verrouillé / déverrouillé sont persistées, de manière asynchrone.
+ *
+ * Le nombre de comptes suivis est borné ({@code login.attempts.max-tracked}) : des échecs sur des
+ * emails arbitraires ne font pas grossir la mémoire. Le verrou persisté (posé par n'importe quel nœud)
+ * est lu sur l'utilisateur déjà chargé par la connexion : aucune requête supplémentaire.
  */
 @Service
-@RequiredArgsConstructor
 public class LoginAttemptService {
 
     private static final Logger logger = LoggerFactory.getLogger(LoginAttemptService.class);
     private static final int MAX_ATTEMPTS = 5;
     private static final int LOCK_TIME_DURATION = 15; // Minutes
+    private static final long LOCK_TIME_MS = TimeUnit.MINUTES.toMillis(LOCK_TIME_DURATION);
+
+    private final MongoTemplate mongoTemplate;
 
-    private final UserRepository userRepository;
+    private final Cache<String, AttemptCounter> attempts;
 
+    private final ExecutorService persistenceExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "login-lock-flush");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public LoginAttemptService(MongoTemplate mongoTemplate,
+                               @Value("${login.attempts.max-tracked:100000}") long maxTracked) {
+        this.mongoTemplate = mongoTemplate;
+        // Un compteur inactif au-delà de la fenêtre et du verrou n'a plus d'effet
+        this.attempts = Caffeine.newBuilder()
+                .maximumSize(maxTracked)
+                .expireAfterAccess(Duration.ofMillis(2 * LOCK_TIME_MS))
+                .build();
+    }
 
     /**
      * Incrémente le nombre d'échecs de connexion et verrouille le compte si nécessaire.
      * @param email Email de l'utilisateur.
      */
-    @Transactional
     public void loginFailed(String email) {
-        Optional<User> userOpt = userRepository.findByEmail(email);
-        if (userOpt.isEmpty()) {
-            logger.warn(" Tentative de connexion avec un email inconnu : {}", email);
-            return;
-        }
-
-        User user = userOpt.get();
+        long now = System.currentTimeMillis();
+        AttemptCounter counter = attempts.get(key(email), k -> new AttemptCounter(now));
 
         // Si le compte est déjà verrouillé, ne rien faire
-        if (user.isAccountLocked()) {
+        if (counter.isLocked(now)) {
             logger.warn(" Tentative de connexion sur un compte déjà verrouillé : {}", email);
             return;
         }
 
-        user.setFailedLoginAttempts(user.getFailedLoginAttempts() + 1);
-        logger.info(" Échec de connexion n°{} pour l'utilisateur : {}", user.getFailedLoginAttempts(), email);
+        if (counter.unlockIfExpired(now)) {
+            persistLockState(email, false, now);
+        }
+        counter.rollWindow(now);
+        int failures = counter.failures.incrementAndGet();
+        logger.info(" Échec de connexion n°{} pour l'utilisateur : {}", failures, email);
 
-        if (user.getFailedLoginAttempts() >= MAX_ATTEMPTS) {
-            user.setAccountLocked(true);
-            user.setLockTime(LocalDateTime.now());
+        // Un seul thread remporte la transition et déclenche l'écriture
+        if (failures >= MAX_ATTEMPTS && counter.lock(now)) {
             logger.warn(" Le compte de l'utilisateur {} est verrouillé pour {} minutes", email, LOCK_TIME_DURATION);
+            persistLockState(email, true, now);
         }
-
-        userRepository.save(user);
     }
 
     /**
-     * Réinitialise le compteur d'échecs et déverrouille le compte après une connexion réussie.
+     * Réinitialise le compteur d'échecs après une connexion réussie.
+     * Aucune écriture n'est effectuée si le compte n'était pas verrouillé.
      * @param email Email de l'utilisateur.
      */
-    @Transactional
     public void loginSucceeded(String email) {
-        Optional<User> userOpt = userRepository.findByEmail(email);
-        if (userOpt.isEmpty()) return;
-
-        User user = userOpt.get();
-        user.setFailedLoginAttempts(0);
-        user.setAccountLocked(false);
-        user.setLockTime(null);
-        userRepository.save(user);
-
+        AttemptCounter counter = attempts.asMap().remove(key(email));
+        if (counter != null && counter.lockedUntil.get() != 0) {
+            persistLockState(email, false, System.currentTimeMillis());
+        }
         logger.info(" Connexion réussie : le compte {} a été réinitialisé", email);
     }
 
     /**
-     * Vérifie si un utilisateur est bloqué en raison de trop nombreuses tentatives de connexion échouées.
+     * Vérifie si un utilisateur est bloqué localement, avant toute lecture en base.
      * Si le temps de verrouillage est écoulé, le compte est automatiquement déverrouillé.
      * @param email Email de l'utilisateur.
      * @return `true` si le compte est bloqué, `false` sinon.
      */
     public boolean isBlocked(String email) {
-        Optional<User> userOpt = userRepository.findByEmail(email);
-        if (userOpt.isEmpty()) return false;
-    
-        User user = userOpt.get();
-    
-        if (user.isAccountLocked()) {
-            long minutesSinceLock = ChronoUnit.MINUTES.between(user.getLockTime(), LocalDateTime.now());
-    
-            if (minutesSinceLock >= 15) { // Déverrouillage après 15 minutes
-                user.setAccountLocked(false);
-                user.setFailedLoginAttempts(0);
-                user.setLockTime(null);
-                userRepository.save(user);
-                logger.info("Le compte {} a été automatiquement déverrouillé après {} minutes", email, minutesSinceLock);
-                return false;
+        return isBlocked(email, null);
+    }
+
+    /**
+     * Vérifie si un utilisateur est bloqué : verrou local, sinon verrou persisté par un autre nœud,
+     * lu sur l'utilisateur déjà chargé (accountLocked, lockTime). Un drapeau persisté dont le délai
+     * est écoulé (déverrouillage pas encore écrit) ne bloque pas.
+     * Si le temps de verrouillage est écoulé, le compte est automatiquement déverrouillé.
+     * @param email Email de l'utilisateur.
+     * @param user Utilisateur chargé par la connexion, ou null.
+     * @return `true` si le compte est bloqué, `false` sinon.
+     */
+    public boolean isBlocked(String email, User user) {
+        long now = System.currentTimeMillis();
+        AttemptCounter counter = attempts.getIfPresent(key(email));
+        if ((counter == null || !counter.isLocked(now)) && user != null && user.isAccountLocked()
+                && user.getLockTime() != null) {
+            AttemptCounter persisted = lockedCounter(user.getLockTime());
+            if (persisted.isLocked(now)) {
+                attempts.put(key(email), persisted);
+                counter = persisted;
             }
-    
-            logger.warn("Le compte {} est toujours verrouillé. Temps restant : {} minutes", email, 15 - minutesSinceLock);
+        }
+        if (counter == null) return false;
+
+        if (counter.isLocked(now)) {
+            long minutesLeft = TimeUnit.MILLISECONDS.toMinutes(counter.lockedUntil.get() - now);
+            logger.warn("Le compte {} est toujours verrouillé. Temps restant : {} minutes", email, minutesLeft);
             return true;
         }
-    
+
+        if (counter.unlockIfExpired(now)) {
+            attempts.asMap().remove(key(email), counter);
+            persistLockState(email, false, now);
+            logger.info("Le compte {} a été automatiquement déverrouillé après {} minutes", email, LOCK_TIME_DURATION);
+        }
         return false;
     }
-    
+
+    /**
+     * Recharge au démarrage les verrous encore actifs en base (redémarrage, autre nœud).
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadActiveLocks() {
+        LocalDateTime threshold = LocalDateTime.now().minusMinutes(LOCK_TIME_DURATION);
+        Query query = Query.query(Criteria.where("accountLocked").is(true).and("lockTime").gt(threshold));
+        query.fields().include("email", "lockTime");
+
+        mongoTemplate.find(query, User.class)
+                .forEach(user -> attempts.put(key(user.getEmail()), lockedCounter(user.getLockTime())));
+        logger.info(" {} verrous de compte actifs rechargés", attempts.estimatedSize());
+    }
+
+    /**
+     * Purge périodique : supprime les compteurs dont la fenêtre ou le verrou a expiré et
+     * déverrouille en base, en une seule requête, les comptes dont le verrou est échu.
+     */
+    @Scheduled(fixedDelayString = "${login.attempts.sweep-interval-ms:60000}")
+    public void sweep() {
+        long now = System.currentTimeMillis();
+        attempts.asMap().entrySet().removeIf(entry -> {
+            long lockedUntil = entry.getValue().lockedUntil.get();
+            return lockedUntil == 0
+                    ? now - entry.getValue().windowStart.get() >= LOCK_TIME_MS
+                    : lockedUntil <= now;
+        });
+
+        persistenceExecutor.execute(() -> {
+            try {
+                Query expired = Query.query(Criteria.where("accountLocked").is(true)
+                        .and("lockTime").lte(LocalDateTime.now().minusMinutes(LOCK_TIME_DURATION)));
+                long unlocked = WriteConcernPolicy.callAs(WriteClass.FAST,
+                        () -> mongoTemplate.updateMulti(expired, unlockUpdate(), User.class).getModifiedCount());
+                if (unlocked > 0) {
+                    logger.info(" {} comptes déverrouillés automatiquement en base", unlocked);
+                }
+            } catch (Exception e) {
+                logger.error(" Échec du déverrouillage périodique des comptes : {}", e.getMessage());
+            }
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        persistenceExecutor.shutdown();
+    }
+
+    private void persistLockState(String email, boolean locked, long timestamp) {
+        Update update = locked
+                ? new Update().set("accountLocked", true)
+                              .set("failedLoginAttempts", MAX_ATTEMPTS)
+                              .set("lockTime", LocalDateTime.ofInstant(
+                                      Instant.ofEpochMilli(timestamp), ZoneId.systemDefault()))
+                : unlockUpdate();
+
+        persistenceExecutor.execute(() -> {
+            try {
+                // L'état en mémoire fait foi : une écriture perdue est rattrapée au prochain échec ou par la purge
+                WriteConcernPolicy.runAs(WriteClass.FAST, () ->
+                        mongoTemplate.updateFirst(Query.query(Criteria.where("email").is(email)), update, User.class));
+            } catch (Exception e) {
+                logger.error(" Échec de la persistance du verrou pour {} : {}", email, e.getMessage());
+            }
+        });
+    }
+
+    private static AttemptCounter lockedCounter(LocalDateTime lockTime) {
+        long lockedAt = lockTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        AttemptCounter counter = new AttemptCounter(lockedAt);
+        counter.failures.set(MAX_ATTEMPTS);
+        counter.lockedUntil.set(lockedAt + LOCK_TIME_MS);
+        return counter;
+    }
+
+    private static Update unlockUpdate() {
+        return new Update().set("accountLocked", false)
+                           .set("failedLoginAttempts", 0)
+                           .unset("lockTime");
+    }
+
+    private static String key(String email) {
+        return email == null ? "" : email.trim().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Compteur d'échecs d'un compte, sans verrou : fenêtre temporelle, nombre d'échecs et fin de verrouillage.
+     */
+    private static final class AttemptCounter {
+
+        private final AtomicLong windowStart;
+        private final AtomicInteger failures = new AtomicInteger();
+        private final AtomicLong lockedUntil = new AtomicLong(); // 0 = non verrouillé
+
+        private AttemptCounter(long now) {
+            this.windowStart = new AtomicLong(now);
+        }
+
+        /** Remet le compteur à zéro si la fenêtre courante est expirée (décroissance par fenêtre). */
+        private void rollWindow(long now) {
+            long start = windowStart.get();
+            if (now - start >= LOCK_TIME_MS && windowStart.compareAndSet(start, now)) {
+                failures.set(0);
+            }
+        }
+
+        private boolean isLocked(long now) {
+            return lockedUntil.get() > now;
+        }
+
+        /** @return true si cet appel a effectué la transition vers l'état verrouillé. */
+        private boolean lock(long now) {
+            return lockedUntil.compareAndSet(0, now + LOCK_TIME_MS);
+        }
+
+        /** @return true si cet appel a effectué la transition vers l'état déverrouillé. */
+        private boolean unlockIfExpired(long now) {
+            long current = lockedUntil.get();
+            if (current != 0 && current <= now && lockedUntil.compareAndSet(current, 0)) {
+                failures.set(0);
+                windowStart.set(now);
+                return true;
+            }
+            return false;
+        }
+    }
 }
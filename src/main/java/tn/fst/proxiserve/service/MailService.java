@@ -1,35 +1,121 @@
 package tn.fst.proxiserve.service;
 
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.context.event.EventListener;
 import org.springframework.mail.SimpleMailMessage;
 import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PreDestroy;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
  * Service pour l'envoi d'emails via SMTP.
+ *
+ * Les envois sont mis en file et traités par un pool dédié : une requête HTTP n'attend jamais
+ * le serveur SMTP. La connexion SMTP est vérifiée en tâche de fond (après le démarrage puis
+ * périodiquement) et son état est exposé par SmtpHealthIndicator.
  */
 @Service
+@Lazy // Service externe initialisé au premier envoi
 public class MailService {
 
     private static final Logger logger = LoggerFactory.getLogger(MailService.class);
     private final JavaMailSender mailSender;
+    private final ThreadPoolExecutor executor;
 
     @Value("${spring.mail.username}") // Récupère l'email de l'expéditeur depuis application.properties
     private String fromEmail;
 
-    public MailService(JavaMailSender mailSender) {
+    private volatile Boolean reachable;
+    private volatile String lastFailure;
+    private volatile long lastCheckAtMillis;
+
+    public MailService(JavaMailSender mailSender,
+                       @Value("${mail.async.threads:2}") int threads,
+                       @Value("${mail.async.queue-capacity:1000}") int queueCapacity) {
         this.mailSender = mailSender;
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "mail-sender");
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
     }
 
     /**
-     * Envoie un email avec les paramètres spécifiés.
+     * Met en file l'envoi d'un email avec les paramètres spécifiés.
      * @param to Destinataire de l'email.
      * @param subject Sujet de l'email.
      * @param body Corps du message.
      */
     public void sendEmail(String to, String subject, String body) {
+        try {
+            executor.execute(() -> send(to, subject, body));
+        } catch (RejectedExecutionException e) {
+            logger.error(" File d'envoi des emails pleine, email non envoyé à : {}", to);
+        }
+    }
+
+    /**
+     * @return true/false selon la dernière vérification SMTP, null si aucune vérification n'a encore eu lieu.
+     */
+    public Boolean isReachable() {
+        return reachable;
+    }
+
+    public String lastFailure() {
+        return lastFailure;
+    }
+
+    public long lastCheckAtMillis() {
+        return lastCheckAtMillis;
+    }
+
+    /**
+     * @return Nombre d'emails en attente d'envoi.
+     */
+    public int pendingCount() {
+        return executor.getQueue().size();
+    }
+
+    /**
+     * Première vérification SMTP une fois l'application prête, sur le pool d'envoi.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        scheduleConnectionCheck();
+    }
+
+    @Scheduled(initialDelayString = "${mail.health.check-interval-ms:300000}",
+               fixedDelayString = "${mail.health.check-interval-ms:300000}")
+    public void scheduleConnectionCheck() {
+        try {
+            executor.execute(this::checkConnection);
+        } catch (RejectedExecutionException e) {
+            // File pleine : les envois en cours renseigneront l'état
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    private void send(String to, String subject, String body) {
         try {
             SimpleMailMessage message = new SimpleMailMessage();
             message.setTo(to);
@@ -38,9 +124,41 @@ public class MailService {
             message.setFrom(fromEmail); // Définit l'expéditeur
 
             mailSender.send(message);
+            markReachable();
             logger.info(" Email envoyé avec succès à : {}", to);
         } catch (Exception e) {
+            markUnreachable(e);
             logger.error(" Échec de l'envoi de l'email à : {} | Erreur : {}", to, e.getMessage());
         }
     }
+
+    private void checkConnection() {
+        if (!(mailSender instanceof JavaMailSenderImpl sender)) {
+            return;
+        }
+        try {
+            sender.testConnection();
+            if (!Boolean.TRUE.equals(reachable)) {
+                logger.info(" Serveur SMTP joignable : {}:{}", sender.getHost(), sender.getPort());
+            }
+            markReachable();
+        } catch (Exception e) {
+            if (!Boolean.FALSE.equals(reachable)) {
+                logger.warn(" Serveur SMTP injoignable ({}:{}) : {}", sender.getHost(), sender.getPort(), e.getMessage());
+            }
+            markUnreachable(e);
+        }
+    }
+
+    private void markReachable() {
+        reachable = true;
+        lastFailure = null;
+        lastCheckAtMillis = System.currentTimeMillis();
+    }
+
+    private void markUnreachable(Exception e) {
+        reachable = false;
+        lastFailure = e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
+        lastCheckAtMillis = System.currentTimeMillis();
+    }
 }
@@ -0,0 +1,236 @@
+package tn.fst.proxiserve.service;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import tn.fst.proxiserve.model.User;
+
+/**
+ * Service de hachage des mots de passe (BCrypt) sur un pool dédié et borné.
+ * Les calculs BCrypt ne monopolisent plus les threads Tomcat sans limite : au-delà de la
+ * capacité de la file, la requête est refusée (503) au lieu de dégrader toute l'application.
+ */
+@Service
+public class PasswordHashingService {
+
+    private static final Logger logger = LoggerFactory.getLogger(PasswordHashingService.class);
+
+    private final PasswordEncoder passwordEncoder;
+    private final MongoTemplate mongoTemplate;
+    private final int targetStrength;
+    private final long timeoutMs;
+    private final ThreadPoolExecutor executor;
+    private final ForkJoinPool bulkPool;
+    private final Timer hashingTimer;
+    private final Counter rejectedCounter;
+    /** Empreinte d'un secret aléatoire, au coût configuré : vérification factice des comptes inconnus */
+    private final String dummyHash;
+
+    public PasswordHashingService(PasswordEncoder passwordEncoder,
+                                  MongoTemplate mongoTemplate,
+                                  MeterRegistry meterRegistry,
+                                  @Value("${security.password.bcrypt-strength:10}") int targetStrength,
+                                  @Value("${security.password.hashing-threads:0}") int threads,
+                                  @Value("${security.password.hashing-queue-capacity:200}") int queueCapacity,
+                                  @Value("${security.password.hashing-timeout-ms:5000}") long timeoutMs,
+                                  @Value("${security.password.bulk-hashing-threads:0}") int bulkThreads) {
+        this.passwordEncoder = passwordEncoder;
+        this.mongoTemplate = mongoTemplate;
+        this.targetStrength = targetStrength;
+        this.timeoutMs = timeoutMs;
+        this.dummyHash = passwordEncoder.encode(UUID.randomUUID().toString());
+
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "password-hashing-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+
+        // Pool séparé pour les imports en masse : ne consomme pas la file des requêtes
+        this.bulkPool = new ForkJoinPool(bulkThreads > 0 ? bulkThreads : Runtime.getRuntime().availableProcessors());
+
+        Gauge.builder("proxiserve.password.hashing.queue.depth", executor, e -> e.getQueue().size())
+                .description("Calculs BCrypt en attente")
+                .register(meterRegistry);
+        Gauge.builder("proxiserve.password.hashing.active", executor, ThreadPoolExecutor::getActiveCount)
+                .description("Calculs BCrypt en cours")
+                .register(meterRegistry);
+        this.hashingTimer = Timer.builder("proxiserve.password.hashing.duration")
+                .description("Durée d'un calcul BCrypt (hors attente)")
+                .register(meterRegistry);
+        this.rejectedCounter = Counter.builder("proxiserve.password.hashing.rejected")
+                .description("Calculs refusés car la file est pleine")
+                .register(meterRegistry);
+
+        logger.info(" Pool de hachage initialisé : {} threads, file de {} (coût BCrypt {})",
+                poolSize, queueCapacity, targetStrength);
+    }
+
+    /**
+     * Encode un mot de passe sur le pool dédié.
+     * @param rawPassword Mot de passe en clair.
+     * @return Empreinte BCrypt.
+     * @throws ResponseStatusException 503 si le pool est saturé.
+     */
+    public String encode(String rawPassword) {
+        return submit(() -> passwordEncoder.encode(rawPassword));
+    }
+
+    /**
+     * Encode un lot de mots de passe en parallèle sur tous les cœurs (imports en masse).
+     * Le calcul se fait sur un pool distinct de celui des connexions et inscriptions.
+     * @param rawPasswords Mots de passe en clair.
+     * @return Empreintes BCrypt, dans le même ordre.
+     */
+    public List<String> encodeAll(List<String> rawPasswords) {
+        try {
+            return bulkPool.submit(() -> rawPasswords.parallelStream()
+                    .map(raw -> hashingTimer.record(() -> passwordEncoder.encode(raw)))
+                    .toList()).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Hachage des mots de passe interrompu", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Échec du hachage des mots de passe", e.getCause());
+        }
+    }
+
+    /**
+     * Vérifie un mot de passe sur le pool dédié (un seul calcul BCrypt par connexion).
+     * @param rawPassword Mot de passe saisi.
+     * @param encodedPassword Empreinte stockée.
+     * @return true si le mot de passe correspond.
+     * @throws ResponseStatusException 503 si le pool est saturé.
+     */
+    public boolean matches(String rawPassword, String encodedPassword) {
+        if (encodedPassword == null) {
+            return false;
+        }
+        return submit(() -> passwordEncoder.matches(rawPassword, encodedPassword));
+    }
+
+    /**
+     * Vérification factice pour un compte inconnu : même calcul BCrypt, sur le même pool, qu'une
+     * vérification réelle. La latence ne révèle pas l'existence d'un compte et chaque essai coûte
+     * autant à l'attaquant.
+     * @param rawPassword Mot de passe saisi.
+     * @throws ResponseStatusException 503 si le pool est saturé.
+     */
+    public void matchesDummy(String rawPassword) {
+        submit(() -> passwordEncoder.matches(rawPassword, dummyHash));
+    }
+
+    /**
+     * Indique si une empreinte a été calculée avec un coût différent du coût configuré.
+     * @param encodedPassword Empreinte BCrypt (ex : $2a$10$...).
+     * @return true si l'empreinte doit être recalculée.
+     */
+    public boolean needsRehash(String encodedPassword) {
+        if (encodedPassword == null || !encodedPassword.startsWith("$2")) {
+            return false;
+        }
+        String[] parts = encodedPassword.split("\\$");
+        try {
+            return parts.length > 2 && Integer.parseInt(parts[2]) != targetStrength;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Recalcule en arrière-plan l'empreinte d'un utilisateur qui vient de s'authentifier
+     * si le coût BCrypt configuré a changé. Aucune migration n'est nécessaire :
+     * les comptes sont mis à niveau au fil des connexions.
+     * @param user Utilisateur authentifié.
+     * @param rawPassword Mot de passe en clair, déjà vérifié.
+     */
+    public void rehashIfNeeded(User user, String rawPassword) {
+        String currentHash = user.getPassword();
+        if (!needsRehash(currentHash)) {
+            return;
+        }
+        try {
+            executor.execute(() -> {
+                String newHash = passwordEncoder.encode(rawPassword);
+                // Condition sur l'ancienne empreinte : ne pas écraser un changement de mot de passe concurrent
+                mongoTemplate.updateFirst(
+                        Query.query(Criteria.where("id").is(user.getId()).and("password").is(currentHash)),
+                        Update.update("password", newHash), User.class);
+                logger.info(" Empreinte du mot de passe mise à niveau (coût {}) pour {}", targetStrength, user.getEmail());
+            });
+        } catch (RejectedExecutionException e) {
+            // Pool saturé : la mise à niveau sera retentée à la prochaine connexion
+            rejectedCounter.increment();
+        }
+    }
+
+    /**
+     * @return Nombre de calculs en attente dans la file.
+     */
+    public int getQueueDepth() {
+        return executor.getQueue().size();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+        bulkPool.shutdown();
+    }
+
+    private <T> T submit(Callable<T> task) {
+        Future<T> future;
+        try {
+            future = executor.submit(() -> hashingTimer.recordCallable(task));
+        } catch (RejectedExecutionException e) {
+            rejectedCounter.increment();
+            logger.warn(" Pool de hachage saturé ({} en attente) : requête refusée", executor.getQueue().size());
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE,
+                    "Service temporairement surchargé, veuillez réessayer.");
+        }
+
+        try {
+            return future.get(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE,
+                    "Service temporairement surchargé, veuillez réessayer.");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Hachage du mot de passe interrompu", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Échec du hachage du mot de passe", e.getCause());
+        }
+    }
+}
@@ -0,0 +1,196 @@
+package tn.fst.proxiserve.service;
+
+import java.security.GeneralSecurityException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.paypal.api.payments.Event;
+import com.paypal.base.Constants;
+import com.paypal.base.rest.APIContext;
+import com.paypal.base.rest.OAuthTokenCredential;
+import com.paypal.base.rest.PayPalRESTException;
+
+/**
+ * Client de la passerelle PayPal.
+ * Le jeton OAuth est mis en cache et rafraîchi en arrière-plan avant son expiration ;
+ * chaque appel reçoit un {@link APIContext} neuf construit à partir du jeton en cache.
+ * Le premier jeton est demandé en tâche de fond une fois l'application prête : le démarrage
+ * ne dépend jamais de la disponibilité de PayPal (état exposé par PayPalHealthIndicator).
+ */
+@Component
+@Lazy // Classes du SDK chargées au premier paiement, pas au démarrage
+public class PayPalGateway {
+
+    private static final Logger logger = LoggerFactory.getLogger(PayPalGateway.class);
+    private static final int UNAUTHORIZED = 401;
+
+    /**
+     * Appel au SDK PayPal recevant un contexte authentifié.
+     */
+    @FunctionalInterface
+    public interface PayPalCall<T> {
+        T execute(APIContext context) throws PayPalRESTException;
+    }
+
+    private record CachedToken(String value, long expiresAtMillis) {}
+
+    private final String clientId;
+    private final String clientSecret;
+    private final Map<String, String> sdkConfig;
+    private final long refreshMarginMs;
+
+    private volatile CachedToken token;
+    private volatile String lastFailure;
+    private volatile long lastAttemptAtMillis;
+
+    public PayPalGateway(@Value("${paypal.client.id}") String clientId,
+                         @Value("${paypal.client.secret}") String clientSecret,
+                         @Value("${paypal.token.refresh-margin-seconds:300}") long refreshMarginSeconds,
+                         Map<String, String> paypalSdkConfig) {
+        this.clientId = clientId;
+        this.clientSecret = clientSecret;
+        this.sdkConfig = Map.copyOf(paypalSdkConfig);
+        this.refreshMarginMs = refreshMarginSeconds * 1000;
+    }
+
+    /**
+     * Construit un contexte d'appel avec le jeton en cache (obtenu à la demande s'il est absent ou expiré).
+     * @return APIContext prêt à l'emploi.
+     * @throws PayPalRESTException si le jeton ne peut pas être obtenu.
+     */
+    public APIContext apiContext() throws PayPalRESTException {
+        APIContext context = new APIContext(accessToken());
+        context.setConfigurationMap(sdkConfig);
+        return context;
+    }
+
+    /**
+     * Exécute un appel PayPal ; en cas de 401 (jeton révoqué), le jeton est renouvelé et l'appel rejoué une fois.
+     * @param call Appel au SDK.
+     * @return Résultat de l'appel.
+     * @throws PayPalRESTException en cas d'échec PayPal.
+     */
+    public <T> T execute(PayPalCall<T> call) throws PayPalRESTException {
+        try {
+            return call.execute(apiContext());
+        } catch (PayPalRESTException e) {
+            if (e.getResponsecode() != UNAUTHORIZED) {
+                throw e;
+            }
+            logger.warn(" Jeton PayPal refusé (401), renouvellement et nouvel essai");
+            token = null;
+            return call.execute(apiContext());
+        }
+    }
+
+    /**
+     * Vérifie la signature d'une notification webhook PayPal (certificat PayPal, CRC du corps, identifiant du webhook).
+     * Ne consomme pas de jeton OAuth.
+     * @param webhookId Identifiant du webhook déclaré chez PayPal.
+     * @param headers En-têtes PAYPAL-* de la requête (noms en majuscules).
+     * @param body Corps brut de la notification.
+     * @return true si la signature est valide.
+     */
+    public boolean verifyWebhookSignature(String webhookId, Map<String, String> headers, String body) {
+        Map<String, String> config = new HashMap<>(sdkConfig);
+        config.put(Constants.PAYPAL_WEBHOOK_ID, webhookId);
+        APIContext context = new APIContext();
+        context.setConfigurationMap(config);
+        try {
+            return Event.validateReceivedEvent(context, headers, body);
+        } catch (PayPalRESTException | GeneralSecurityException e) {
+            logger.warn(" Signature de webhook PayPal invalide : {}", e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * @return true si un jeton valide est en cache.
+     */
+    public boolean hasValidToken() {
+        CachedToken current = token;
+        return current != null && current.expiresAtMillis() > System.currentTimeMillis();
+    }
+
+    /**
+     * @return Message du dernier échec d'obtention du jeton, null si la dernière tentative a réussi.
+     */
+    public String lastFailure() {
+        return lastFailure;
+    }
+
+    /**
+     * @return Date (epoch ms) de la dernière tentative d'obtention du jeton, 0 si aucune.
+     */
+    public long lastAttemptAtMillis() {
+        return lastAttemptAtMillis;
+    }
+
+    /**
+     * Premier jeton obtenu hors du thread de démarrage, une fois le serveur prêt à répondre.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        CompletableFuture.runAsync(this::refreshIfExpiring);
+    }
+
+    /**
+     * Rafraîchissement proactif : le jeton est renouvelé avant d'entrer dans la marge d'expiration,
+     * de sorte qu'aucune requête utilisateur n'attende l'appel OAuth.
+     */
+    @Scheduled(initialDelayString = "${paypal.token.initial-delay-ms:5000}",
+               fixedDelayString = "${paypal.token.check-interval-ms:60000}")
+    public void refreshIfExpiring() {
+        CachedToken current = token;
+        if (current != null && current.expiresAtMillis() - System.currentTimeMillis() > refreshMarginMs) {
+            return;
+        }
+        try {
+            refresh();
+        } catch (PayPalRESTException e) {
+            logger.error(" Échec du rafraîchissement du jeton PayPal : {}", e.getMessage());
+        }
+    }
+
+    private String accessToken() throws PayPalRESTException {
+        CachedToken current = token;
+        if (current != null && current.expiresAtMillis() > System.currentTimeMillis()) {
+            return current.value();
+        }
+        synchronized (this) {
+            current = token;
+            if (current != null && current.expiresAtMillis() > System.currentTimeMillis()) {
+                return current.value();
+            }
+            return refresh().value();
+        }
+    }
+
+    private synchronized CachedToken refresh() throws PayPalRESTException {
+        lastAttemptAtMillis = System.currentTimeMillis();
+        OAuthTokenCredential credential = new OAuthTokenCredential(clientId, clientSecret, sdkConfig);
+        String accessToken;
+        try {
+            accessToken = credential.getAccessToken();
+        } catch (PayPalRESTException | RuntimeException e) {
+            lastFailure = e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
+            throw e;
+        }
+        long expiresInSeconds = credential.expiresIn();
+        CachedToken refreshed = new CachedToken(accessToken, System.currentTimeMillis() + expiresInSeconds * 1000);
+        token = refreshed;
+        lastFailure = null;
+        logger.info(" Jeton PayPal renouvelé (expire dans {} s)", expiresInSeconds);
+        return refreshed;
+    }
+}
@@ -0,0 +1,389 @@
+package tn.fst.proxiserve.service;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.paypal.api.payments.Payment;
+import com.paypal.api.payments.PaymentExecution;
+import com.paypal.api.payments.Transaction;
+import com.paypal.base.rest.PayPalRESTException;
+
+import jakarta.annotation.PreDestroy;
+import tn.fst.proxiserve.cache.ServiceCache;
+import tn.fst.proxiserve.config.WriteConcernPolicy;
+import tn.fst.proxiserve.model.Booking;
+import tn.fst.proxiserve.model.Client;
+import tn.fst.proxiserve.model.PaymentRecord;
+import tn.fst.proxiserve.model.ServiceEntity;
+import tn.fst.proxiserve.repository.BookingRepository;
+import tn.fst.proxiserve.repository.ClientRepository;
+import tn.fst.proxiserve.repository.UserRepository;
+
+/**
+ * Orchestration des paiements PayPal.
+ *
+ * La redirection de retour PayPal ne fait qu'enregistrer l'approbation (APPROVED) et rend la main ;
+ * l'exécution est confiée à un pool de workers. Chaque exécution est protégée par un bail
+ * (claimedAt) et identifiée auprès de PayPal par l'identifiant du paiement, ce qui la rend idempotente.
+ * Un réconciliateur périodique répercute en masse les paiements exécutés sur les réservations.
+ *
+ * Le montant et la devise sont fixés côté serveur à partir du prix du service réservé, pour une
+ * réservation du client connecté ; une réservation ne passe à PAID que si le montant exécuté
+ * chez PayPal correspond au montant attendu.
+ */
+@Service
+public class PaymentOrchestrationService {
+
+    private static final Logger logger = LoggerFactory.getLogger(PaymentOrchestrationService.class);
+    private static final String RECONCILE_LOCK = "payment-reconcile";
+    private static final Set<String> UNPAYABLE_STATUSES = Set.of("CANCELLED", "REJECTED", "EXPIRED");
+
+    /**
+     * Paiement à demander pour une réservation : montant et devise calculés côté serveur.
+     */
+    public record BookingCharge(String bookingId, String clientId, String amount, String currency) {}
+
+    private final MongoTemplate mongoTemplate;
+    private final WriteConcernPolicy writeConcernPolicy;
+    private final PayPalGateway payPalGateway;
+    private final StatsRollupService statsRollupService;
+    private final SchedulerLockService schedulerLockService;
+    private final UserRepository userRepository;
+    private final ClientRepository clientRepository;
+    private final BookingRepository bookingRepository;
+    private final ServiceCache serviceCache;
+    private final String currency;
+    private final int maxAttempts;
+    private final long claimLeaseSeconds;
+    private final int reconcileBatchSize;
+    private final Duration reconcileLease;
+    private final ThreadPoolExecutor executor;
+
+    public PaymentOrchestrationService(MongoTemplate mongoTemplate,
+                                       WriteConcernPolicy writeConcernPolicy,
+                                       @Lazy PayPalGateway payPalGateway,
+                                       StatsRollupService statsRollupService,
+                                       SchedulerLockService schedulerLockService,
+                                       UserRepository userRepository,
+                                       ClientRepository clientRepository,
+                                       BookingRepository bookingRepository,
+                                       ServiceCache serviceCache,
+                                       @Value("${payments.currency:EUR}") String currency,
+                                       @Value("${payments.execution-threads:4}") int threads,
+                                       @Value("${payments.execution-queue-capacity:1000}") int queueCapacity,
+                                       @Value("${payments.max-attempts:5}") int maxAttempts,
+                                       @Value("${payments.claim-lease-seconds:120}") long claimLeaseSeconds,
+                                       @Value("${payments.reconcile-batch-size:500}") int reconcileBatchSize,
+                                       @Value("${payments.reconcile-lease-seconds:60}") long reconcileLeaseSeconds) {
+        this.mongoTemplate = mongoTemplate;
+        this.writeConcernPolicy = writeConcernPolicy;
+        this.payPalGateway = payPalGateway;
+        this.statsRollupService = statsRollupService;
+        this.schedulerLockService = schedulerLockService;
+        this.userRepository = userRepository;
+        this.clientRepository = clientRepository;
+        this.bookingRepository = bookingRepository;
+        this.serviceCache = serviceCache;
+        this.currency = currency;
+        this.maxAttempts = maxAttempts;
+        this.claimLeaseSeconds = claimLeaseSeconds;
+        this.reconcileBatchSize = reconcileBatchSize;
+        this.reconcileLease = Duration.ofSeconds(reconcileLeaseSeconds);
+
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "payment-execution-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    /**
+     * Montant dû pour une réservation du client connecté.
+     * @param email Email de l'utilisateur connecté.
+     * @param bookingId Réservation à payer.
+     * @return Réservation, client, montant (prix du service) et devise.
+     * @throws ResponseStatusException 404 si la réservation ou son service est introuvable,
+     * 403 si elle appartient à un autre client, 409 si elle est déjà payée ou n'est plus payable.
+     */
+    public BookingCharge chargeFor(String email, String bookingId) {
+        Client client = currentClient(email);
+        Booking booking = bookingRepository.findById(bookingId)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Réservation introuvable"));
+        if (!client.getId().equals(booking.getClientId())) {
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Réservation non autorisée");
+        }
+        if ("PAID".equals(booking.getPaymentStatus()) || UNPAYABLE_STATUSES.contains(booking.getStatus())) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "Réservation déjà payée ou non payable");
+        }
+        ServiceEntity service = serviceCache.findById(booking.getServiceId())
+                .filter(s -> s.getPrice() != null && s.getPrice() > 0)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Service de la réservation introuvable"));
+        return new BookingCharge(booking.getId(), client.getId(), formatAmount(service.getPrice()), currency);
+    }
+
+    /**
+     * Paiement consultable par le client propriétaire de la réservation.
+     * @throws ResponseStatusException 404 si le paiement est inconnu, 403 s'il appartient à un autre client.
+     */
+    public PaymentRecord findForClient(String email, String paymentId) {
+        PaymentRecord record = find(paymentId);
+        if (record == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Paiement introuvable");
+        }
+        if (record.getClientId() == null || !record.getClientId().equals(currentClient(email).getId())) {
+            throw new ResponseStatusException(HttpStatus.FORBIDDEN, "Paiement non autorisé");
+        }
+        return record;
+    }
+
+    /**
+     * Enregistre un paiement créé auprès de PayPal (état CREATED). Sans effet s'il existe déjà.
+     * @param paymentId Identifiant PayPal du paiement.
+     * @param charge Réservation, client et montant attendus.
+     */
+    public void register(String paymentId, BookingCharge charge) {
+        Update update = new Update()
+                .setOnInsert("status", PaymentRecord.CREATED)
+                .setOnInsert("bookingId", charge.bookingId())
+                .setOnInsert("clientId", charge.clientId())
+                .setOnInsert("amount", charge.amount())
+                .setOnInsert("currency", charge.currency())
+                .setOnInsert("attempts", 0)
+                .setOnInsert("createdAt", LocalDateTime.now());
+        mongoTemplate.upsert(Query.query(Criteria.where("paymentId").is(paymentId)), update, PaymentRecord.class);
+    }
+
+    /**
+     * Enregistre l'approbation du payeur (retour de redirection PayPal) et planifie l'exécution.
+     * Idempotent : une redirection rejouée renvoie l'état courant sans nouvelle exécution.
+     * Seul un paiement enregistré par {@link #register} peut être approuvé : la réservation
+     * payée est celle fixée à la création, jamais un paramètre de la redirection.
+     *
+     * @param paymentId Identifiant PayPal du paiement.
+     * @param payerId   Identifiant du payeur.
+     * @return État du paiement après l'appel, null si le paiement est inconnu.
+     */
+    public PaymentRecord approve(String paymentId, String payerId) {
+        Query query = Query.query(Criteria.where("paymentId").is(paymentId).and("status").is(PaymentRecord.CREATED));
+        Update update = new Update()
+                .set("status", PaymentRecord.APPROVED)
+                .set("payerId", payerId)
+                .set("approvedAt", LocalDateTime.now());
+
+        PaymentRecord record = mongoTemplate.findAndModify(query, update,
+                FindAndModifyOptions.options().returnNew(true), PaymentRecord.class);
+        if (record == null) {
+            // Inconnu, ou déjà approuvé (ou au-delà) : redirection rejouée
+            record = mongoTemplate.findById(paymentId, PaymentRecord.class);
+            logger.info(" Approbation ignorée pour le paiement {} (état {})", paymentId,
+                    record != null ? record.getStatus() : null);
+            return record;
+        }
+
+        logger.info(" Paiement {} approuvé par {}, exécution planifiée", paymentId, payerId);
+        schedule(paymentId);
+        return record;
+    }
+
+    /**
+     * @param paymentId Identifiant PayPal du paiement.
+     * @return Suivi du paiement, ou null s'il est inconnu.
+     */
+    public PaymentRecord find(String paymentId) {
+        return mongoTemplate.findById(paymentId, PaymentRecord.class);
+    }
+
+    /**
+     * Exécute un paiement approuvé, si ce nœud en obtient le bail.
+     * @param paymentId Identifiant PayPal du paiement.
+     */
+    void executeApproved(String paymentId) {
+        LocalDateTime now = LocalDateTime.now();
+        Query claimQuery = Query.query(Criteria.where("paymentId").is(paymentId)
+                .and("status").is(PaymentRecord.APPROVED)
+                .orOperator(Criteria.where("claimedAt").is(null),
+                            Criteria.where("claimedAt").lt(now.minusSeconds(claimLeaseSeconds))));
+        PaymentRecord record = mongoTemplate.findAndModify(claimQuery,
+                new Update().set("claimedAt", now).inc("attempts", 1),
+                FindAndModifyOptions.options().returnNew(true), PaymentRecord.class);
+        if (record == null) {
+            return; // Déjà pris en charge ou déjà exécuté
+        }
+
+        try {
+            PaymentExecution execution = new PaymentExecution();
+            execution.setPayerId(record.getPayerId());
+            Payment payment = new Payment();
+            payment.setId(paymentId);
+
+            Payment executed = payPalGateway.execute(context -> {
+                // Même identifiant de requête à chaque tentative : PayPal déduplique l'exécution
+                context.setRequestId(paymentId + "-execute");
+                return payment.execute(context, execution);
+            });
+
+            Update done = new Update().set("status", PaymentRecord.EXECUTED)
+                                      .set("executedAt", LocalDateTime.now())
+                                      .unset("claimedAt")
+                                      .unset("lastError");
+            Transaction transaction = executed != null && executed.getTransactions() != null
+                    && !executed.getTransactions().isEmpty() ? executed.getTransactions().get(0) : null;
+            if (transaction != null && transaction.getAmount() != null) {
+                // Contrôlé par le réconciliateur avant de marquer la réservation payée
+                done.set("executedAmount", transaction.getAmount().getTotal())
+                    .set("executedCurrency", transaction.getAmount().getCurrency());
+            }
+            mongoTemplate.updateFirst(Query.query(Criteria.where("paymentId").is(paymentId)), done, PaymentRecord.class);
+            logger.info(" Paiement {} exécuté", paymentId);
+        } catch (PayPalRESTException e) {
+            boolean exhausted = record.getAttempts() >= maxAttempts;
+            Update failure = new Update().set("lastError", e.getMessage()).unset("claimedAt");
+            if (exhausted) {
+                failure.set("status", PaymentRecord.FAILED);
+            }
+            mongoTemplate.updateFirst(Query.query(Criteria.where("paymentId").is(paymentId)), failure, PaymentRecord.class);
+            logger.error(" Échec de l'exécution du paiement {} (tentative {}/{}) : {}",
+                    paymentId, record.getAttempts(), maxAttempts, e.getMessage());
+        }
+    }
+
+    /**
+     * Réconciliation périodique :
+     * - relance les paiements approuvés non exécutés (bail expiré, file saturée, redémarrage) ;
+     * - répercute en un seul bulkWrite les paiements exécutés sur les réservations.
+     * Un seul nœud réconcilie à la fois (verrou payment-reconcile).
+     */
+    @Scheduled(fixedDelayString = "${payments.reconcile-interval-ms:10000}")
+    public void reconcile() {
+        if (!schedulerLockService.tryAcquire(RECONCILE_LOCK, reconcileLease)) {
+            return;
+        }
+        retryPendingExecutions();
+
+        Query executed = Query.query(Criteria.where("status").is(PaymentRecord.EXECUTED))
+                .with(Sort.by("executedAt"))
+                .limit(reconcileBatchSize);
+        List<PaymentRecord> records = mongoTemplate.find(executed, PaymentRecord.class);
+        if (records.isEmpty()) {
+            return;
+        }
+
+        // Montant exécuté différent du montant attendu : la réservation n'est pas marquée payée
+        records.stream().filter(r -> r.getBookingId() != null && !amountMatches(r)).forEach(r -> {
+            logger.error(" Paiement {} : montant exécuté {} {} différent du montant attendu {} {}", r.getPaymentId(),
+                    r.getExecutedAmount(), r.getExecutedCurrency(), r.getAmount(), r.getCurrency());
+            mongoTemplate.updateFirst(
+                    Query.query(Criteria.where("paymentId").is(r.getPaymentId()).and("status").is(PaymentRecord.EXECUTED)),
+                    new Update().set("status", PaymentRecord.FAILED)
+                                .set("lastError", "Montant exécuté différent du montant attendu"),
+                    PaymentRecord.class);
+        });
+
+        List<PaymentRecord> withBooking = records.stream()
+                .filter(r -> r.getBookingId() != null && amountMatches(r))
+                .toList();
+        if (!withBooking.isEmpty()) {
+            LocalDateTime paidAt = LocalDateTime.now();
+            // Marqueur propre à ce lot : seules les réservations qu'il fait passer à PAID sont comptées
+            String marker = UUID.randomUUID().toString();
+
+            BulkOperations bulk = writeConcernPolicy.bulkOps(BulkOperations.BulkMode.UNORDERED, Booking.class);
+            withBooking.forEach(r -> bulk.updateOne(
+                    Query.query(Criteria.where("id").is(r.getBookingId()).and("paymentStatus").ne("PAID")),
+                    new Update().set("paymentStatus", "PAID")
+                                .set("paymentMethod", "paypal")
+                                .set("paymentCompleted", true)
+                                .set("paidAt", paidAt)
+                                .set("paidBy", marker)));
+            bulk.execute();
+            statsRollupService.bookingsPaidBy(withBooking.stream().map(PaymentRecord::getBookingId).toList(),
+                    marker, paidAt);
+        }
+
+        List<String> ids = records.stream().map(PaymentRecord::getPaymentId).toList();
+        mongoTemplate.updateMulti(
+                Query.query(Criteria.where("paymentId").in(ids).and("status").is(PaymentRecord.EXECUTED)),
+                new Update().set("status", PaymentRecord.RECONCILED).set("reconciledAt", LocalDateTime.now()),
+                PaymentRecord.class);
+        logger.info(" {} paiements réconciliés ({} réservations mises à jour)", records.size(), withBooking.size());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    /**
+     * @return true si PayPal a exécuté exactement le montant et la devise fixés à la création.
+     */
+    static boolean amountMatches(PaymentRecord record) {
+        if (record.getAmount() == null || record.getExecutedAmount() == null
+                || record.getCurrency() == null || !record.getCurrency().equalsIgnoreCase(record.getExecutedCurrency())) {
+            return false;
+        }
+        try {
+            return new BigDecimal(record.getAmount()).compareTo(new BigDecimal(record.getExecutedAmount())) == 0;
+        } catch (NumberFormatException e) {
+            return false;
+        }
+    }
+
+    private static String formatAmount(double price) {
+        return BigDecimal.valueOf(price).setScale(2, RoundingMode.HALF_UP).toPlainString();
+    }
+
+    private Client currentClient(String email) {
+        String userId = userRepository.findByEmail(email)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Utilisateur non trouvé"))
+                .getId();
+        return clientRepository.findByUserId(userId)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.FORBIDDEN, "Client non trouvé"));
+    }
+
+    private void retryPendingExecutions() {
+        Query stale = Query.query(Criteria.where("status").is(PaymentRecord.APPROVED)
+                .orOperator(Criteria.where("claimedAt").is(null),
+                            Criteria.where("claimedAt").lt(LocalDateTime.now().minusSeconds(claimLeaseSeconds))))
+                .limit(reconcileBatchSize);
+        stale.fields().include("paymentId");
+        mongoTemplate.find(stale, PaymentRecord.class).forEach(r -> schedule(r.getPaymentId()));
+    }
+
+    private void schedule(String paymentId) {
+        try {
+            executor.execute(() -> executeApproved(paymentId));
+        } catch (RejectedExecutionException e) {
+            // File saturée : le réconciliateur relancera l'exécution
+            logger.warn(" File d'exécution des paiements saturée, paiement {} différé", paymentId);
+        }
+    }
+}
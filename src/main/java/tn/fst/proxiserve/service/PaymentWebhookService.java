@@ -0,0 +1,359 @@
+package tn.fst.proxiserve.service;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.http.HttpHeaders;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import jakarta.annotation.PreDestroy;
+import tn.fst.proxiserve.config.WriteConcernPolicy;
+import tn.fst.proxiserve.model.Booking;
+import tn.fst.proxiserve.model.PaymentEvent;
+import tn.fst.proxiserve.model.PaymentRecord;
+
+/**
+ * Réception des notifications webhook PayPal.
+ *
+ * La requête est acquittée dès que la notification est vérifiée et enregistrée (collection
+ * payment_events, clé = identifiant de l'événement) ; un consommateur unique vide la file par lots,
+ * ne garde que l'événement le plus récent par réservation et applique le tout en un seul bulkWrite.
+ * Les événements ne sont marqués PROCESSED qu'après ce bulkWrite : un lot en échec, une file pleine
+ * ou un redémarrage laissent des événements PENDING, repris périodiquement.
+ *
+ * La réservation est toujours celle du suivi de paiement enregistré côté serveur, jamais un champ
+ * de la notification. Chaque mise à jour est conditionnée par la date de l'événement
+ * (paymentEventAt) : les rejeux et les événements arrivés dans le désordre sont sans effet.
+ */
+@Service
+public class PaymentWebhookService {
+
+    private static final Logger logger = LoggerFactory.getLogger(PaymentWebhookService.class);
+    private static final String RETRY_LOCK = "payment-webhook-retry";
+
+    /** Statut de paiement de la réservation par type d'événement PayPal */
+    private static final Map<String, String> PAYMENT_STATUS_BY_EVENT = Map.of(
+            "PAYMENT.SALE.COMPLETED", "PAID",
+            "PAYMENT.SALE.DENIED", "FAILED",
+            "PAYMENT.SALE.REFUNDED", "REFUNDED",
+            "PAYMENT.SALE.REVERSED", "REFUNDED",
+            "PAYMENT.CAPTURE.COMPLETED", "PAID",
+            "PAYMENT.CAPTURE.DENIED", "FAILED",
+            "PAYMENT.CAPTURE.REFUNDED", "REFUNDED"
+    );
+
+    /** Événement retenu pour une réservation à l'issue de la coalescence */
+    private record BookingEvent(String eventId, String paymentStatus, LocalDateTime occurredAt) {}
+
+    private final MongoTemplate mongoTemplate;
+    private final WriteConcernPolicy writeConcernPolicy;
+    private final PayPalGateway payPalGateway;
+    private final StatsRollupService statsRollupService;
+    private final SchedulerLockService schedulerLockService;
+    private final ObjectMapper objectMapper;
+    private final String webhookId;
+    private final boolean verifySignature;
+    private final int batchSize;
+    private final Duration retryAfter;
+    private final BlockingQueue<PaymentEvent> queue;
+    private final Thread consumer;
+
+    private volatile boolean running = true;
+
+    public PaymentWebhookService(MongoTemplate mongoTemplate,
+                                 WriteConcernPolicy writeConcernPolicy,
+                                 @Lazy PayPalGateway payPalGateway,
+                                 StatsRollupService statsRollupService,
+                                 SchedulerLockService schedulerLockService,
+                                 ObjectMapper objectMapper,
+                                 @Value("${paypal.webhook.id:}") String webhookId,
+                                 @Value("${paypal.webhook.verify-signature:true}") boolean verifySignature,
+                                 @Value("${paypal.webhook.queue-capacity:50000}") int queueCapacity,
+                                 @Value("${paypal.webhook.batch-size:1000}") int batchSize,
+                                 @Value("${paypal.webhook.retry-after-seconds:120}") long retryAfterSeconds) {
+        this.mongoTemplate = mongoTemplate;
+        this.writeConcernPolicy = writeConcernPolicy;
+        this.payPalGateway = payPalGateway;
+        this.statsRollupService = statsRollupService;
+        this.schedulerLockService = schedulerLockService;
+        this.objectMapper = objectMapper;
+        this.webhookId = webhookId;
+        this.verifySignature = verifySignature;
+        this.batchSize = batchSize;
+        this.retryAfter = Duration.ofSeconds(retryAfterSeconds);
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.consumer = new Thread(this::consume, "payment-webhook-consumer");
+        this.consumer.setDaemon(true);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (verifySignature && webhookId.isBlank()) {
+            logger.warn(" paypal.webhook.id non configuré : toutes les notifications seront refusées");
+        }
+        consumer.start();
+    }
+
+    /**
+     * Vérifie la signature de la notification.
+     * @param headers En-têtes de la requête.
+     * @param body Corps brut.
+     * @return true si la notification est authentique (ou si la vérification est désactivée).
+     */
+    public boolean verify(HttpHeaders headers, String body) {
+        if (!verifySignature) {
+            return true;
+        }
+        if (webhookId.isBlank()) {
+            return false;
+        }
+        Map<String, String> paypalHeaders = new HashMap<>();
+        headers.forEach((name, values) -> {
+            if (name.toUpperCase(Locale.ROOT).startsWith("PAYPAL-") && !values.isEmpty()) {
+                paypalHeaders.put(name.toUpperCase(Locale.ROOT), values.get(0));
+            }
+        });
+        return payPalGateway.verifyWebhookSignature(webhookId, paypalHeaders, body);
+    }
+
+    /**
+     * Enregistre une notification vérifiée (PENDING) puis la met en file sans attendre.
+     * Une notification déjà reçue est acquittée sans nouvel enregistrement.
+     * @param body Corps brut de la notification.
+     * @return false si la notification n'a pas pu être enregistrée (PayPal la renverra plus tard).
+     */
+    public boolean enqueue(String body) {
+        JsonNode event = parse(body);
+        String eventId = event != null ? event.path("id").asText(null) : null;
+        if (eventId == null || eventId.isBlank()) {
+            logger.warn(" Notification PayPal sans identifiant ignorée");
+            return true;
+        }
+
+        PaymentEvent stored = new PaymentEvent(eventId, body, PaymentEvent.PENDING, LocalDateTime.now(), null);
+        try {
+            mongoTemplate.insert(stored);
+        } catch (DuplicateKeyException e) {
+            logger.info(" Notification PayPal {} déjà reçue", eventId);
+            return true;
+        } catch (DataAccessException e) {
+            logger.error(" Enregistrement de la notification PayPal {} impossible : {}", eventId, e.getMessage());
+            return false;
+        }
+
+        if (!queue.offer(stored)) {
+            // Enregistrée : reprise par retryPending une fois la file désengorgée
+            logger.warn(" File des webhooks PayPal pleine ({} en attente) : notification {} différée", queue.size(), eventId);
+        }
+        return true;
+    }
+
+    /**
+     * Reprise des notifications restées PENDING (lot en échec, file pleine, redémarrage).
+     * Un seul nœud par passage ; l'application est idempotente (paymentEventAt).
+     */
+    @Scheduled(initialDelayString = "${paypal.webhook.retry-interval-ms:60000}",
+               fixedDelayString = "${paypal.webhook.retry-interval-ms:60000}")
+    public void retryPending() {
+        if (!schedulerLockService.tryAcquire(RETRY_LOCK, retryAfter)) {
+            return;
+        }
+        Query pending = Query.query(Criteria.where("status").is(PaymentEvent.PENDING)
+                        .and("receivedAt").lt(LocalDateTime.now().minus(retryAfter)))
+                .with(Sort.by("receivedAt"))
+                .limit(Math.max(0, Math.min(batchSize, queue.remainingCapacity())));
+        List<PaymentEvent> events = mongoTemplate.find(pending, PaymentEvent.class);
+        events.forEach(queue::offer);
+        if (!events.isEmpty()) {
+            logger.info(" {} notifications PayPal en attente remises en file", events.size());
+        }
+    }
+
+    /**
+     * @return Nombre de notifications en attente de traitement.
+     */
+    public int getQueueDepth() {
+        return queue.size();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        running = false;
+        consumer.interrupt();
+    }
+
+    private void consume() {
+        List<PaymentEvent> batch = new ArrayList<>(batchSize);
+        while (running) {
+            try {
+                PaymentEvent first = queue.poll(1, TimeUnit.SECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                apply(batch);
+                markProcessed(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                // Événements laissés PENDING : repris par retryPending
+                logger.error(" Échec du traitement d'un lot de {} notifications PayPal : {}", batch.size(), e.getMessage());
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    /**
+     * Applique un lot de notifications : coalescence par paiement puis par réservation,
+     * résolution des réservations en une requête et un seul bulkWrite conditionnel.
+     */
+    void apply(List<PaymentEvent> events) {
+        Set<String> seenEventIds = new HashSet<>();
+        Map<String, BookingEvent> byPaymentId = new HashMap<>();
+
+        for (PaymentEvent stored : events) {
+            JsonNode event = parse(stored.getBody());
+            if (event == null || !seenEventIds.add(event.path("id").asText())) {
+                continue; // Corps illisible ou rejeu dans le même lot
+            }
+            String paymentStatus = PAYMENT_STATUS_BY_EVENT.get(event.path("event_type").asText());
+            JsonNode resource = event.path("resource");
+            String paymentId = resource.path("parent_payment").asText(null);
+            LocalDateTime occurredAt = parseTime(event.path("create_time").asText(null));
+            if (paymentStatus == null || paymentId == null || occurredAt == null) {
+                continue; // Événement non pertinent pour les réservations
+            }
+
+            BookingEvent candidate = new BookingEvent(event.path("id").asText(), paymentStatus, occurredAt);
+            byPaymentId.merge(paymentId, candidate,
+                    (current, incoming) -> incoming.occurredAt().isAfter(current.occurredAt()) ? incoming : current);
+        }
+        if (byPaymentId.isEmpty()) {
+            return;
+        }
+
+        Map<String, String> bookingByPaymentId = resolveBookings(byPaymentId.keySet());
+
+        Map<String, BookingEvent> byBookingId = new HashMap<>();
+        byPaymentId.forEach((paymentId, event) -> {
+            String bookingId = bookingByPaymentId.get(paymentId);
+            if (bookingId != null) {
+                byBookingId.merge(bookingId, event,
+                        (current, incoming) -> incoming.occurredAt().isAfter(current.occurredAt()) ? incoming : current);
+            }
+        });
+        if (byBookingId.isEmpty()) {
+            return;
+        }
+
+        // Marqueur propre à ce lot : seules les réservations qu'il fait passer à PAID sont comptées
+        LocalDateTime paidAt = LocalDateTime.now();
+        String marker = UUID.randomUUID().toString();
+        List<String> paidBookingIds = new ArrayList<>();
+
+        BulkOperations bulk = writeConcernPolicy.bulkOps(BulkOperations.BulkMode.UNORDERED, Booking.class);
+        byBookingId.forEach((bookingId, event) -> {
+            // Seul un événement plus récent que le dernier appliqué modifie la réservation
+            Criteria newer = new Criteria().orOperator(
+                    Criteria.where("paymentEventAt").exists(false),
+                    Criteria.where("paymentEventAt").lt(event.occurredAt()));
+            Update update = new Update()
+                    .set("paymentStatus", event.paymentStatus())
+                    .set("paymentCompleted", "PAID".equals(event.paymentStatus()))
+                    .set("paymentMethod", "paypal")
+                    .set("paymentEventAt", event.occurredAt())
+                    .set("paymentEventId", event.eventId());
+            if (!"PAID".equals(event.paymentStatus())) {
+                bulk.updateOne(Query.query(Criteria.where("id").is(bookingId).andOperator(newer)), update);
+                return;
+            }
+            // Passage à PAID : paidAt et marqueur posés uniquement si la réservation n'était pas déjà payée.
+            // Les deux filtres s'excluent ; après le premier, paymentEventAt n'est plus antérieur à l'événement.
+            paidBookingIds.add(bookingId);
+            bulk.updateOne(Query.query(Criteria.where("id").is(bookingId).and("paymentStatus").ne("PAID").andOperator(newer)),
+                    update.set("paidAt", paidAt).set("paidBy", marker));
+            bulk.updateOne(Query.query(Criteria.where("id").is(bookingId).and("paymentStatus").is("PAID").andOperator(newer)),
+                    new Update().set("paymentEventAt", event.occurredAt()).set("paymentEventId", event.eventId()));
+        });
+        int modified = bulk.execute().getModifiedCount();
+        statsRollupService.bookingsPaidBy(paidBookingIds, marker, paidAt);
+        logger.info(" Webhooks PayPal : {} notifications, {} réservations concernées, {} mises à jour",
+                events.size(), byBookingId.size(), modified);
+    }
+
+    /**
+     * Réservation de chaque paiement, d'après le suivi enregistré à la création du paiement.
+     */
+    private Map<String, String> resolveBookings(Set<String> paymentIds) {
+        Map<String, String> bookingByPaymentId = new HashMap<>();
+        Query query = Query.query(Criteria.where("paymentId").in(paymentIds).and("bookingId").ne(null));
+        query.fields().include("paymentId", "bookingId");
+        mongoTemplate.find(query, PaymentRecord.class)
+                .forEach(record -> bookingByPaymentId.put(record.getPaymentId(), record.getBookingId()));
+        return bookingByPaymentId;
+    }
+
+    private void markProcessed(List<PaymentEvent> events) {
+        List<String> ids = events.stream().map(PaymentEvent::getEventId).toList();
+        mongoTemplate.updateMulti(
+                Query.query(Criteria.where("eventId").in(ids).and("status").is(PaymentEvent.PENDING)),
+                new Update().set("status", PaymentEvent.PROCESSED).set("processedAt", LocalDateTime.now()),
+                PaymentEvent.class);
+    }
+
+    private JsonNode parse(String body) {
+        try {
+            return objectMapper.readTree(body);
+        } catch (IOException e) {
+            logger.warn(" Notification PayPal illisible ignorée : {}", e.getMessage());
+            return null;
+        }
+    }
+
+    private static LocalDateTime parseTime(String value) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            return LocalDateTime.ofInstant(Instant.parse(value), ZoneId.systemDefault());
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,212 @@
+package tn.fst.proxiserve.service;
+
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.data.geo.Distance;
+import org.springframework.data.geo.Metrics;
+import org.springframework.data.geo.Point;
+import org.springframework.data.mongodb.core.ReactiveMongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.geo.GeoJsonPoint;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import tn.fst.proxiserve.dto.RatingStatsView;
+import tn.fst.proxiserve.dto.ReviewView;
+import tn.fst.proxiserve.model.Artisan;
+import tn.fst.proxiserve.model.Review;
+import tn.fst.proxiserve.model.ServiceEntity;
+import tn.fst.proxiserve.model.User;
+import tn.fst.proxiserve.repository.reactive.ReactiveArtisanRepository;
+import tn.fst.proxiserve.repository.reactive.ReactiveReviewRepository;
+import tn.fst.proxiserve.repository.reactive.ReactiveServiceRepository;
+
+/**
+ * Lectures non bloquantes (profil "reactive") : recherche de proximité, recherche avancée
+ * de services et avis d'un artisan.
+ *
+ * Les résultats sont lus par lots ({@code reactive.batch-size}) et enrichis lot par lot
+ * (notes moyennes, noms des clients) en une requête par lot ; concatMap conserve l'ordre
+ * et ne demande un nouveau lot au curseur que lorsque le client a consommé le précédent.
+ */
+@Service
+@Profile("reactive")
+public class ReactiveSearchService {
+
+    private final ReactiveArtisanRepository artisanRepository;
+    private final ReactiveServiceRepository serviceRepository;
+    private final ReactiveReviewRepository reviewRepository;
+    private final ReactiveMongoTemplate reactiveMongoTemplate;
+    private final ArtisanCategoryIndex artisanCategoryIndex;
+    private final int batchSize;
+
+    public ReactiveSearchService(ReactiveArtisanRepository artisanRepository,
+                                 ReactiveServiceRepository serviceRepository,
+                                 ReactiveReviewRepository reviewRepository,
+                                 ReactiveMongoTemplate reactiveMongoTemplate,
+                                 ArtisanCategoryIndex artisanCategoryIndex,
+                                 @Value("${reactive.batch-size:256}") int batchSize) {
+        this.artisanRepository = artisanRepository;
+        this.serviceRepository = serviceRepository;
+        this.reviewRepository = reviewRepository;
+        this.reactiveMongoTemplate = reactiveMongoTemplate;
+        this.artisanCategoryIndex = artisanCategoryIndex;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Artisans proches, filtrés par catégorie et/ou profession, avec leur note moyenne.
+     * @return Flux trié par distance.
+     */
+    public Flux<Artisan> findNearbyArtisans(double latitude, double longitude, double radiusKm,
+                                            String category, String profession) {
+        Point location = new Point(longitude, latitude);
+        return artisanRepository.findByLocationNear(location, new Distance(radiusKm, Metrics.KILOMETERS))
+                .buffer(batchSize)
+                .concatMap(batch -> {
+                    List<Artisan> matching = artisanCategoryIndex.filter(batch, category, profession);
+                    if (matching.isEmpty()) {
+                        return Flux.<Artisan>empty();
+                    }
+                    return averageRatings(matching.stream().map(Artisan::getId).toList())
+                            .flatMapIterable(ratings -> {
+                                matching.forEach(artisan -> artisan.setAverageRating(ratings.getOrDefault(artisan.getId(), 0.0)));
+                                return matching;
+                            });
+                });
+    }
+
+    /**
+     * Recherche avancée de services : mêmes critères et même résultat que la version servlet.
+     * Le tri global impose de lire tous les services avant d'émettre la page demandée.
+     */
+    public Flux<Map<String, Object>> advancedSearch(String query, String category, double latitude, double longitude,
+                                                    double radiusKm, int page, int size, String sortBy) {
+        String needle = query != null ? query.toLowerCase() : null;
+        return serviceRepository.findAll()
+                .buffer(batchSize)
+                .concatMap(services -> artisanRepository
+                        .findAllById(services.stream().map(ServiceEntity::getArtisanId).distinct().toList())
+                        .collectMap(Artisan::getId)
+                        .flatMapMany(artisans -> {
+                            List<Map<String, Object>> items = services.stream()
+                                    .filter(service -> category == null || category.isBlank()
+                                            || artisanCategoryIndex.hasCategory(category, service.getArtisanId()))
+                                    .filter(service -> artisans.containsKey(service.getArtisanId()))
+                                    .filter(service -> needle == null
+                                            || service.getTitle().toLowerCase().contains(needle)
+                                            || (service.getDescription() != null && service.getDescription().toLowerCase().contains(needle)))
+                                    .map(service -> toItem(service, artisans.get(service.getArtisanId()), latitude, longitude))
+                                    .filter(item -> (Double) item.get("distanceKm") <= radiusKm)
+                                    .toList();
+                            if (items.isEmpty()) {
+                                return Flux.<Map<String, Object>>empty();
+                            }
+                            return averageRatings(items.stream().map(item -> (String) item.get("artisanId")).distinct().toList())
+                                    .flatMapIterable(ratings -> {
+                                        items.forEach(item -> item.put("rating", ratings.getOrDefault((String) item.get("artisanId"), 0.0)));
+                                        return items;
+                                    });
+                        }))
+                .collectSortedList(comparator(sortBy))
+                .flatMapIterable(sorted -> sorted.stream().skip((long) page * size).limit(size).toList());
+    }
+
+    /**
+     * Avis d'un artisan avec le nom du client (un lot d'utilisateurs par lot d'avis).
+     */
+    public Flux<ReviewView> reviewsOf(String artisanId) {
+        return reviewRepository.findByArtisanId(artisanId)
+                .buffer(batchSize)
+                .concatMap(reviews -> fullNames(reviews.stream().map(Review::getUserId).distinct().toList())
+                        .flatMapIterable(names -> reviews.stream()
+                                .map(review -> new ReviewView(
+                                        names.getOrDefault(review.getUserId(), "Client inconnu"),
+                                        review.getRating(),
+                                        review.getComment(),
+                                        review.getCreatedAt()))
+                                .toList()));
+    }
+
+    /**
+     * Statistiques de notes calculées par MongoDB (répartition par note) sans charger les avis.
+     */
+    public Mono<RatingStatsView> ratingStats(String artisanId) {
+        Aggregation aggregation = Aggregation.newAggregation(
+                Aggregation.match(Criteria.where("artisanId").is(artisanId)),
+                Aggregation.group("rating").count().as("count"));
+        return reactiveMongoTemplate.aggregate(aggregation, Review.class, Document.class)
+                .filter(document -> document.get("_id") instanceof Number)
+                .collectMap(document -> ((Number) document.get("_id")).intValue(),
+                        document -> ((Number) document.get("count")).longValue())
+                .map(distribution -> {
+                    long total = distribution.values().stream().mapToLong(Long::longValue).sum();
+                    double sum = distribution.entrySet().stream()
+                            .mapToDouble(entry -> entry.getKey() * (double) entry.getValue())
+                            .sum();
+                    return new RatingStatsView(artisanId, total == 0 ? 0.0 : sum / total, total, distribution);
+                });
+    }
+
+    /** Notes moyennes d'un lot d'artisans en une agrégation */
+    private Mono<Map<String, Double>> averageRatings(Collection<String> artisanIds) {
+        Aggregation aggregation = Aggregation.newAggregation(
+                Aggregation.match(Criteria.where("artisanId").in(artisanIds)),
+                Aggregation.group("artisanId").avg("rating").as("average"));
+        return reactiveMongoTemplate.aggregate(aggregation, Review.class, Document.class)
+                .collectMap(document -> document.getString("_id"),
+                        document -> ((Number) document.get("average")).doubleValue());
+    }
+
+    private Mono<Map<String, String>> fullNames(Collection<String> userIds) {
+        Query query = Query.query(Criteria.where("id").in(userIds));
+        query.fields().include("fullName");
+        return reactiveMongoTemplate.find(query, User.class)
+                .collectMap(User::getId, user -> user.getFullName() != null ? user.getFullName() : "Client inconnu");
+    }
+
+    private static Map<String, Object> toItem(ServiceEntity service, Artisan artisan, double latitude, double longitude) {
+        GeoJsonPoint loc = artisan.getLocation();
+        double distance = loc == null ? Double.MAX_VALUE
+                : haversineDistance(latitude, longitude, loc.getCoordinates().get(1), loc.getCoordinates().get(0));
+        Map<String, Object> item = new HashMap<>();
+        item.put("id", service.getId());
+        item.put("title", service.getTitle());
+        item.put("description", service.getDescription());
+        item.put("price", service.getPrice());
+        item.put("artisanId", service.getArtisanId());
+        item.put("distanceKm", Math.round(distance * 10.0) / 10.0);
+        return item;
+    }
+
+    private static Comparator<Map<String, Object>> comparator(String sortBy) {
+        return switch (sortBy) {
+            case "price" -> Comparator.comparing((Map<String, Object> item) -> (Double) item.get("price"),
+                    Comparator.nullsLast(Comparator.naturalOrder()));
+            case "rating" -> Comparator.comparing((Map<String, Object> item) -> (Double) item.getOrDefault("rating", 0.0),
+                    Comparator.reverseOrder());
+            default -> Comparator.comparing((Map<String, Object> item) -> (Double) item.get("distanceKm"));
+        };
+    }
+
+    private static double haversineDistance(double lat1, double lon1, double lat2, double lon2) {
+        final int R = 6371;
+        double dLat = Math.toRadians(lat2 - lat1);
+        double dLon = Math.toRadians(lon2 - lon1);
+        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2)
+                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2))
+                * Math.sin(dLon / 2) * Math.sin(dLon / 2);
+        double c = 2 * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a));
+        return R * c;
+    }
+}
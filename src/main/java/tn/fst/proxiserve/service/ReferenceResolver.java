@@ -0,0 +1,64 @@
+package tn.fst.proxiserve.service;
+
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.springframework.data.mapping.context.MappingContext;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentEntity;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentProperty;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+
+/**
+ * Résolution par lots des références par identifiant (ex : Booking.clientId, Booking.serviceId).
+ *
+ * Une seule requête {@code $in} par type référencé, quel que soit le nombre de documents sources :
+ * 1 000 réservations et leurs clients = 2 requêtes, au lieu d'une lecture par référence.
+ */
+@Service
+public class ReferenceResolver {
+
+    private final MongoTemplate mongoTemplate;
+
+    public ReferenceResolver(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    /**
+     * @param sources Documents portant la référence.
+     * @param reference Lecture de l'identifiant référencé (null ignoré).
+     * @param type Type référencé.
+     * @return Entités référencées par identifiant (les références orphelines sont absentes).
+     */
+    public <S, T> Map<String, T> resolve(Collection<S> sources, Function<S, String> reference, Class<T> type) {
+        Set<String> ids = sources.stream()
+                .map(reference)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toCollection(LinkedHashSet::new));
+        return findAllById(ids, type);
+    }
+
+    /**
+     * @return Entités du type demandé, en une requête {@code $in} (aucune si ids est vide).
+     */
+    public <T> Map<String, T> findAllById(Collection<String> ids, Class<T> type) {
+        if (ids.isEmpty()) {
+            return Map.of();
+        }
+        MappingContext<? extends MongoPersistentEntity<?>, MongoPersistentProperty> mappingContext =
+                mongoTemplate.getConverter().getMappingContext();
+        MongoPersistentEntity<?> entity = mappingContext.getRequiredPersistentEntity(type);
+        return mongoTemplate.find(Query.query(Criteria.where("id").in(ids)), type).stream()
+                .collect(Collectors.toMap(
+                        found -> String.valueOf(entity.getIdentifierAccessor(found).getRequiredIdentifier()),
+                        Function.identity(),
+                        (first, second) -> first));
+    }
+}
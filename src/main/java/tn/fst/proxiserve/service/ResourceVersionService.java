@@ -0,0 +1,150 @@
+package tn.fst.proxiserve.service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import tn.fst.proxiserve.cache.CacheInvalidationBus;
+import tn.fst.proxiserve.cache.CacheInvalidationEvent;
+import tn.fst.proxiserve.cache.ReadThroughCache;
+import tn.fst.proxiserve.model.ResourceVersion;
+
+/**
+ * ETags forts dérivés de compteurs de modifications (collection resource_versions).
+ *
+ * Chaque écriture incrémente le compteur des ressources concernées ; une lecture conditionnelle
+ * ne consulte que ce compteur, gardé en cache local et invalidé par le {@link CacheInvalidationBus}
+ * quand un autre nœud l'incrémente. Un If-None-Match à jour est donc résolu sans requête sur
+ * les données. Les écritures faites hors de l'application (scripts) ne sont pas vues : les
+ * réponses restent alors bornées par leur Cache-Control.
+ */
+@Service
+public class ResourceVersionService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ResourceVersionService.class);
+    private static final String COLLECTION = "resource_versions";
+
+    /** Liste paginée des services (tous filtres confondus) */
+    public static final String SERVICES = "services";
+
+    private final MongoTemplate mongoTemplate;
+    private final ReadThroughCache<Long> versions;
+    private final String revision;
+
+    public ResourceVersionService(MongoTemplate mongoTemplate,
+                                  CacheInvalidationBus invalidationBus,
+                                  MeterRegistry meterRegistry,
+                                  @Value("${http.etag.revision:1}") String revision,
+                                  @Value("${cache.resource-versions.max-entries:50000}") long maxEntries,
+                                  @Value("${cache.resource-versions.ttl:10m}") Duration ttl,
+                                  @Value("${cache.fallback-ttl:30s}") Duration fallbackTtl) {
+        this.mongoTemplate = mongoTemplate;
+        this.revision = revision;
+        // Une ressource jamais modifiée a la version 0 (mise en cache comme les autres)
+        this.versions = new ReadThroughCache<>("resource_versions", maxEntries, ttl, fallbackTtl,
+                invalidationBus::isChangeStreamActive,
+                key -> Optional.of(load(List.of(key)).getOrDefault(key, 0L)),
+                keys -> {
+                    Map<String, Long> found = load(keys);
+                    return keys.stream().collect(Collectors.toMap(Function.identity(), key -> found.getOrDefault(key, 0L)));
+                },
+                meterRegistry);
+    }
+
+    public static String service(String serviceId) {
+        return "service:" + serviceId;
+    }
+
+    public static String artisanServices(String artisanId) {
+        return "artisan-services:" + artisanId;
+    }
+
+    public static String artisanReviews(String artisanId) {
+        return "artisan-reviews:" + artisanId;
+    }
+
+    /**
+     * @param key Clé de la ressource.
+     * @return ETag fort de la version courante (révision du format de réponse + compteur).
+     */
+    public String etag(String key) {
+        return "\"" + revision + "-" + versions.get(key).orElse(0L) + "\"";
+    }
+
+    /**
+     * Indique si la requête conditionnelle porte déjà la version courante.
+     * @param ifNoneMatch En-tête If-None-Match (peut être nul ou contenir plusieurs ETags).
+     * @param etag ETag courant.
+     * @return true si une réponse 304 suffit.
+     */
+    public static boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null || ifNoneMatch.isBlank()) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2); // Comparaison faible imposée pour If-None-Match
+            }
+            if ("*".equals(tag) || tag.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Incrémente les compteurs des ressources modifiées (un seul aller-retour), après l'écriture des données.
+     * Un échec n'annule pas l'écriture métier : il est journalisé et les caches HTTP restent bornés par leur durée.
+     * @param keys Clés des ressources modifiées.
+     */
+    public void changed(Collection<String> keys) {
+        List<String> distinct = keys.stream().filter(Objects::nonNull).distinct().toList();
+        if (distinct.isEmpty()) {
+            return;
+        }
+        try {
+            BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, ResourceVersion.class);
+            LocalDateTime now = LocalDateTime.now();
+            distinct.forEach(key -> bulk.upsert(Query.query(Criteria.where("id").is(key)),
+                    new Update().inc("version", 1).set("updatedAt", now)));
+            bulk.execute();
+        } catch (Exception e) {
+            logger.error(" Échec de l'incrément des versions {} : {}", distinct, e.getMessage());
+        } finally {
+            distinct.forEach(versions::invalidate);
+        }
+    }
+
+    public void changed(String... keys) {
+        changed(List.of(keys));
+    }
+
+    @EventListener(condition = "#root.event.concerns('" + COLLECTION + "')")
+    public void onInvalidation(CacheInvalidationEvent event) {
+        versions.onInvalidation(event);
+    }
+
+    private Map<String, Long> load(Collection<String> keys) {
+        return mongoTemplate.find(Query.query(Criteria.where("id").in(keys)), ResourceVersion.class).stream()
+                .collect(Collectors.toMap(ResourceVersion::getId, ResourceVersion::getVersion));
+    }
+}
@@ -0,0 +1,123 @@
+package tn.fst.proxiserve.service;
+
+import java.lang.management.ManagementFactory;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.time.Duration;
+import java.util.Date;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Service;
+
+import com.mongodb.ErrorCategory;
+import com.mongodb.MongoCommandException;
+import com.mongodb.MongoException;
+import com.mongodb.WriteConcern;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.FindOneAndUpdateOptions;
+import com.mongodb.client.model.ReturnDocument;
+import com.mongodb.client.model.Updates;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Élection d'un nœud par tâche planifiée, via un document de verrou par tâche (collection scheduler_locks).
+ *
+ * Le verrou est un bail : le nœud qui le détient le renouvelle à chaque exécution ; s'il s'arrête
+ * sans le libérer, un autre nœud le reprend à l'expiration du bail. L'acquisition est une seule
+ * écriture atomique (upsert conditionnel) acquittée par la majorité du replica set.
+ */
+@Service
+public class SchedulerLockService {
+
+    private static final Logger logger = LoggerFactory.getLogger(SchedulerLockService.class);
+    private static final String COLLECTION = "scheduler_locks";
+
+    private final MongoTemplate mongoTemplate;
+    private final String nodeId;
+    private final Set<String> held = ConcurrentHashMap.newKeySet();
+
+    public SchedulerLockService(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+        this.nodeId = defaultNodeId();
+    }
+
+    /**
+     * Acquiert ou renouvelle le verrou d'une tâche.
+     * @param name Nom de la tâche.
+     * @param lease Durée du bail (doit dépasser la durée d'une exécution).
+     * @return true si ce nœud détient le verrou jusqu'à maintenant + lease.
+     */
+    public boolean tryAcquire(String name, Duration lease) {
+        Date now = new Date();
+        Date until = new Date(now.getTime() + lease.toMillis());
+        try {
+            Document lock = locks().findOneAndUpdate(
+                    Filters.and(Filters.eq("_id", name),
+                            Filters.or(Filters.eq("owner", nodeId), Filters.lte("lockedUntil", now))),
+                    Updates.combine(Updates.set("owner", nodeId), Updates.set("lockedUntil", until),
+                            Updates.set("acquiredAt", now)),
+                    new FindOneAndUpdateOptions().upsert(true).returnDocument(ReturnDocument.AFTER));
+            boolean acquired = lock != null && nodeId.equals(lock.getString("owner"));
+            if (acquired && held.add(name)) {
+                logger.info(" Verrou {} acquis par {}", name, nodeId);
+            }
+            return acquired;
+        } catch (MongoCommandException e) {
+            if (ErrorCategory.fromErrorCode(e.getErrorCode()) == ErrorCategory.DUPLICATE_KEY) {
+                // Verrou détenu par un autre nœud : l'upsert a tenté de créer un second document
+                lost(name);
+                return false;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Libère le verrou s'il est détenu par ce nœud (arrêt propre : un autre nœud reprend sans attendre le bail).
+     */
+    public void release(String name) {
+        try {
+            locks().updateOne(Filters.and(Filters.eq("_id", name), Filters.eq("owner", nodeId)),
+                    Updates.set("lockedUntil", new Date()));
+            held.remove(name);
+        } catch (MongoException e) {
+            logger.warn(" Échec de la libération du verrou {} : {}", name, e.getMessage());
+        }
+    }
+
+    public String nodeId() {
+        return nodeId;
+    }
+
+    @PreDestroy
+    public void releaseAll() {
+        Set.copyOf(held).forEach(this::release);
+    }
+
+    private void lost(String name) {
+        if (held.remove(name)) {
+            logger.info(" Verrou {} repris par un autre nœud", name);
+        }
+    }
+
+    private MongoCollection<Document> locks() {
+        // Un verrou acquitté par un seul nœud pourrait être perdu lors d'une élection : deux détenteurs
+        return mongoTemplate.getCollection(COLLECTION).withWriteConcern(WriteConcern.MAJORITY);
+    }
+
+    private static String defaultNodeId() {
+        String pid = String.valueOf(ProcessHandle.current().pid());
+        try {
+            return InetAddress.getLocalHost().getHostName() + ":" + pid;
+        } catch (UnknownHostException e) {
+            return ManagementFactory.getRuntimeMXBean().getName();
+        }
+    }
+}
@@ -0,0 +1,357 @@
+package tn.fst.proxiserve.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
+import java.util.stream.Collectors;
+
+import org.bson.types.ObjectId;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.bulk.BulkWriteResult;
+
+import tn.fst.proxiserve.cache.ServiceCache;
+import tn.fst.proxiserve.dto.BulkItemResult;
+import tn.fst.proxiserve.dto.BulkResultView;
+import tn.fst.proxiserve.dto.ServiceRequest;
+import tn.fst.proxiserve.dto.ServiceUpdateItem;
+import tn.fst.proxiserve.model.Artisan;
+import tn.fst.proxiserve.model.ServiceEntity;
+import tn.fst.proxiserve.repository.ArtisanRepository;
+
+/**
+ * Création, modification et suppression groupées des services d'un artisan.
+ *
+ * L'artisan est résolu une seule fois, la propriété des services est vérifiée en une requête
+ * (sur le primaire, pas dans le cache), puis toutes les écritures partent dans un seul bulkWrite.
+ * En mode ordonné, la première erreur (validation ou écriture) interrompt la suite ; en mode non
+ * ordonné, chaque élément est traité indépendamment. Un résultat est renvoyé pour chaque élément :
+ * si le bulkWrite modifie ou supprime moins de documents que prévu (service supprimé ou cédé entre
+ * la vérification et l'écriture), les éléments concernés sont relus et signalés NOT_FOUND.
+ */
+@Service
+public class ServiceBulkService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ServiceBulkService.class);
+
+    private final MongoTemplate mongoTemplate;
+    private final ArtisanRepository artisanRepository;
+    private final ServiceCache serviceCache;
+    private final ResourceVersionService resourceVersionService;
+    private final int maxItems;
+
+    public ServiceBulkService(MongoTemplate mongoTemplate,
+                              ArtisanRepository artisanRepository,
+                              ServiceCache serviceCache,
+                              ResourceVersionService resourceVersionService,
+                              @Value("${services.bulk.max-items:500}") int maxItems) {
+        this.mongoTemplate = mongoTemplate;
+        this.artisanRepository = artisanRepository;
+        this.serviceCache = serviceCache;
+        this.resourceVersionService = resourceVersionService;
+        this.maxItems = maxItems;
+    }
+
+    /**
+     * Crée plusieurs services pour l'artisan connecté.
+     * @param email Email de l'artisan.
+     * @param requests Services à créer.
+     * @param ordered Arrêter à la première erreur.
+     * @return Résultat par élément (identifiant attribué pour les services créés).
+     */
+    public BulkResultView create(String email, List<ServiceRequest> requests, boolean ordered) {
+        checkSize(requests);
+        Artisan artisan = artisanFor(email);
+
+        BulkItemResult[] results = new BulkItemResult[requests.size()];
+        List<Integer> planned = new ArrayList<>();
+        BulkOperations bulk = mongoTemplate.bulkOps(mode(ordered), ServiceEntity.class);
+        for (int i = 0; i < requests.size(); i++) {
+            ServiceRequest request = requests.get(i);
+            String error = validate(request);
+            if (error != null) {
+                results[i] = new BulkItemResult(i, null, "INVALID", error);
+                if (ordered) {
+                    break;
+                }
+                continue;
+            }
+            // Identifiant attribué ici pour le renvoyer sans relire la collection
+            ServiceEntity service = new ServiceEntity(new ObjectId().toHexString(), request.getTitle(),
+                    request.getDescription(), request.getPrice(), artisan.getId());
+            bulk.insert(service);
+            planned.add(i);
+            results[i] = new BulkItemResult(i, service.getId(), "CREATED", null);
+        }
+
+        execute(bulk, planned, results, ordered);
+        return finish("création", artisan, ordered, results, false);
+    }
+
+    /**
+     * Modifie plusieurs services de l'artisan connecté (champs non nuls uniquement).
+     * @param email Email de l'artisan.
+     * @param items Modifications à appliquer.
+     * @param ordered Arrêter à la première erreur.
+     * @return Résultat par élément.
+     */
+    public BulkResultView update(String email, List<ServiceUpdateItem> items, boolean ordered) {
+        checkSize(items);
+        Artisan artisan = artisanFor(email);
+        Map<String, ServiceEntity> existing = currentServices(items.stream().map(ServiceUpdateItem::getId).toList());
+
+        BulkItemResult[] results = new BulkItemResult[items.size()];
+        List<Integer> planned = new ArrayList<>();
+        BulkOperations bulk = mongoTemplate.bulkOps(mode(ordered), ServiceEntity.class);
+        for (int i = 0; i < items.size(); i++) {
+            ServiceUpdateItem item = items.get(i);
+            BulkItemResult rejected = checkOwnership(i, item.getId(), existing, artisan);
+            if (rejected == null && item.getTitle() != null && item.getTitle().isBlank()) {
+                rejected = new BulkItemResult(i, item.getId(), "INVALID", "Titre vide");
+            }
+            if (rejected == null && item.getPrice() != null && item.getPrice() < 0) {
+                rejected = new BulkItemResult(i, item.getId(), "INVALID", "Prix négatif");
+            }
+            if (rejected != null) {
+                results[i] = rejected;
+                if (ordered) {
+                    break;
+                }
+                continue;
+            }
+
+            Update update = new Update();
+            if (item.getTitle() != null) {
+                update.set("title", item.getTitle());
+            }
+            if (item.getDescription() != null) {
+                update.set("description", item.getDescription());
+            }
+            if (item.getPrice() != null) {
+                update.set("price", item.getPrice());
+            }
+            if (update.getUpdateObject().isEmpty()) {
+                results[i] = new BulkItemResult(i, item.getId(), "UPDATED", null);
+                continue;
+            }
+            bulk.updateOne(ownedBy(item.getId(), artisan), update);
+            planned.add(i);
+            results[i] = new BulkItemResult(i, item.getId(), "UPDATED", null);
+        }
+
+        BulkWriteResult written = execute(bulk, planned, results, ordered);
+        // Une opération par service (filtre sur _id) : un écart de comptage désigne des services disparus
+        verifyWritten(written, BulkWriteResult::getMatchedCount, planned, results, "UPDATED",
+                ids -> Query.query(Criteria.where("id").in(ids).and("artisanId").is(artisan.getId())));
+        return finish("modification", artisan, ordered, results, true);
+    }
+
+    /**
+     * Supprime plusieurs services de l'artisan connecté.
+     * @param email Email de l'artisan.
+     * @param ids Identifiants des services à supprimer.
+     * @param ordered Arrêter à la première erreur.
+     * @return Résultat par élément.
+     */
+    public BulkResultView delete(String email, List<String> ids, boolean ordered) {
+        checkSize(ids);
+        Artisan artisan = artisanFor(email);
+        Map<String, ServiceEntity> existing = currentServices(ids);
+
+        BulkItemResult[] results = new BulkItemResult[ids.size()];
+        List<Integer> planned = new ArrayList<>();
+        BulkOperations bulk = mongoTemplate.bulkOps(mode(ordered), ServiceEntity.class);
+        for (int i = 0; i < ids.size(); i++) {
+            BulkItemResult rejected = checkOwnership(i, ids.get(i), existing, artisan);
+            if (rejected != null) {
+                results[i] = rejected;
+                if (ordered) {
+                    break;
+                }
+                continue;
+            }
+            bulk.remove(ownedBy(ids.get(i), artisan));
+            planned.add(i);
+            results[i] = new BulkItemResult(i, ids.get(i), "DELETED", null);
+        }
+
+        BulkWriteResult written = execute(bulk, planned, results, ordered);
+        // Un service encore présent après le bulkWrite a changé de propriétaire : il n'a pas été supprimé
+        verifyWritten(written, BulkWriteResult::getDeletedCount, planned, results, "DELETED",
+                remaining -> Query.query(Criteria.where("id").in(remaining)));
+        return finish("suppression", artisan, ordered, results, true);
+    }
+
+    /**
+     * Exécute le bulkWrite et reporte les erreurs d'écriture sur les éléments concernés.
+     * @param planned Index de l'élément de la requête pour chaque opération du bulk.
+     * @return Résultat du bulkWrite (opérations acquittées), null si rien n'a été exécuté.
+     */
+    private BulkWriteResult execute(BulkOperations bulk, List<Integer> planned, BulkItemResult[] results, boolean ordered) {
+        if (planned.isEmpty()) {
+            return null;
+        }
+        try {
+            return bulk.execute();
+        } catch (BulkOperationException e) {
+            int firstError = planned.size();
+            for (BulkWriteError error : e.getErrors()) {
+                BulkItemResult result = results[planned.get(error.getIndex())];
+                result.setStatus("FAILED");
+                result.setError(error.getCode() == 11000 ? "Doublon" : error.getMessage());
+                firstError = Math.min(firstError, error.getIndex());
+            }
+            if (ordered) {
+                // Le serveur n'a pas exécuté les opérations suivant la première erreur
+                for (int op = firstError + 1; op < planned.size(); op++) {
+                    BulkItemResult result = results[planned.get(op)];
+                    result.setStatus("SKIPPED");
+                    result.setError(null);
+                }
+            }
+            return e.getResult();
+        }
+    }
+
+    /**
+     * Compare le nombre de documents touchés aux opérations réussies ; en cas d'écart, relit les services
+     * concernés et marque NOT_FOUND ceux dont l'opération n'a rien modifié.
+     * @param count Compteur du bulkWrite (matched pour une modification, deleted pour une suppression).
+     * @param succeeded Statut des opérations réussies (UPDATED ou DELETED).
+     * @param present Relecture des services encore présents parmi les identifiants donnés : après une modification,
+     *                ceux de l'artisan ont été modifiés ; après une suppression, ceux qui restent n'ont pas été supprimés.
+     */
+    private void verifyWritten(BulkWriteResult written, ToIntFunction<BulkWriteResult> count, List<Integer> planned,
+                               BulkItemResult[] results, String succeeded, Function<List<String>, Query> present) {
+        if (written == null) {
+            return;
+        }
+        List<BulkItemResult> applied = planned.stream().map(i -> results[i])
+                .filter(result -> succeeded.equals(result.getStatus()))
+                .toList();
+        if (count.applyAsInt(written) >= applied.size()) {
+            return;
+        }
+        Query query = present.apply(applied.stream().map(BulkItemResult::getId).toList());
+        query.fields().include("id");
+        Set<String> found = mongoTemplate.find(query, ServiceEntity.class).stream()
+                .map(ServiceEntity::getId)
+                .collect(Collectors.toCollection(HashSet::new));
+        boolean foundMeansApplied = "UPDATED".equals(succeeded);
+        for (BulkItemResult result : applied) {
+            if (found.contains(result.getId()) != foundMeansApplied) {
+                result.setStatus("NOT_FOUND");
+                result.setError("Service supprimé ou modifié pendant l'opération");
+            }
+        }
+    }
+
+    /**
+     * Services existants (lecture sur le primaire : le cache peut ignorer une suppression récente).
+     */
+    private Map<String, ServiceEntity> currentServices(List<String> ids) {
+        List<String> wanted = ids.stream().filter(Objects::nonNull).distinct().toList();
+        if (wanted.isEmpty()) {
+            return Map.of();
+        }
+        Query query = Query.query(Criteria.where("id").in(wanted));
+        query.fields().include("id", "artisanId");
+        return mongoTemplate.find(query, ServiceEntity.class).stream()
+                .collect(Collectors.toMap(ServiceEntity::getId, Function.identity()));
+    }
+
+    private BulkResultView finish(String operation, Artisan artisan, boolean ordered,
+                                  BulkItemResult[] results, boolean evict) {
+        for (int i = 0; i < results.length; i++) {
+            if (results[i] == null) {
+                results[i] = new BulkItemResult(i, null, "SKIPPED", null);
+            }
+        }
+        List<BulkItemResult> items = Arrays.asList(results);
+        if (evict) {
+            serviceCache.evictAll(items.stream()
+                    .filter(item -> List.of("UPDATED", "DELETED", "NOT_FOUND").contains(item.getStatus()))
+                    .map(BulkItemResult::getId)
+                    .toList());
+        }
+        BulkResultView view = BulkResultView.of(ordered, items);
+        if (view.getSucceeded() > 0) {
+            List<String> changed = new ArrayList<>(List.of(ResourceVersionService.SERVICES,
+                    ResourceVersionService.artisanServices(artisan.getId())));
+            items.stream()
+                    .filter(item -> List.of("CREATED", "UPDATED", "DELETED").contains(item.getStatus()))
+                    .forEach(item -> changed.add(ResourceVersionService.service(item.getId())));
+            resourceVersionService.changed(changed);
+        }
+        logger.info(" Opération groupée sur les services ({}) pour l'artisan {} : {} demandés, {} réussis, {} en échec",
+                operation, artisan.getId(), view.getRequested(), view.getSucceeded(), view.getFailed());
+        return view;
+    }
+
+    private static BulkItemResult checkOwnership(int index, String id, Map<String, ServiceEntity> existing, Artisan artisan) {
+        if (id == null || id.isBlank()) {
+            return new BulkItemResult(index, id, "INVALID", "Identifiant manquant");
+        }
+        ServiceEntity service = existing.get(id);
+        if (service == null) {
+            return new BulkItemResult(index, id, "NOT_FOUND", "Service non trouvé");
+        }
+        if (!artisan.getId().equals(service.getArtisanId())) {
+            return new BulkItemResult(index, id, "FORBIDDEN", "Service d'un autre artisan");
+        }
+        return null;
+    }
+
+    private static String validate(ServiceRequest request) {
+        if (request == null || request.getTitle() == null || request.getTitle().isBlank()) {
+            return "Titre requis";
+        }
+        if (request.getPrice() < 0) {
+            return "Prix négatif";
+        }
+        return null;
+    }
+
+    /** La condition sur l'artisan protège contre un changement de propriétaire entre la vérification et l'écriture */
+    private static Query ownedBy(String id, Artisan artisan) {
+        return Query.query(Criteria.where("id").is(id).and("artisanId").is(artisan.getId()));
+    }
+
+    private Artisan artisanFor(String email) {
+        return artisanRepository.findByEmail(email)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Artisan non trouvé"));
+    }
+
+    private void checkSize(Collection<?> items) {
+        if (items == null || items.isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Aucun élément à traiter");
+        }
+        if (items.size() > maxItems) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Trop d'éléments : " + items.size() + " (maximum " + maxItems + ")");
+        }
+    }
+
+    private static BulkOperations.BulkMode mode(boolean ordered) {
+        return ordered ? BulkOperations.BulkMode.ORDERED : BulkOperations.BulkMode.UNORDERED;
+    }
+}
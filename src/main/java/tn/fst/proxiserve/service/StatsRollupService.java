@@ -0,0 +1,530 @@
+package tn.fst.proxiserve.service;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.bson.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndReplaceOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.aggregation.Aggregation;
+import org.springframework.data.mongodb.core.aggregation.AggregationOperation;
+import org.springframework.data.mongodb.core.aggregation.DateOperators;
+import org.springframework.data.mongodb.core.aggregation.UnionWithOperation;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import tn.fst.proxiserve.config.SchedulingConfig;
+import tn.fst.proxiserve.config.WriteConcernPolicy;
+import tn.fst.proxiserve.dto.DashboardView;
+import tn.fst.proxiserve.model.Booking;
+import tn.fst.proxiserve.model.Review;
+import tn.fst.proxiserve.model.ServiceEntity;
+import tn.fst.proxiserve.model.StatsRollup;
+import tn.fst.proxiserve.model.User;
+
+/**
+ * Agrégats statistiques journaliers et horaires (collection stats_rollups).
+ *
+ * Les chemins d'écriture incrémentent les documents du jour et de l'heure concernés
+ * (un seul bulkWrite de deux upserts). Un recalcul planifié reconstruit les jours clos
+ * à partir des collections sources et corrige toute dérive (incrément perdu, remboursement...).
+ * Le tableau de bord ne lit que quelques dizaines de petits documents, quel que soit l'historique.
+ */
+@Service
+public class StatsRollupService {
+
+    private static final Logger logger = LoggerFactory.getLogger(StatsRollupService.class);
+    private static final DateTimeFormatter DAY_KEY = DateTimeFormatter.ofPattern("yyyy-MM-dd");
+    private static final DateTimeFormatter HOUR_KEY = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH");
+    private static final int BACKFILL_CHUNK_DAYS = 30;
+
+    private final MongoTemplate mongoTemplate;
+    private final WriteConcernPolicy writeConcernPolicy;
+    private final SchedulerLockService schedulerLockService;
+    private final Duration catchUpLease;
+    private final int catchUpDays;
+    private final int maxDashboardDays;
+
+    public StatsRollupService(MongoTemplate mongoTemplate,
+                              WriteConcernPolicy writeConcernPolicy,
+                              SchedulerLockService schedulerLockService,
+                              @Value("${stats.rollup.catch-up-lease-seconds:1800}") long catchUpLeaseSeconds,
+                              @Value("${stats.rollup.catch-up-days:2}") int catchUpDays,
+                              @Value("${stats.rollup.max-dashboard-days:366}") int maxDashboardDays) {
+        this.mongoTemplate = mongoTemplate;
+        this.writeConcernPolicy = writeConcernPolicy;
+        this.schedulerLockService = schedulerLockService;
+        this.catchUpLease = Duration.ofSeconds(catchUpLeaseSeconds);
+        this.catchUpDays = catchUpDays;
+        this.maxDashboardDays = maxDashboardDays;
+    }
+
+    // ---------------------------------------------------------------------
+    // Mises à jour incrémentales (chemins d'écriture)
+    // ---------------------------------------------------------------------
+
+    /**
+     * Nouvelle réservation (statut initial compris).
+     * @param booking Réservation enregistrée.
+     */
+    public void bookingCreated(Booking booking) {
+        increment(booking.getCreatedAt(), update -> {
+            update.inc("bookingsCreated", 1);
+            if (booking.getStatus() != null) {
+                update.inc("bookingsByStatus." + booking.getStatus(), 1);
+            }
+        });
+    }
+
+    /**
+     * Changement de statut d'une réservation : le compteur est déplacé dans la période de création.
+     * @param booking Réservation modifiée.
+     * @param previousStatus Statut avant modification.
+     */
+    public void bookingStatusChanged(Booking booking, String previousStatus) {
+        String status = booking.getStatus();
+        if (Objects.equals(previousStatus, status)) {
+            return;
+        }
+        increment(booking.getCreatedAt(), update -> {
+            if (previousStatus != null) {
+                update.inc("bookingsByStatus." + previousStatus, -1);
+            }
+            if (status != null) {
+                update.inc("bookingsByStatus." + status, 1);
+            }
+        });
+    }
+
+    /**
+     * Réservations PENDING expirées par lot : compteurs déplacés de PENDING vers EXPIRED dans
+     * leurs périodes de création, en une écriture groupée.
+     * @param bookings Réservations expirées (createdAt renseigné).
+     */
+    public void bookingsExpired(Collection<Booking> bookings) {
+        if (bookings.isEmpty()) {
+            return;
+        }
+        Map<LocalDateTime, Long> byHour = bookings.stream().collect(Collectors.groupingBy(
+                b -> (b.getCreatedAt() != null ? b.getCreatedAt() : LocalDateTime.now()).truncatedTo(ChronoUnit.HOURS),
+                Collectors.counting()));
+        Map<LocalDateTime, Long> byDay = byHour.entrySet().stream().collect(Collectors.groupingBy(
+                entry -> entry.getKey().truncatedTo(ChronoUnit.DAYS),
+                Collectors.summingLong(Map.Entry::getValue)));
+        try {
+            BulkOperations bulk = writeConcernPolicy.bulkOps(BulkOperations.BulkMode.UNORDERED, StatsRollup.class);
+            byDay.forEach((day, count) -> bulk.upsert(Query.query(Criteria.where("id").is(dayKey(day))),
+                    incrementUpdate(StatsRollup.DAY, day, expired(count))));
+            byHour.forEach((hour, count) -> bulk.upsert(Query.query(Criteria.where("id").is(hourKey(hour))),
+                    incrementUpdate(StatsRollup.HOUR, hour, expired(count))));
+            bulk.execute();
+        } catch (Exception e) {
+            logger.error(" Échec de la mise à jour des statistiques : {}", e.getMessage());
+        }
+    }
+
+    private static Consumer<Update> expired(long count) {
+        return update -> update.inc("bookingsByStatus.PENDING", -count).inc("bookingsByStatus.EXPIRED", count);
+    }
+
+    /**
+     * Réservations qui viennent de passer à PAID : chiffre d'affaires calculé à partir du prix des services
+     * (une requête pour l'ensemble du lot), rattaché à la période de paiement.
+     * @param bookings Réservations payées (serviceId renseigné).
+     * @param paidAt Date du paiement.
+     */
+    public void bookingsPaid(Collection<Booking> bookings, LocalDateTime paidAt) {
+        if (bookings.isEmpty()) {
+            return;
+        }
+        Map<String, Double> prices = servicePrices(bookings.stream().map(Booking::getServiceId).toList());
+        double revenue = bookings.stream()
+                .mapToDouble(b -> prices.getOrDefault(b.getServiceId(), 0d))
+                .sum();
+        increment(paidAt, update -> update.inc("paidBookings", bookings.size()).inc("revenue", revenue));
+    }
+
+    /**
+     * Réservations passées à PAID par un lot d'écriture donné : seules celles dont ce lot a réellement
+     * changé le statut portent son marqueur paidBy (un écrivain concurrent ne les compte pas une seconde fois).
+     * @param bookingIds Réservations visées par le lot.
+     * @param marker Marqueur paidBy posé par le lot.
+     * @param paidAt Date du paiement.
+     */
+    public void bookingsPaidBy(Collection<String> bookingIds, String marker, LocalDateTime paidAt) {
+        if (bookingIds.isEmpty()) {
+            return;
+        }
+        Query flipped = Query.query(Criteria.where("id").in(bookingIds).and("paidBy").is(marker));
+        flipped.fields().include("serviceId");
+        bookingsPaid(mongoTemplate.find(flipped, Booking.class), paidAt);
+    }
+
+    /**
+     * Nouvelle inscription.
+     * @param user Utilisateur enregistré.
+     */
+    public void userRegistered(User user) {
+        if (user.getRole() == null) {
+            return;
+        }
+        increment(user.getCreatedAt(), update -> update.inc("signupsByRole." + user.getRole(), 1));
+    }
+
+    /**
+     * Inscriptions importées en masse (un seul incrément par lot).
+     * @param role Rôle des comptes importés.
+     * @param count Nombre de comptes créés.
+     * @param at Date d'import.
+     */
+    public void usersRegistered(String role, int count, LocalDateTime at) {
+        if (role == null || count <= 0) {
+            return;
+        }
+        increment(at, update -> update.inc("signupsByRole." + role, count));
+    }
+
+    /**
+     * Avis ajouté.
+     * @param review Avis enregistré.
+     */
+    public void reviewAdded(Review review) {
+        reviewChanged(review, 1);
+    }
+
+    /**
+     * Avis supprimé.
+     * @param review Avis supprimé.
+     */
+    public void reviewRemoved(Review review) {
+        reviewChanged(review, -1);
+    }
+
+    // ---------------------------------------------------------------------
+    // Tableau de bord
+    // ---------------------------------------------------------------------
+
+    /**
+     * Construit le tableau de bord à partir des agrégats journaliers et horaires.
+     * @param days Nombre de jours (aujourd'hui compris).
+     * @return Indicateurs consolidés et séries temporelles.
+     */
+    public DashboardView dashboard(int days) {
+        int window = Math.max(1, Math.min(days, maxDashboardDays));
+        LocalDateTime to = LocalDateTime.now();
+        LocalDateTime from = LocalDate.now().minusDays(window - 1L).atStartOfDay();
+
+        List<StatsRollup> dailyRollups = findRollups(StatsRollup.DAY, from);
+        List<StatsRollup> hourlyRollups = findRollups(StatsRollup.HOUR, to.truncatedTo(ChronoUnit.HOURS).minusHours(23));
+
+        Map<String, Long> bookingsByStatus = new TreeMap<>();
+        Map<String, Long> signupsByRole = new TreeMap<>();
+        Map<String, Long> reviewsByRating = new TreeMap<>();
+        long bookingsCreated = 0;
+        long paidBookings = 0;
+        double revenue = 0;
+        for (StatsRollup rollup : dailyRollups) {
+            bookingsCreated += rollup.getBookingsCreated();
+            paidBookings += rollup.getPaidBookings();
+            revenue += rollup.getRevenue();
+            mergeInto(bookingsByStatus, rollup.getBookingsByStatus());
+            mergeInto(signupsByRole, rollup.getSignupsByRole());
+            mergeInto(reviewsByRating, rollup.getReviewsByRating());
+        }
+
+        long reviewCount = reviewsByRating.values().stream().mapToLong(Long::longValue).sum();
+        double ratingSum = reviewsByRating.entrySet().stream()
+                .mapToDouble(e -> Integer.parseInt(e.getKey()) * (double) e.getValue())
+                .sum();
+        double averageRating = reviewCount == 0 ? 0 : Math.round(ratingSum / reviewCount * 100.0) / 100.0;
+
+        return new DashboardView(from, to, bookingsCreated, bookingsByStatus, paidBookings,
+                Math.round(revenue * 100.0) / 100.0, signupsByRole, reviewsByRating, averageRating,
+                dailyRollups.stream().map(StatsRollupService::toPoint).toList(),
+                hourlyRollups.stream().map(StatsRollupService::toPoint).toList());
+    }
+
+    // ---------------------------------------------------------------------
+    // Recalcul (rattrapage)
+    // ---------------------------------------------------------------------
+
+    /**
+     * Rattrapage quotidien : recalcule les derniers jours clos à partir des collections sources.
+     * Le jour courant reste alimenté uniquement par les incréments. Un seul nœud recalcule (verrou stats-rollup).
+     */
+    @Scheduled(scheduler = SchedulingConfig.BATCH_SCHEDULER, cron = "${stats.rollup.catch-up-cron:0 15 0 * * *}")
+    public void catchUp() {
+        if (!schedulerLockService.tryAcquire("stats-rollup", catchUpLease)) {
+            return;
+        }
+        LocalDate today = LocalDate.now();
+        rebuild(today.minusDays(catchUpDays), today);
+    }
+
+    /**
+     * Au premier démarrage (collection vide), construit les agrégats de tout l'historique par tranches de 30 jours.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillIfEmpty() {
+        if (mongoTemplate.exists(new Query(), StatsRollup.class)) {
+            return;
+        }
+        LocalDateTime earliest = Stream.of(
+                        earliest(mongoTemplate.getCollectionName(Booking.class), "createdAt"),
+                        earliest(BookingArchiveService.ARCHIVE_COLLECTION, "createdAt"),
+                        earliest(mongoTemplate.getCollectionName(User.class), "createdAt"),
+                        earliest(mongoTemplate.getCollectionName(Review.class), "createdAt"))
+                .filter(Objects::nonNull)
+                .min(LocalDateTime::compareTo)
+                .orElse(null);
+        if (earliest == null) {
+            return;
+        }
+
+        LocalDate end = LocalDate.now().plusDays(1);
+        for (LocalDate start = earliest.toLocalDate(); start.isBefore(end); start = start.plusDays(BACKFILL_CHUNK_DAYS)) {
+            LocalDate chunkEnd = start.plusDays(BACKFILL_CHUNK_DAYS);
+            rebuild(start, chunkEnd.isBefore(end) ? chunkEnd : end);
+        }
+        logger.info(" Agrégats statistiques initialisés depuis le {}", earliest.toLocalDate());
+    }
+
+    /**
+     * Recalcule les agrégats horaires et journaliers de [fromDay, toDay) et remplace les documents existants.
+     * Les réservations sont lues dans bookings et dans bookings_archive : l'archivage ne modifie pas l'historique.
+     */
+    void rebuild(LocalDate fromDay, LocalDate toDay) {
+        LocalDateTime from = fromDay.atStartOfDay();
+        LocalDateTime to = toDay.atStartOfDay();
+        Map<String, StatsRollup> hours = new HashMap<>();
+
+        for (Document row : groupByBookingHour("createdAt", "status", Criteria.where("createdAt").gte(from).lt(to))) {
+            StatsRollup rollup = hourRollup(hours, row);
+            long count = row.get("count", Number.class).longValue();
+            rollup.setBookingsCreated(rollup.getBookingsCreated() + count);
+            String status = row.get("_id", Document.class).getString("key");
+            if (status != null) {
+                rollup.getBookingsByStatus().merge(status, count, Long::sum);
+            }
+        }
+
+        List<Document> paid = groupByBookingHour("paidAt", "serviceId",
+                Criteria.where("paymentStatus").is("PAID").and("paidAt").gte(from).lt(to));
+        Map<String, Double> prices = servicePrices(paid.stream()
+                .map(row -> row.get("_id", Document.class).getString("key"))
+                .filter(Objects::nonNull)
+                .distinct()
+                .toList());
+        for (Document row : paid) {
+            StatsRollup rollup = hourRollup(hours, row);
+            long count = row.get("count", Number.class).longValue();
+            String serviceId = row.get("_id", Document.class).getString("key");
+            rollup.setPaidBookings(rollup.getPaidBookings() + count);
+            rollup.setRevenue(rollup.getRevenue() + count * prices.getOrDefault(serviceId, 0d));
+        }
+
+        for (Document row : groupByHour(User.class, "createdAt", "role", Criteria.where("createdAt").gte(from).lt(to))) {
+            String role = row.get("_id", Document.class).getString("key");
+            if (role != null) {
+                hourRollup(hours, row).getSignupsByRole().merge(role, row.get("count", Number.class).longValue(), Long::sum);
+            }
+        }
+
+        for (Document row : groupByHour(Review.class, "createdAt", "rating", Criteria.where("createdAt").gte(from).lt(to))) {
+            Object rating = row.get("_id", Document.class).get("key");
+            if (rating != null) {
+                hourRollup(hours, row).getReviewsByRating().merge(String.valueOf(rating), row.get("count", Number.class).longValue(), Long::sum);
+            }
+        }
+
+        Map<String, StatsRollup> days = new HashMap<>();
+        for (StatsRollup hour : hours.values()) {
+            LocalDateTime dayStart = hour.getPeriodStart().truncatedTo(ChronoUnit.DAYS);
+            StatsRollup day = days.computeIfAbsent(dayKey(dayStart), id -> newRollup(id, StatsRollup.DAY, dayStart));
+            day.setBookingsCreated(day.getBookingsCreated() + hour.getBookingsCreated());
+            day.setPaidBookings(day.getPaidBookings() + hour.getPaidBookings());
+            day.setRevenue(day.getRevenue() + hour.getRevenue());
+            mergeInto(day.getBookingsByStatus(), hour.getBookingsByStatus());
+            mergeInto(day.getSignupsByRole(), hour.getSignupsByRole());
+            mergeInto(day.getReviewsByRating(), hour.getReviewsByRating());
+        }
+
+        List<StatsRollup> rebuilt = new ArrayList<>(hours.values());
+        rebuilt.addAll(days.values());
+        if (!rebuilt.isEmpty()) {
+            BulkOperations bulk = writeConcernPolicy.bulkOps(BulkOperations.BulkMode.UNORDERED, StatsRollup.class);
+            rebuilt.forEach(rollup -> bulk.replaceOne(Query.query(Criteria.where("id").is(rollup.getId())), rollup,
+                    FindAndReplaceOptions.options().upsert()));
+            bulk.execute();
+        }
+
+        // Périodes sans aucune activité : les anciens documents sont supprimés
+        List<String> keptIds = rebuilt.stream().map(StatsRollup::getId).toList();
+        mongoTemplate.remove(Query.query(Criteria.where("periodStart").gte(from).lt(to).and("id").nin(keptIds)),
+                StatsRollup.class);
+        logger.info(" Agrégats statistiques recalculés du {} au {} : {} documents", fromDay, toDay.minusDays(1), rebuilt.size());
+    }
+
+    // ---------------------------------------------------------------------
+
+    private void reviewChanged(Review review, int delta) {
+        if (review.getRating() == null) {
+            return;
+        }
+        increment(review.getCreatedAt(), update -> update.inc("reviewsByRating." + review.getRating(), delta));
+    }
+
+    /**
+     * Applique les mêmes incréments au document du jour et à celui de l'heure (un seul aller-retour).
+     * Les statistiques ne doivent jamais faire échouer l'opération métier : les erreurs sont journalisées
+     * et corrigées par le rattrapage.
+     */
+    private void increment(LocalDateTime at, Consumer<Update> increments) {
+        LocalDateTime moment = at != null ? at : LocalDateTime.now();
+        LocalDateTime hourStart = moment.truncatedTo(ChronoUnit.HOURS);
+        LocalDateTime dayStart = moment.truncatedTo(ChronoUnit.DAYS);
+        try {
+            BulkOperations bulk = writeConcernPolicy.bulkOps(BulkOperations.BulkMode.UNORDERED, StatsRollup.class);
+            bulk.upsert(Query.query(Criteria.where("id").is(dayKey(dayStart))), incrementUpdate(StatsRollup.DAY, dayStart, increments));
+            bulk.upsert(Query.query(Criteria.where("id").is(hourKey(hourStart))), incrementUpdate(StatsRollup.HOUR, hourStart, increments));
+            bulk.execute();
+        } catch (Exception e) {
+            logger.error(" Échec de la mise à jour des statistiques : {}", e.getMessage());
+        }
+    }
+
+    private static Update incrementUpdate(String granularity, LocalDateTime periodStart, Consumer<Update> increments) {
+        Update update = new Update()
+                .setOnInsert("granularity", granularity)
+                .setOnInsert("periodStart", periodStart)
+                .set("updatedAt", LocalDateTime.now());
+        increments.accept(update);
+        return update;
+    }
+
+    /**
+     * Regroupe une collection par heure locale de {@code dateField} et par {@code keyField}.
+     * Résultat : {_id: {hour: "yyyy-MM-ddTHH", key: ...}, count: n}
+     */
+    private List<Document> groupByHour(Class<?> entity, String dateField, String keyField, Criteria criteria) {
+        return groupByHour(entity, List.of(Aggregation.match(criteria)), dateField, keyField);
+    }
+
+    /**
+     * Comme {@link #groupByHour(Class, String, String, Criteria)} sur bookings et bookings_archive ($unionWith,
+     * même filtre des deux côtés). Une réservation présente dans les deux collections (archivage interrompu
+     * entre copie et suppression) n'est comptée qu'une fois, version active en premier.
+     */
+    private List<Document> groupByBookingHour(String dateField, String keyField, Criteria criteria) {
+        return groupByHour(Booking.class, List.of(
+                Aggregation.match(criteria),
+                UnionWithOperation.unionWith(BookingArchiveService.ARCHIVE_COLLECTION)
+                        .pipeline(Aggregation.match(criteria))
+                        .mapFieldsTo(Booking.class),
+                Aggregation.group("id").first(dateField).as(dateField).first(keyField).as(keyField)),
+                dateField, keyField);
+    }
+
+    private List<Document> groupByHour(Class<?> entity, List<AggregationOperation> source, String dateField, String keyField) {
+        List<AggregationOperation> stages = new ArrayList<>(source);
+        stages.add(Aggregation.project()
+                        .and(DateOperators.DateToString.dateOf(dateField)
+                                .toString("%Y-%m-%dT%H")
+                                .withTimezone(DateOperators.Timezone.valueOf(ZoneId.systemDefault().getId())))
+                        .as("hour")
+                        .and(keyField).as("key"));
+        stages.add(Aggregation.group("hour", "key").count().as("count"));
+        return mongoTemplate.aggregate(Aggregation.newAggregation(stages), entity, Document.class).getMappedResults();
+    }
+
+    private StatsRollup hourRollup(Map<String, StatsRollup> hours, Document row) {
+        String hour = row.get("_id", Document.class).getString("hour");
+        return hours.computeIfAbsent(StatsRollup.HOUR + ":" + hour,
+                id -> newRollup(id, StatsRollup.HOUR, LocalDateTime.parse(hour + ":00")));
+    }
+
+    private static StatsRollup newRollup(String id, String granularity, LocalDateTime periodStart) {
+        StatsRollup rollup = new StatsRollup();
+        rollup.setId(id);
+        rollup.setGranularity(granularity);
+        rollup.setPeriodStart(periodStart);
+        rollup.setUpdatedAt(LocalDateTime.now());
+        return rollup;
+    }
+
+    private Map<String, Double> servicePrices(Collection<String> serviceIds) {
+        List<String> ids = serviceIds.stream().filter(Objects::nonNull).distinct().toList();
+        Map<String, Double> prices = new HashMap<>();
+        if (ids.isEmpty()) {
+            return prices;
+        }
+        Query query = Query.query(Criteria.where("id").in(ids));
+        query.fields().include("price");
+        mongoTemplate.find(query, ServiceEntity.class)
+                .forEach(service -> prices.put(service.getId(), service.getPrice() != null ? service.getPrice() : 0d));
+        return prices;
+    }
+
+    private List<StatsRollup> findRollups(String granularity, LocalDateTime from) {
+        Query query = Query.query(Criteria.where("granularity").is(granularity).and("periodStart").gte(from))
+                .with(Sort.by("periodStart"));
+        return mongoTemplate.find(query, StatsRollup.class);
+    }
+
+    private LocalDateTime earliest(String collection, String field) {
+        Query query = Query.query(Criteria.where(field).ne(null)).with(Sort.by(field)).limit(1);
+        query.fields().include(field);
+        Document first = mongoTemplate.findOne(query, Document.class, collection);
+        if (first == null || first.getDate(field) == null) {
+            return null;
+        }
+        return LocalDateTime.ofInstant(first.getDate(field).toInstant(), ZoneId.systemDefault());
+    }
+
+    private static void mergeInto(Map<String, Long> target, Map<String, Long> source) {
+        if (source != null) {
+            source.forEach((key, value) -> target.merge(key, value, Long::sum));
+        }
+    }
+
+    private static DashboardView.Point toPoint(StatsRollup rollup) {
+        return new DashboardView.Point(rollup.getPeriodStart(), rollup.getBookingsCreated(), rollup.getPaidBookings(),
+                rollup.getRevenue(), sum(rollup.getSignupsByRole()), sum(rollup.getReviewsByRating()));
+    }
+
+    private static long sum(Map<String, Long> counters) {
+        return counters == null ? 0 : counters.values().stream().mapToLong(Long::longValue).sum();
+    }
+
+    private static String dayKey(LocalDateTime dayStart) {
+        return StatsRollup.DAY + ":" + DAY_KEY.format(dayStart);
+    }
+
+    private static String hourKey(LocalDateTime hourStart) {
+        return StatsRollup.HOUR + ":" + HOUR_KEY.format(hourStart);
+    }
+}
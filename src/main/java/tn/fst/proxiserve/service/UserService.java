@@ -2,7 +2,6 @@ package tn.fst.proxiserve.service;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -19,7 +18,8 @@ public class UserService {
 
     private static final Logger logger = LoggerFactory.getLogger(UserService.class);
     private final UserRepository userRepository;
-    private final PasswordEncoder passwordEncoder;
+    private final PasswordHashingService passwordHashingService;
+    private final StatsRollupService statsRollupService;
 
 
     /**
@@ -45,10 +45,11 @@ public class UserService {
         }
 
         // Encodage du mot de passe
-        user.setPassword(passwordEncoder.encode(user.getPassword()));
+        user.setPassword(passwordHashingService.encode(user.getPassword()));
 
         // Sauvegarde de l'utilisateur
         User savedUser = userRepository.save(user);
+        statsRollupService.userRegistered(savedUser);
         logger.info(" Utilisateur enregistré avec succès : {}", savedUser.getEmail());
 
         // Masquer le mot de passe avant de retourner l'objet
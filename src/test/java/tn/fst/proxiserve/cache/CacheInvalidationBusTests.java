@@ -0,0 +1,195 @@
+package tn.fst.proxiserve.cache;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import java.util.function.Supplier;
+
+import org.bson.Document;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.SimpleMongoClientDatabaseFactory;
+
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.Updates;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import tn.fst.proxiserve.config.MongoClientProperties;
+import tn.fst.proxiserve.config.WriteConcernPolicy;
+
+/**
+ * Bus d'invalidation contre un vrai serveur MongoDB, dans une base jetable supprimée à la fin.
+ *
+ * Replica set à un nœud :
+ *   docker run -d --name rs -p 27017:27017 mongo:7 --replSet rs0 && mongosh --eval 'rs.initiate()'
+ *   MONGODB_RS_URI="mongodb://localhost:27017/?replicaSet=rs0" mvn test -Dtest=CacheInvalidationBusTests
+ * Serveur autonome (repli sur la durée de vie courte) :
+ *   docker run -d --name standalone -p 27018:27017 mongo:7
+ *   MONGODB_STANDALONE_URI="mongodb://localhost:27018" mvn test -Dtest=CacheInvalidationBusTests
+ * Sans ces variables, seuls les tests sans serveur s'exécutent.
+ */
+class CacheInvalidationBusTests {
+
+    private static final Duration WAIT = Duration.ofSeconds(15);
+
+    private final BlockingQueue<CacheInvalidationEvent> events = new LinkedBlockingQueue<>();
+    private MongoClient client;
+    private MongoTemplate template;
+    private CacheInvalidationBus bus;
+
+    @AfterEach
+    void tearDown() {
+        if (bus != null) {
+            bus.shutdown();
+        }
+        if (template != null) {
+            template.getDb().drop();
+        }
+        if (client != null) {
+            client.close();
+        }
+    }
+
+    @Test
+    @EnabledIfEnvironmentVariable(named = "MONGODB_RS_URI", matches = ".+")
+    void publishesWritesAndPersistsResumeToken() throws Exception {
+        connect(System.getenv("MONGODB_RS_URI"));
+        bus = start("node-a", 100);
+        awaitTrue(bus::isChangeStreamActive);
+        events.clear(); // Invalidation complète d'un nouveau flux
+
+        template.getCollection("services").insertOne(new Document("_id", "s1").append("title", "Plomberie"));
+        assertEquals(new CacheInvalidationEvent("services", "s1", CacheInvalidationEvent.Kind.UPSERT), next());
+
+        template.getCollection("services").deleteOne(Filters.eq("_id", "s1"));
+        assertEquals(new CacheInvalidationEvent("services", "s1", CacheInvalidationEvent.Kind.DELETE), next());
+
+        // Collection non suivie : aucun événement
+        template.getCollection("bookings").insertOne(new Document("_id", "b1"));
+        assertNull(events.poll(1, TimeUnit.SECONDS));
+
+        bus.flushResumeToken();
+        Document token = template.getCollection("cache_resume_tokens").find(Filters.eq("_id", "node-a")).first();
+        assertNotNull(token);
+        assertNotNull(token.getString("token"));
+    }
+
+    @Test
+    @EnabledIfEnvironmentVariable(named = "MONGODB_RS_URI", matches = ".+")
+    void resumesAfterRestartWithoutFullInvalidation() throws Exception {
+        connect(System.getenv("MONGODB_RS_URI"));
+        bus = start("node-b", 100);
+        awaitTrue(bus::isChangeStreamActive);
+        template.getCollection("services").insertOne(new Document("_id", "s2").append("title", "Électricité"));
+        assertEquals("s2", next().documentId());
+
+        // Arrêt (jeton persisté), écriture pendant l'arrêt, puis redémarrage avec le même nœud
+        bus.shutdown();
+        template.getCollection("services").updateOne(Filters.eq("_id", "s2"), Updates.set("title", "Électricité générale"));
+        events.clear();
+
+        bus = start("node-b", 100);
+        // Reprise depuis le jeton : la modification manquée arrive, sans invalidation complète avant elle
+        CacheInvalidationEvent missed = events.poll(WAIT.toMillis(), TimeUnit.MILLISECONDS);
+        assertEquals(new CacheInvalidationEvent("services", "s2", CacheInvalidationEvent.Kind.UPSERT), missed);
+        assertTrue(bus.isChangeStreamActive());
+    }
+
+    @Test
+    @EnabledIfEnvironmentVariable(named = "MONGODB_STANDALONE_URI", matches = ".+")
+    void standaloneServerFallsBackToShortTtl() throws Exception {
+        connect(System.getenv("MONGODB_STANDALONE_URI"));
+        bus = start("node-c", 100);
+        // Change streams refusés (code 40573) : le bus reste inactif et retente
+        Thread.sleep(1000);
+        assertFalse(bus.isChangeStreamActive());
+
+        template.getCollection("services").insertOne(new Document("_id", "s3").append("title", "Avant"));
+        ReadThroughCache<String> cache = titles(bus::isChangeStreamActive);
+        assertEquals("Avant", cache.get("s3").orElseThrow());
+
+        // Modification non propagée : visible après la durée de vie de repli, pas avant
+        template.getCollection("services").updateOne(Filters.eq("_id", "s3"), Updates.set("title", "Après"));
+        assertEquals("Avant", cache.get("s3").orElseThrow());
+        Thread.sleep(600);
+        assertEquals("Après", cache.get("s3").orElseThrow());
+    }
+
+    @Test
+    void entryLifetimeFollowsBusState() throws Exception {
+        // Sans serveur : source en mémoire, durée de vie choisie au chargement selon l'état du bus
+        Map<String, String> source = new ConcurrentHashMap<>(Map.of("s4", "Avant"));
+        boolean[] active = {true};
+        ReadThroughCache<String> cache = new ReadThroughCache<>("test", 100, Duration.ofHours(1), Duration.ofMillis(300),
+                () -> active[0], id -> Optional.ofNullable(source.get(id)), ids -> Map.of(), new SimpleMeterRegistry());
+
+        assertEquals("Avant", cache.get("s4").orElseThrow());
+        source.put("s4", "Après");
+        Thread.sleep(600);
+        assertEquals("Avant", cache.get("s4").orElseThrow()); // Bus actif : seule une invalidation rafraîchit
+
+        cache.onInvalidation(new CacheInvalidationEvent("services", "s4", CacheInvalidationEvent.Kind.UPSERT));
+        active[0] = false;
+        assertEquals("Après", cache.get("s4").orElseThrow());
+        source.put("s4", "Encore");
+        Thread.sleep(600);
+        assertEquals("Encore", cache.get("s4").orElseThrow()); // Repli : expiration courte
+    }
+
+    private void connect(String uri) {
+        client = MongoClients.create(uri);
+        template = new MongoTemplate(new SimpleMongoClientDatabaseFactory(client,
+                "cache_bus_test_" + UUID.randomUUID().toString().substring(0, 8)));
+    }
+
+    private CacheInvalidationBus start(String nodeId, long retryIntervalMs) {
+        WriteConcernPolicy policy = new WriteConcernPolicy(new MongoClientProperties.Writes(),
+                template.getMongoDatabaseFactory(), template.getConverter());
+        CacheInvalidationBus started = new CacheInvalidationBus(template, policy,
+                event -> events.add((CacheInvalidationEvent) event), true,
+                List.of("users", "artisans", "services", "reviews", "resource_versions"), retryIntervalMs, nodeId);
+        started.start();
+        return started;
+    }
+
+    private ReadThroughCache<String> titles(Supplier<Boolean> active) {
+        return new ReadThroughCache<>("services", 100, Duration.ofHours(1), Duration.ofMillis(300), active,
+                id -> Optional.ofNullable(template.getCollection("services").find(Filters.eq("_id", id)).first())
+                        .map(document -> document.getString("title")),
+                ids -> Map.of(), new SimpleMeterRegistry());
+    }
+
+    private CacheInvalidationEvent next() throws InterruptedException {
+        CacheInvalidationEvent event;
+        do {
+            event = events.poll(WAIT.toMillis(), TimeUnit.MILLISECONDS);
+            assertNotNull(event, "aucune invalidation reçue");
+        } while (event.kind() == CacheInvalidationEvent.Kind.ALL);
+        return event;
+    }
+
+    private static void awaitTrue(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + WAIT.toNanos();
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "condition non atteinte");
+            Thread.sleep(50);
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package tn.fst.proxiserve.config;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.bson.Document;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.MongoDatabaseFactory;
+import org.springframework.data.mongodb.core.MongoAction;
+import org.springframework.data.mongodb.core.MongoActionOperation;
+import org.springframework.data.mongodb.core.convert.MappingMongoConverter;
+import org.springframework.data.mongodb.core.convert.NoOpDbRefResolver;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+
+import com.mongodb.WriteConcern;
+
+import tn.fst.proxiserve.model.Booking;
+import tn.fst.proxiserve.model.Review;
+import tn.fst.proxiserve.model.User;
+import tn.fst.proxiserve.model.WriteClass;
+
+class WriteConcernPolicyTests {
+
+    // Aucune connexion : les templates des écritures groupées ne sont pas utilisés ici
+    private final WriteConcernPolicy policy = new WriteConcernPolicy(writes(), mock(MongoDatabaseFactory.class),
+            new MappingMongoConverter(NoOpDbRefResolver.INSTANCE, new MongoMappingContext()));
+
+    @Test
+    void annotationWinsOverCollectionRuleAndDefault() {
+        // Booking est @WritePolicy(CRITICAL) ; sa collection est configurée FAST
+        assertEquals(WriteClass.CRITICAL, policy.classOf(Booking.class, "bookings"));
+        // Sans annotation : règle de collection, puis classe par défaut
+        assertEquals(WriteClass.FAST, policy.classOf(User.class, "users"));
+        assertEquals(WriteClass.FAST, policy.classOf(null, "users"));
+        assertEquals(WriteClass.STANDARD, policy.classOf(User.class, "clients"));
+        assertEquals(WriteClass.STANDARD, policy.classOf(null, null));
+    }
+
+    @Test
+    void threadOverrideWinsOverEverything() {
+        WriteClass inside = WriteConcernPolicy.callAs(WriteClass.FAST, () -> policy.classOf(Booking.class, "bookings"));
+        assertEquals(WriteClass.FAST, inside);
+
+        // Imbrication : la classe précédente est restaurée, puis retirée à la sortie
+        WriteConcernPolicy.runAs(WriteClass.STANDARD, () -> {
+            WriteConcernPolicy.runAs(WriteClass.CRITICAL,
+                    () -> assertEquals(WriteClass.CRITICAL, policy.classOf(Review.class, null)));
+            assertEquals(WriteClass.STANDARD, policy.classOf(Review.class, null));
+        });
+        assertEquals(WriteClass.FAST, policy.classOf(Review.class, null)); // @WritePolicy(FAST) de Review
+    }
+
+    @Test
+    void resolveMapsActionToConcernOfItsClass() {
+        WriteConcern critical = policy.resolve(action(Booking.class, "bookings"));
+        assertEquals(WriteConcern.MAJORITY.getWString(), critical.getWString());
+        assertEquals(Boolean.TRUE, critical.getJournal());
+        assertEquals(2000, critical.getWTimeout(TimeUnit.MILLISECONDS).intValue());
+
+        assertEquals(WriteConcern.ACKNOWLEDGED, policy.resolve(action(User.class, "clients")));
+
+        WriteConcern fast = policy.resolve(action(null, "users"));
+        assertEquals(Integer.valueOf(1), fast.getW());
+        assertEquals(Boolean.FALSE, fast.getJournal());
+    }
+
+    private static MongoAction action(Class<?> entityType, String collectionName) {
+        return new MongoAction(null, MongoActionOperation.INSERT, collectionName, entityType, new Document(), null);
+    }
+
+    private static MongoClientProperties.Writes writes() {
+        MongoClientProperties.Writes writes = new MongoClientProperties.Writes();
+        writes.setCriticalTimeoutMs(2000);
+        writes.setCollections(Map.of("bookings", WriteClass.FAST, "users", WriteClass.FAST));
+        return writes;
+    }
+}
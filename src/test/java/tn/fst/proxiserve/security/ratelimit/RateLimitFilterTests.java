@@ -0,0 +1,136 @@
+package tn.fst.proxiserve.security.ratelimit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+class RateLimitFilterTests {
+
+    @Test
+    void bucketRefillsOverTime() {
+        long t0 = 0;
+        TokenBucket bucket = new TokenBucket(2, 1.0, t0);
+
+        assertEquals(0, bucket.tryConsume(t0));
+        assertEquals(0, bucket.tryConsume(t0));
+        long wait = bucket.tryConsume(t0);
+        assertTrue(wait >= 999_000_000L && wait <= 1_001_000_000L);
+        assertEquals(0, bucket.tryConsume(t0 + 1_500_000_000L));
+        assertTrue(bucket.isFull(t0 + 10_000_000_000L));
+    }
+
+    @Test
+    void accountLimitIsSharedAcrossNodesThroughStore() throws Exception {
+        // Stand-in d'un stockage partagé : les deux "nœuds" consultent les mêmes seaux
+        ConcurrentHashMap<String, TokenBucket> shared = new ConcurrentHashMap<>();
+        RateLimitStore sharedStore = (key, capacity, refillPerSecond) ->
+                shared.computeIfAbsent(key, k -> new TokenBucket(capacity, refillPerSecond, System.nanoTime()))
+                      .tryConsume(System.nanoTime()) / 1_000_000;
+
+        RateLimitProperties properties = loginRule(100, 2);
+        RateLimitFilter nodeA = new RateLimitFilter(sharedStore, properties, new ObjectMapper());
+        RateLimitFilter nodeB = new RateLimitFilter(sharedStore, properties, new ObjectMapper());
+
+        assertEquals(200, login(nodeA, "10.0.0.1", "victim@proxiserve.tn").getStatus());
+        assertEquals(200, login(nodeB, "10.0.0.2", "victim@proxiserve.tn").getStatus());
+
+        MockHttpServletResponse blocked = login(nodeA, "10.0.0.3", "VICTIM@proxiserve.tn");
+        assertEquals(429, blocked.getStatus());
+        assertTrue(Integer.parseInt(blocked.getHeader("Retry-After")) >= 1);
+
+        assertEquals(200, login(nodeB, "10.0.0.4", "other@proxiserve.tn").getStatus());
+    }
+
+    @Test
+    void ipLimitAppliesAndBodyIsReplayed() throws Exception {
+        RateLimitFilter filter = new RateLimitFilter(new InMemoryRateLimitStore(), loginRule(1, 100), new ObjectMapper());
+
+        MockFilterChain chain = new MockFilterChain();
+        MockHttpServletResponse first = new MockHttpServletResponse();
+        filter.doFilter(loginRequest("10.0.0.9", "a@proxiserve.tn"), first, chain);
+        assertEquals(200, first.getStatus());
+        String replayed = new String(chain.getRequest().getInputStream().readAllBytes(), StandardCharsets.UTF_8);
+        assertTrue(replayed.contains("a@proxiserve.tn"));
+
+        assertEquals(429, login(filter, "10.0.0.9", "b@proxiserve.tn").getStatus());
+    }
+
+    @Test
+    void accountLimitAppliesToLargeAndChunkedBodies() throws Exception {
+        RateLimitFilter filter = new RateLimitFilter(new InMemoryRateLimitStore(), loginRule(100, 1), new ObjectMapper());
+
+        // Corps gonflé au-delà de la zone inspectée : le compte reste lu dans le préfixe
+        String padded = "{\"email\":\"victim@proxiserve.tn\",\"password\":\"Secret123\"}" + " ".repeat(20_000);
+        MockFilterChain chain = new MockFilterChain();
+        MockHttpServletResponse first = new MockHttpServletResponse();
+        filter.doFilter(rawLoginRequest("10.0.1.1", padded, false), first, chain);
+        assertEquals(200, first.getStatus());
+        assertEquals(padded.length(), chain.getRequest().getInputStream().readAllBytes().length);
+
+        // Sans Content-Length (chunked) : même seau par compte
+        MockHttpServletResponse second = new MockHttpServletResponse();
+        filter.doFilter(rawLoginRequest("10.0.1.2", "{\"email\":\"VICTIM@proxiserve.tn\"}", true), second, new MockFilterChain());
+        assertEquals(429, second.getStatus());
+
+        // Compte repoussé hors de la zone inspectée : refusé plutôt que non limité
+        String hidden = "{\"pad\":\"" + "x".repeat(20_000) + "\",\"email\":\"victim@proxiserve.tn\"}";
+        MockHttpServletResponse third = new MockHttpServletResponse();
+        filter.doFilter(rawLoginRequest("10.0.1.3", hidden, false), third, new MockFilterChain());
+        assertEquals(413, third.getStatus());
+    }
+
+    private static RateLimitProperties loginRule(int ipCapacity, int accountCapacity) {
+        RateLimitProperties.Rule rule = new RateLimitProperties.Rule();
+        rule.setMethod("POST");
+        rule.setPath("/api/auth/login");
+        rule.setAccountField("email");
+        rule.getPerIp().setCapacity(ipCapacity);
+        rule.getPerIp().setRefillPerMinute(0.001);
+        rule.getPerAccount().setCapacity(accountCapacity);
+        rule.getPerAccount().setRefillPerMinute(0.001);
+
+        RateLimitProperties properties = new RateLimitProperties();
+        properties.setRules(List.of(rule));
+        return properties;
+    }
+
+    private static MockHttpServletResponse login(RateLimitFilter filter, String ip, String email) throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(loginRequest(ip, email), response, new MockFilterChain());
+        return response;
+    }
+
+    private static MockHttpServletRequest rawLoginRequest(String ip, String body, boolean chunked) {
+        byte[] content = body.getBytes(StandardCharsets.UTF_8);
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/auth/login") {
+            @Override
+            public long getContentLengthLong() {
+                return chunked ? -1 : content.length;
+            }
+        };
+        request.setServletPath("/api/auth/login");
+        request.setRemoteAddr(ip);
+        request.setContentType("application/json");
+        request.setContent(content);
+        return request;
+    }
+
+    private static MockHttpServletRequest loginRequest(String ip, String email) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/auth/login");
+        request.setServletPath("/api/auth/login");
+        request.setRemoteAddr(ip);
+        request.setContentType("application/json");
+        request.setContent(("{\"email\":\"" + email + "\",\"password\":\"Secret123\"}").getBytes(StandardCharsets.UTF_8));
+        return request;
+    }
+}
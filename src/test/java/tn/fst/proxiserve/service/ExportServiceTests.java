@@ -0,0 +1,93 @@
+package tn.fst.proxiserve.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+import org.bson.Document;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import tn.fst.proxiserve.model.Booking;
+import tn.fst.proxiserve.model.Client;
+
+class ExportServiceTests {
+
+    private MongoTemplate mongoTemplate;
+    private ExportService service;
+
+    @BeforeEach
+    void setUp() {
+        mongoTemplate = mock(MongoTemplate.class);
+        when(mongoTemplate.getCollectionName(Booking.class)).thenReturn("bookings");
+        service = new ExportService(mongoTemplate, new ObjectMapper(), 1000, 10000);
+    }
+
+    @Test
+    void millionRowsAreStreamedAndCursorClosed() throws Exception {
+        // Curseur paresseux d'un million de réservations : rien n'est matérialisé côté test
+        AtomicBoolean closed = new AtomicBoolean();
+        Stream<Document> cursor = LongStream.range(0, 1_000_000).mapToObj(ExportServiceTests::booking)
+                .onClose(() -> closed.set(true));
+        when(mongoTemplate.stream(any(Query.class), eq(Document.class), eq("bookings"))).thenReturn(cursor);
+
+        CountingStream out = new CountingStream();
+        long rows = service.export("bookings", ExportService.Format.NDJSON, true, null, out);
+
+        assertEquals(1_000_000, rows);
+        assertTrue(closed.get());
+        assertTrue(out.bytes.get() > 0);
+    }
+
+    @Test
+    void csvCellsStartingWithFormulaCharactersAreNeutralized() throws Exception {
+        Document client = new Document("_id", "c1").append("fullName", "=HYPERLINK(\"http://x\")")
+                .append("email", "a@proxiserve.tn").append("phoneNumber", "+21620000000");
+        when(mongoTemplate.getCollectionName(Client.class)).thenReturn("clients");
+        when(mongoTemplate.stream(any(Query.class), eq(Document.class), eq("clients"))).thenReturn(Stream.of(client));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        service.export("clients", ExportService.Format.CSV, false, null, out);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals("_id,userId,email,fullName,phoneNumber,createdAt", lines[0]);
+        assertEquals("c1,,a@proxiserve.tn,\"'=HYPERLINK(\"\"http://x\"\")\",'+21620000000,", lines[1]);
+    }
+
+    private static Document booking(long i) {
+        return new Document("_id", "b" + i).append("clientId", "c" + (i % 1000)).append("artisanId", "a" + (i % 100))
+                .append("serviceId", "s" + (i % 500)).append("bookingDate", new Date(1_700_000_000_000L + i))
+                .append("status", "COMPLETED").append("totalPrice", 50.0).append("paymentStatus", "PAID");
+    }
+
+    /** Flux de réponse qui ne conserve que le nombre d'octets reçus */
+    private static class CountingStream extends OutputStream {
+        final AtomicLong bytes = new AtomicLong();
+
+        @Override
+        public void write(int b) {
+            bytes.incrementAndGet();
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            bytes.addAndGet(len);
+        }
+    }
+}
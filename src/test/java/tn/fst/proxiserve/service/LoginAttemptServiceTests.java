@@ -0,0 +1,71 @@
+package tn.fst.proxiserve.service;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+import java.time.LocalDateTime;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.mongodb.core.MongoTemplate;
+
+import tn.fst.proxiserve.model.User;
+
+class LoginAttemptServiceTests {
+
+    private MongoTemplate mongoTemplate;
+    private LoginAttemptService service;
+
+    @BeforeEach
+    void setUp() {
+        mongoTemplate = mock(MongoTemplate.class);
+        service = new LoginAttemptService(mongoTemplate, 1000);
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.shutdown();
+    }
+
+    @Test
+    void lookupsNeverQueryMongo() {
+        assertFalse(service.isBlocked("fresh@proxiserve.tn"));
+        assertFalse(service.isBlocked("fresh@proxiserve.tn", user(false, null)));
+
+        verifyNoInteractions(mongoTemplate);
+    }
+
+    @Test
+    void activePersistedLockBlocksAndIsKeptLocally() {
+        assertTrue(service.isBlocked("locked@proxiserve.tn", user(true, LocalDateTime.now().minusMinutes(2))));
+        // Verrou repris en mémoire : bloqué dès la vérification locale, avant toute lecture
+        assertTrue(service.isBlocked("LOCKED@proxiserve.tn"));
+    }
+
+    @Test
+    void expiredPersistedFlagDoesNotBlock() {
+        // Déverrouillage pas encore écrit en base : le délai écoulé fait foi
+        assertFalse(service.isBlocked("stale@proxiserve.tn", user(true, LocalDateTime.now().minusMinutes(16))));
+    }
+
+    @Test
+    void fiveFailuresLockLocally() {
+        for (int i = 0; i < 5; i++) {
+            service.loginFailed("victim@proxiserve.tn");
+        }
+        assertTrue(service.isBlocked("victim@proxiserve.tn"));
+
+        service.loginSucceeded("victim@proxiserve.tn");
+        assertFalse(service.isBlocked("victim@proxiserve.tn"));
+    }
+
+    private static User user(boolean locked, LocalDateTime lockTime) {
+        User user = new User();
+        user.setAccountLocked(locked);
+        user.setLockTime(lockTime);
+        return user;
+    }
+}
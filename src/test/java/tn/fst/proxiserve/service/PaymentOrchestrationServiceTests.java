@@ -0,0 +1,223 @@
+package tn.fst.proxiserve.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.bson.Document;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import com.paypal.api.payments.Amount;
+import com.paypal.api.payments.Payment;
+import com.paypal.api.payments.Transaction;
+import com.paypal.base.rest.PayPalRESTException;
+
+import tn.fst.proxiserve.cache.ServiceCache;
+import tn.fst.proxiserve.config.WriteConcernPolicy;
+import tn.fst.proxiserve.model.Booking;
+import tn.fst.proxiserve.model.PaymentRecord;
+import tn.fst.proxiserve.repository.BookingRepository;
+import tn.fst.proxiserve.repository.ClientRepository;
+import tn.fst.proxiserve.repository.UserRepository;
+
+class PaymentOrchestrationServiceTests {
+
+    /**
+     * Passerelle sans réseau : renvoie un paiement exécuté pour le montant donné, ou échoue.
+     */
+    static class StubGateway extends PayPalGateway {
+        final AtomicInteger calls = new AtomicInteger();
+        String executedTotal = "50.00";
+        boolean failing;
+
+        StubGateway() {
+            super("id", "secret", 300, Map.of());
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public <T> T execute(PayPalCall<T> call) throws PayPalRESTException {
+            calls.incrementAndGet();
+            if (failing) {
+                throw new PayPalRESTException("INTERNAL_SERVICE_ERROR");
+            }
+            Amount amount = new Amount();
+            amount.setTotal(executedTotal);
+            amount.setCurrency("EUR");
+            Transaction transaction = new Transaction();
+            transaction.setAmount(amount);
+            Payment payment = new Payment();
+            payment.setTransactions(List.of(transaction));
+            return (T) payment;
+        }
+    }
+
+    private MongoTemplate mongoTemplate;
+    private BulkOperations bulk;
+    private StatsRollupService statsRollupService;
+    private SchedulerLockService schedulerLockService;
+    private StubGateway gateway;
+    private PaymentOrchestrationService service;
+
+    @BeforeEach
+    void setUp() {
+        mongoTemplate = mock(MongoTemplate.class);
+        bulk = mock(BulkOperations.class);
+        statsRollupService = mock(StatsRollupService.class);
+        schedulerLockService = mock(SchedulerLockService.class);
+        when(schedulerLockService.tryAcquire(eq("payment-reconcile"), any())).thenReturn(true);
+        WriteConcernPolicy writeConcernPolicy = mock(WriteConcernPolicy.class);
+        when(writeConcernPolicy.bulkOps(any(), eq(Booking.class))).thenReturn(bulk);
+        gateway = new StubGateway();
+        service = new PaymentOrchestrationService(mongoTemplate, writeConcernPolicy, gateway, statsRollupService,
+                schedulerLockService, mock(UserRepository.class), mock(ClientRepository.class),
+                mock(BookingRepository.class), mock(ServiceCache.class), "EUR", 1, 10, 3, 120, 500, 60);
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.shutdown();
+    }
+
+    @Test
+    void leaseHeldElsewhereSkipsExecution() {
+        // findAndModify sans résultat : un autre nœud détient le bail ou le paiement est déjà exécuté
+        service.executeApproved("PAY-1");
+
+        assertEquals(0, gateway.calls.get());
+        verify(mongoTemplate, never()).updateFirst(any(Query.class), any(Update.class), eq(PaymentRecord.class));
+    }
+
+    @Test
+    void executedAmountIsRecordedForReconciliation() {
+        claimReturns(record("PAY-1", 1));
+
+        service.executeApproved("PAY-1");
+
+        Document set = lastUpdate();
+        assertEquals(PaymentRecord.EXECUTED, set.get("status"));
+        assertEquals("50.00", set.get("executedAmount"));
+        assertEquals("EUR", set.get("executedCurrency"));
+    }
+
+    @Test
+    void failedExecutionIsRetriedThenMarkedFailed() {
+        gateway.failing = true;
+
+        claimReturns(record("PAY-1", 1));
+        service.executeApproved("PAY-1");
+        Document retry = lastUpdate();
+        assertEquals("INTERNAL_SERVICE_ERROR", retry.get("lastError"));
+        assertNull(retry.get("status")); // Reste APPROVED : relancé par le réconciliateur
+
+        claimReturns(record("PAY-1", 3));
+        service.executeApproved("PAY-1");
+        assertEquals(PaymentRecord.FAILED, lastUpdate().get("status"));
+        assertEquals(2, gateway.calls.get());
+    }
+
+    @Test
+    void reconcileMarksBookingPaidOnlyWhenAmountMatches() {
+        PaymentRecord matching = executed("PAY-1", "booking-1", "50.00", "50.0");
+        PaymentRecord tampered = executed("PAY-2", "booking-2", "50.00", "1.00");
+        when(mongoTemplate.find(any(Query.class), eq(PaymentRecord.class)))
+                .thenReturn(List.of())                      // Aucune exécution en attente
+                .thenReturn(List.of(matching, tampered));   // Paiements exécutés
+
+        service.reconcile();
+
+        ArgumentCaptor<Query> paid = ArgumentCaptor.forClass(Query.class);
+        verify(bulk).updateOne(paid.capture(), any(Update.class));
+        assertEquals("booking-1", paid.getValue().getQueryObject().get("id"));
+        verify(bulk).execute();
+        verify(statsRollupService).bookingsPaidBy(eq(List.of("booking-1")), anyString(), any());
+
+        ArgumentCaptor<Query> failed = ArgumentCaptor.forClass(Query.class);
+        ArgumentCaptor<Update> failure = ArgumentCaptor.forClass(Update.class);
+        verify(mongoTemplate).updateFirst(failed.capture(), failure.capture(), eq(PaymentRecord.class));
+        assertEquals("PAY-2", failed.getValue().getQueryObject().get("paymentId"));
+        assertEquals(PaymentRecord.FAILED, setOf(failure.getValue()).get("status"));
+    }
+
+    @Test
+    void reconcileRunsOnlyOnLeaseHolder() {
+        when(schedulerLockService.tryAcquire(eq("payment-reconcile"), any())).thenReturn(false);
+
+        service.reconcile();
+
+        verify(mongoTemplate, never()).find(any(Query.class), eq(PaymentRecord.class));
+        verify(statsRollupService, never()).bookingsPaidBy(anyCollection(), anyString(), any());
+    }
+
+    @Test
+    void amountComparisonIgnoresScaleButNotCurrency() {
+        assertTrue(PaymentOrchestrationService.amountMatches(executed("P", "b", "50.00", "50")));
+        assertFalse(PaymentOrchestrationService.amountMatches(executed("P", "b", "50.00", "49.99")));
+
+        PaymentRecord otherCurrency = executed("P", "b", "50.00", "50.00");
+        otherCurrency.setExecutedCurrency("USD");
+        assertFalse(PaymentOrchestrationService.amountMatches(otherCurrency));
+
+        PaymentRecord unknownAmount = executed("P", "b", null, "50.00");
+        assertFalse(PaymentOrchestrationService.amountMatches(unknownAmount));
+    }
+
+    private void claimReturns(PaymentRecord record) {
+        when(mongoTemplate.findAndModify(any(Query.class), any(Update.class), any(FindAndModifyOptions.class),
+                eq(PaymentRecord.class))).thenReturn(record);
+    }
+
+    private Document lastUpdate() {
+        ArgumentCaptor<Update> update = ArgumentCaptor.forClass(Update.class);
+        verify(mongoTemplate, atLeastOnce())
+                .updateFirst(any(Query.class), update.capture(), eq(PaymentRecord.class));
+        return setOf(update.getValue());
+    }
+
+    private static Document setOf(Update update) {
+        return (Document) update.getUpdateObject().get("$set");
+    }
+
+    private static PaymentRecord record(String paymentId, int attempts) {
+        PaymentRecord record = new PaymentRecord();
+        record.setPaymentId(paymentId);
+        record.setStatus(PaymentRecord.APPROVED);
+        record.setPayerId("PAYER");
+        record.setAttempts(attempts);
+        return record;
+    }
+
+    private static PaymentRecord executed(String paymentId, String bookingId, String amount, String executedAmount) {
+        PaymentRecord record = new PaymentRecord();
+        record.setPaymentId(paymentId);
+        record.setBookingId(bookingId);
+        record.setStatus(PaymentRecord.EXECUTED);
+        record.setAmount(amount);
+        record.setCurrency("EUR");
+        record.setExecutedAmount(executedAmount);
+        record.setExecutedCurrency("EUR");
+        return record;
+    }
+}